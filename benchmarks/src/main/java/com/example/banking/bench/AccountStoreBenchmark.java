@@ -0,0 +1,85 @@
+package com.example.banking.bench;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.AccountStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccountStoreBenchmark
+ *
+ * 比较按列存储和逐个账户对象两种方式下的批量扫描：余额合计和筛选待计息账户。
+ * objects* 遍历未加入存储的独立账户对象（数值在各自对象的字段中，即改为列存储之前的内存布局）；
+ * columns* 直接扫描 {@link AccountStore} 的基本类型列。两组数据的数值相同。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AccountStoreBenchmark {
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private final AccountStore store = new AccountStore();
+    private final List<Account> accounts = new ArrayList<>();
+    private long today;
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        today = 20_000;
+        List<Account> loaded = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String id = String.valueOf(FixtureGenerator.FIRST_ACCOUNT_ID + i);
+            long balanceCents = random.nextLong(1_000_000_00L);
+            // 约 1% 的账户尚未计息到今天
+            long postedDay = random.nextInt(100) == 0 ? today - 1 : today;
+            loaded.add(account(id, i, balanceCents, postedDay));
+            accounts.add(account(id, i, balanceCents, postedDay));
+        }
+        store.reset(loaded);
+    }
+
+    private static Account account(String id, int i, long balanceCents, long postedDay) {
+        Account account = new Account(id, "C" + i / 4, "B" + i % 4);
+        account.setBalanceCents(balanceCents);
+        account.setInterestPostedDay(postedDay);
+        return account;
+    }
+
+    @Benchmark
+    public long objectsTotalBalance() {
+        long total = 0;
+        for (Account account : accounts) {
+            total += account.getBalanceCents();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long columnsTotalBalance() {
+        return store.totalBalanceCents();
+    }
+
+    @Benchmark
+    public int objectsDueForInterest() {
+        List<Account> due = new ArrayList<>();
+        for (Account account : accounts) {
+            if (account.getInterestPostedDay() < today) {
+                due.add(account);
+            }
+        }
+        return due.size();
+    }
+
+    @Benchmark
+    public int columnsDueForInterest() {
+        return store.dueForInterest(today).size();
+    }
+}
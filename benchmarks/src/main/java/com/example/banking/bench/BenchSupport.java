@@ -0,0 +1,112 @@
+package com.example.banking.bench;
+
+import com.example.banking.config.BankingProperties;
+import com.example.banking.service.BankingService;
+import com.example.banking.service.DataJournal;
+import com.example.banking.service.SnapshotFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * BenchSupport
+ *
+ * 基准测试公用工具：在临时目录中创建独立的 BankingService 实例。
+ */
+public final class BenchSupport {
+    private BenchSupport() {}
+
+    /**
+     * 创建一个临时数据目录。
+     * @return 目录路径
+     */
+    public static Path tempDir() {
+        try {
+            return Files.createTempDirectory("banking-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 在指定目录中创建并初始化 BankingService。
+     * @param dir 数据目录
+     * @return 已初始化的服务
+     */
+    public static BankingService newService(Path dir) {
+        return newService(dir, DataJournal.Durability.SYNC);
+    }
+
+    /**
+     * 在指定目录中以指定持久化模式创建并初始化 BankingService。
+     * @param dir 数据目录
+     * @param durability 持久化模式
+     * @return 已初始化的服务
+     */
+    public static BankingService newService(Path dir, DataJournal.Durability durability) {
+        return newService(dir, durability, new BankingProperties().getPersistence().getCheckpointInterval());
+    }
+
+    /**
+     * 在指定目录中以指定持久化模式和快照间隔创建并初始化 BankingService。
+     * @param dir 数据目录
+     * @param durability 持久化模式
+     * @param checkpointInterval 每写入多少条日志记录生成一次快照
+     * @return 已初始化的服务
+     */
+    public static BankingService newService(Path dir, DataJournal.Durability durability, int checkpointInterval) {
+        return newService(dir, durability, checkpointInterval, SnapshotFormat.JSON);
+    }
+
+    /**
+     * 在指定目录中以指定快照格式创建并初始化 BankingService。
+     * @param dir 数据目录
+     * @param format 快照格式
+     * @return 已初始化的服务
+     */
+    public static BankingService newService(Path dir, SnapshotFormat format) {
+        return newService(dir, DataJournal.Durability.SYNC,
+                new BankingProperties().getPersistence().getCheckpointInterval(), format);
+    }
+
+    /**
+     * 在指定目录中以指定持久化模式、快照间隔和快照格式创建并初始化 BankingService。
+     * @param dir 数据目录
+     * @param durability 持久化模式
+     * @param checkpointInterval 每写入多少条日志记录生成一次快照
+     * @param format 快照格式
+     * @return 已初始化的服务
+     */
+    public static BankingService newService(Path dir, DataJournal.Durability durability, int checkpointInterval,
+                                            SnapshotFormat format) {
+        BankingProperties properties = new BankingProperties();
+        properties.setDataFile(dir.resolve("data.json").toString());
+        properties.getPersistence().setDurability(durability);
+        properties.getPersistence().setCheckpointInterval(checkpointInterval);
+        properties.getPersistence().setSnapshotFormat(format);
+        BankingService service = new BankingService(properties, new SimpleMeterRegistry());
+        service.init();
+        return service;
+    }
+
+    /**
+     * 关闭服务并删除数据目录。
+     * @param service 服务
+     * @param dir 数据目录
+     */
+    public static void dispose(BankingService service, Path dir) {
+        if (service != null) {
+            service.shutdown();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
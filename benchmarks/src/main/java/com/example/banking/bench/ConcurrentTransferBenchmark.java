@@ -0,0 +1,82 @@
+package com.example.banking.bench;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.Customer;
+import com.example.banking.service.BankingService;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConcurrentTransferBenchmark
+ *
+ * 多线程随机互转的压力基准。账户数越少竞争越激烈；
+ * 每轮结束时校验所有账户余额之和保持不变，发现丢失更新或死锁时直接失败。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ConcurrentTransferBenchmark {
+    private static final long INITIAL_BALANCE_CENTS = 100_000;
+
+    @Param({"4", "64", "4096"})
+    public int accountCount;
+
+    private Path dir;
+    private BankingService service;
+    private String[] accountIds;
+    private long expectedTotal;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = BenchSupport.tempDir();
+        service = BenchSupport.newService(dir);
+        Customer customer = service.createCustomer(service.getBanks().get(0), "bench", "bench", "bench");
+        String bankId = service.getBanks().get(0).getId();
+        while (service.getAccountsByCustomerId(customer.getId()).size() < accountCount) {
+            service.createAccount(customer, bankId);
+        }
+        List<Account> accounts = service.getAccountsByCustomerId(customer.getId());
+        accountIds = accounts.stream().map(Account::getId).toArray(String[]::new);
+        for (String id : accountIds) {
+            service.recharge(id, INITIAL_BALANCE_CENTS);
+        }
+        expectedTotal = totalBalance();
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String from = accountIds[random.nextInt(accountIds.length)];
+        String to = accountIds[random.nextInt(accountIds.length)];
+        return service.transfer(from, to, 1 + random.nextInt(1000));
+    }
+
+    @TearDown(Level.Iteration)
+    public void verifyConservation() {
+        long total = totalBalance();
+        if (total != expectedTotal) {
+            throw new IllegalStateException("Money not conserved: expected " + expectedTotal + " but was " + total);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchSupport.dispose(service, dir);
+    }
+
+    private long totalBalance() {
+        long total = 0;
+        for (String id : accountIds) {
+            total += service.getAccountById(id).getBalanceCents();
+        }
+        return total;
+    }
+}
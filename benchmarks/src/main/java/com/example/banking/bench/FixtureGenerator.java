@@ -0,0 +1,164 @@
+package com.example.banking.bench;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+
+/**
+ * FixtureGenerator
+ *
+ * 生成与 data.json 格式相同的合成数据：4 家银行，每个客户 4 个账户，
+ * 所有客户的密码都是 {@link #PASSWORD}（使用与生产相同的 BCrypt 代价，只计算一次哈希）。
+ * 生成结果按账户数缓存在 target/fixtures 下，多次运行基准时复用。
+ * 也可以单独运行：{@code java -cp target/benchmarks.jar com.example.banking.bench.FixtureGenerator 100000 out.json}
+ */
+public final class FixtureGenerator {
+    /** 合成客户的统一密码 */
+    public static final String PASSWORD = "password";
+    /** 每个客户的账户数 */
+    public static final int ACCOUNTS_PER_CUSTOMER = 4;
+    /** 合成客户的用户名前缀，后接客户序号 */
+    public static final String USERNAME_PREFIX = "user";
+    /** 第一个账户的ID，与 BankingService 的账户计数器起点一致 */
+    public static final int FIRST_ACCOUNT_ID = 1000;
+
+    private static final int BANKS = 4;
+    private static final Path CACHE_DIR = Paths.get("target", "fixtures");
+
+    private FixtureGenerator() {}
+
+    /**
+     * 命令行入口。
+     * @param args 账户数和输出文件路径
+     * @throws IOException 写入失败
+     */
+    public static void main(String[] args) throws IOException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        Path out = Paths.get(args.length > 1 ? args[1] : "data.json");
+        write(out, accounts);
+        System.out.println("Wrote " + accounts + " accounts to " + out);
+    }
+
+    /**
+     * 获取指定规模的缓存数据文件，不存在时生成。
+     * @param accounts 账户数
+     * @return 数据文件路径
+     */
+    public static synchronized Path fixture(int accounts) {
+        Path file = CACHE_DIR.resolve("data-" + accounts + ".json");
+        try {
+            if (!Files.exists(file)) {
+                Files.createDirectories(CACHE_DIR);
+                Path tmp = CACHE_DIR.resolve("data-" + accounts + ".json.tmp");
+                write(tmp, accounts);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 把缓存数据复制为目录中的 data.json。
+     * @param accounts 账户数
+     * @param dir 目标目录
+     */
+    public static void install(int accounts, Path dir) {
+        try {
+            Files.copy(fixture(accounts), dir.resolve("data.json"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 客户数量。
+     * @param accounts 账户数
+     * @return 客户数
+     */
+    public static int customerCount(int accounts) {
+        return Math.max(1, accounts / ACCOUNTS_PER_CUSTOMER);
+    }
+
+    /**
+     * 以流式方式写出数据文件，不在内存中构造完整文档。
+     * @param out 输出文件
+     * @param accounts 账户数
+     * @throws IOException 写入失败
+     */
+    public static void write(Path out, int accounts) throws IOException {
+        int customers = customerCount(accounts);
+        String passwordHash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt());
+        SplittableRandom random = new SplittableRandom(42);
+        try (JsonGenerator g = new JsonFactory().createGenerator(out.toFile(), JsonEncoding.UTF8)) {
+            g.writeStartObject();
+            g.writeArrayFieldStart("banks");
+            for (int b = 0; b < BANKS; b++) {
+                g.writeStartObject();
+                g.writeStringField("id", bankId(b));
+                g.writeStringField("name", "bank" + b);
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+
+            g.writeArrayFieldStart("customers");
+            // 管理员占用 C001，合成客户从 C002 开始
+            writeCustomer(g, 0, "C001", "Administrator", "admin", passwordHash, true);
+            for (int c = 0; c < customers; c++) {
+                writeCustomer(g, c + 1, customerId(c), "User " + c, USERNAME_PREFIX + c, passwordHash, false);
+            }
+            g.writeEndArray();
+
+            g.writeArrayFieldStart("accounts");
+            for (int a = 0; a < accounts; a++) {
+                g.writeStartObject();
+                g.writeStringField("id", String.valueOf(FIRST_ACCOUNT_ID + a));
+                g.writeNumberField("balance", random.nextInt(1_000_000) / 100.0 + 10_000);
+                g.writeNumberField("interestRate", 0.01);
+                g.writeStringField("bankId", bankId(a % BANKS));
+                g.writeStringField("customerId", customerId(Math.min(a / ACCOUNTS_PER_CUSTOMER, customers - 1)));
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+    }
+
+    private static void writeCustomer(JsonGenerator g, int serial, String id, String name, String username,
+                                      String passwordHash, boolean admin) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("id", id);
+        g.writeStringField("name", name);
+        g.writeStringField("username", username);
+        g.writeStringField("passwordHash", passwordHash);
+        g.writeStringField("cardNumber", String.format("6222%012d", serial));
+        g.writeArrayFieldStart("bankIds");
+        g.writeString(bankId(0));
+        g.writeEndArray();
+        g.writeArrayFieldStart("roles");
+        if (admin) {
+            g.writeString("ROLE_ADMIN");
+        }
+        g.writeString("ROLE_USER");
+        g.writeEndArray();
+        g.writeEndObject();
+    }
+
+    private static String customerId(int index) {
+        return "C" + String.format("%03d", index + 2);
+    }
+
+    private static String bankId(int index) {
+        return String.format("00000000-0000-0000-0000-%012d", index);
+    }
+}
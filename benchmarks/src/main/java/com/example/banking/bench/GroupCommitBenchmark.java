@@ -0,0 +1,64 @@
+package com.example.banking.bench;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.Customer;
+import com.example.banking.service.BankingService;
+import com.example.banking.service.DataJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GroupCommitBenchmark
+ *
+ * 200 个并发客户端持续转账时的吞吐量，比较 SYNC（等待批次 fsync）与 RELAXED（不等待）两种持久化模式。
+ * 每个转账都会经过组提交队列，批次大小随并发度自动增长。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(200)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class GroupCommitBenchmark {
+    @Param({"SYNC", "RELAXED"})
+    public DataJournal.Durability durability;
+
+    @Param({"10000"})
+    public int accountCount;
+
+    private Path dir;
+    private BankingService service;
+    private String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = BenchSupport.tempDir();
+        service = BenchSupport.newService(dir, durability);
+        Customer customer = service.createCustomer(service.getBanks().get(0), "bench", "bench", "bench");
+        String bankId = service.getBanks().get(0).getId();
+        while (service.getAccountsByCustomerId(customer.getId()).size() < accountCount) {
+            service.createAccount(customer, bankId);
+        }
+        accountIds = service.getAccountsByCustomerId(customer.getId()).stream()
+                .map(Account::getId).toArray(String[]::new);
+        for (String id : accountIds) {
+            service.recharge(id, 1_000_000L);
+        }
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.transfer(accountIds[random.nextInt(accountIds.length)],
+                accountIds[random.nextInt(accountIds.length)], 1 + random.nextInt(100));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchSupport.dispose(service, dir);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.banking.bench;
+
+import com.example.banking.model.Account;
+import com.example.banking.service.BankingService;
+import com.example.banking.service.DataJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HotPathBenchmark
+ *
+ * BankingService 请求路径上的热点操作：转账、充值、取款、登录验证和按用户名查询账户。
+ * 数据由 {@link FixtureGenerator} 生成，规模由 size（账户数）控制。
+ * 默认单线程运行；用 {@link HotPathRunner} 或 {@code -t} 参数可以在多线程竞争下重复同一组基准。
+ * 持久化模式默认 RELAXED，避免单线程结果被 fsync 延迟淹没，可用 {@code -p durability=SYNC} 覆盖。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HotPathBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"RELAXED"})
+    public DataJournal.Durability durability;
+
+    private Path dir;
+    private BankingService service;
+    private String[] accountIds;
+    private int customers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = BenchSupport.tempDir();
+        FixtureGenerator.install(size, dir);
+        service = BenchSupport.newService(dir, durability);
+        accountIds = service.getAccounts().stream().map(Account::getId).toArray(String[]::new);
+        customers = FixtureGenerator.customerCount(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchSupport.dispose(service, dir);
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.transfer(randomAccount(random), randomAccount(random), 1 + random.nextInt(100));
+    }
+
+    @Benchmark
+    public boolean recharge() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.recharge(randomAccount(random), 1 + random.nextInt(100));
+    }
+
+    @Benchmark
+    public boolean withdraw() {
+        // 每次只取 1 分，初始余额足够覆盖整个测量周期
+        return service.withdraw(randomAccount(ThreadLocalRandom.current()), 1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object authenticate() {
+        return service.authenticate(randomUsername(ThreadLocalRandom.current()), FixtureGenerator.PASSWORD);
+    }
+
+    @Benchmark
+    public Object getAccountsByUsername() {
+        return service.getAccounts(randomUsername(ThreadLocalRandom.current()));
+    }
+
+    private String randomAccount(ThreadLocalRandom random) {
+        return accountIds[random.nextInt(accountIds.length)];
+    }
+
+    private String randomUsername(ThreadLocalRandom random) {
+        return FixtureGenerator.USERNAME_PREFIX + random.nextInt(customers);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.banking.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * HotPathRunner
+ *
+ * 依次以单线程和多线程竞争模式运行 {@link HotPathBenchmark}，并以单线程运行 {@link PersistenceBenchmark}，
+ * 每组结果写入 target/jmh-results 下的 JSON 文件，便于不同提交之间对比。
+ * 其余参数按 JMH 命令行解析，例如 {@code -p size=1000,10000 -f 1}。
+ * 竞争模式的线程数由系统属性 bench.threads 指定，默认等于 CPU 核数。
+ */
+public final class HotPathRunner {
+    private HotPathRunner() {}
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        int contended = Integer.getInteger("bench.threads", Runtime.getRuntime().availableProcessors());
+        File out = new File("target", "jmh-results");
+        out.mkdirs();
+
+        run(cli, HotPathBenchmark.class.getSimpleName(), 1, new File(out, "hotpath-t1.json"));
+        if (contended > 1) {
+            run(cli, HotPathBenchmark.class.getSimpleName(), contended, new File(out, "hotpath-t" + contended + ".json"));
+        }
+        run(cli, PersistenceBenchmark.class.getSimpleName(), 1, new File(out, "persistence.json"));
+    }
+
+    private static void run(CommandLineOptions cli, String include, int threads, File result) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(cli)
+                .include(include)
+                .threads(threads)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.getPath())
+                .build()).run();
+    }
+}
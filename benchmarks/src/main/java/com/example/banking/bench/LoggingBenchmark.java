@@ -0,0 +1,115 @@
+package com.example.banking.bench;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.example.banking.model.Account;
+import com.example.banking.service.BankingService;
+import com.example.banking.service.DataJournal;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoggingBenchmark
+ *
+ * 日志配置对转账延迟的影响，mode 取值：
+ * <ul>
+ *   <li>SYNC：com.example.banking 为 DEBUG，请求线程同步格式化并写出每条事件（原来的配置）</li>
+ *   <li>ASYNC：同样输出每条事件，但经有界队列由后台线程写出，队列满时丢弃而不阻塞</li>
+ *   <li>ASYNC_INFO：异步输出且级别为 INFO（默认配置），逐笔事件在级别检查处跳过，不格式化也不分配参数数组</li>
+ * </ul>
+ * 日志写入临时目录中的文件而不是控制台，避免淹没 JMH 的输出；真实终端比文件更慢，SYNC 的结果偏乐观。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LoggingBenchmark {
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss} %-5level %logger{36} - %msg%n";
+
+    /**
+     * 日志配置。
+     */
+    public enum LogMode { SYNC, ASYNC, ASYNC_INFO }
+
+    @Param({"SYNC", "ASYNC", "ASYNC_INFO"})
+    public LogMode mode;
+
+    @Param({"100000"})
+    public int size;
+
+    private Path dir;
+    private BankingService service;
+    private String[] accountIds;
+    private Appender<ILoggingEvent> appender;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = BenchSupport.tempDir();
+        FixtureGenerator.install(size, dir);
+        // 测量期间不生成快照，后台快照的停顿会掩盖日志本身的开销
+        service = BenchSupport.newService(dir, DataJournal.Durability.RELAXED, Integer.MAX_VALUE);
+        accountIds = service.getAccounts().stream().map(Account::getId).toArray(String[]::new);
+        configureLogging();
+    }
+
+    /**
+     * 服务初始化完成后再替换日志配置，只有转账产生的事件进入被测的 appender。
+     */
+    private void configureLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(dir.resolve("bench.log").toString());
+        file.setEncoder(encoder);
+        file.start();
+        appender = file;
+        if (mode != LogMode.SYNC) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(1024);
+            async.setNeverBlock(true);
+            async.addAppender(file);
+            async.start();
+            appender = async;
+        }
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.setLevel(ch.qos.logback.classic.Level.WARN);
+        Logger banking = context.getLogger("com.example.banking");
+        banking.setLevel(mode == LogMode.ASYNC_INFO
+                ? ch.qos.logback.classic.Level.INFO : ch.qos.logback.classic.Level.DEBUG);
+        banking.setAdditive(false);
+        banking.detachAndStopAllAppenders();
+        banking.addAppender(appender);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        appender.stop();
+        BenchSupport.dispose(service, dir);
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.transfer(accountIds[random.nextInt(accountIds.length)],
+                accountIds[random.nextInt(accountIds.length)], 1 + random.nextInt(100));
+    }
+}
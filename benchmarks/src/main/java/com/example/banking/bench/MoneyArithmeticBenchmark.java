@@ -0,0 +1,83 @@
+package com.example.banking.bench;
+
+import com.example.banking.model.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MoneyArithmeticBenchmark
+ *
+ * 比较三种余额表示下一次“转出 + 转入”的成本：double、BigDecimal 和 long 分。
+ * 每次调用在两个余额之间来回转账 {@code legs} 次，金额为 0.01 ~ 0.99 的小额，
+ * 返回最终余额，便于同时观察 double 的累积误差。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+    @Param({"1000"})
+    public int legs;
+
+    private double[] doubleAmounts;
+    private BigDecimal[] decimalAmounts;
+    private long[] centAmounts;
+
+    @Setup
+    public void setUp() {
+        doubleAmounts = new double[99];
+        decimalAmounts = new BigDecimal[99];
+        centAmounts = new long[99];
+        for (int i = 0; i < 99; i++) {
+            centAmounts[i] = i + 1;
+            decimalAmounts[i] = Money.toDecimal(i + 1);
+            doubleAmounts[i] = Money.toDouble(i + 1);
+        }
+    }
+
+    @Benchmark
+    public double doubleBalances() {
+        double from = 1_000_000.0;
+        double to = 0.0;
+        for (int i = 0; i < legs; i++) {
+            double amount = doubleAmounts[i % 99];
+            if (from >= amount) {
+                from -= amount;
+                to += amount;
+            }
+        }
+        return from + to;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalBalances() {
+        BigDecimal from = new BigDecimal("1000000.00");
+        BigDecimal to = BigDecimal.ZERO.setScale(Money.SCALE);
+        for (int i = 0; i < legs; i++) {
+            BigDecimal amount = decimalAmounts[i % 99];
+            if (from.compareTo(amount) >= 0) {
+                from = from.subtract(amount);
+                to = to.add(amount);
+            }
+        }
+        return from.add(to);
+    }
+
+    @Benchmark
+    public long longCentBalances() {
+        long from = 100_000_000L;
+        long to = 0L;
+        for (int i = 0; i < legs; i++) {
+            long amount = centAmounts[i % 99];
+            if (from >= amount) {
+                from -= amount;
+                to = Math.addExact(to, amount);
+            }
+        }
+        return from + to;
+    }
+}
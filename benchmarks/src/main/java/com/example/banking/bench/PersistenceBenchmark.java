@@ -0,0 +1,84 @@
+package com.example.banking.bench;
+
+import com.example.banking.service.BankingService;
+import com.example.banking.service.SnapshotFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PersistenceBenchmark
+ *
+ * 全量持久化的开销：saveData 写出完整快照，load 从快照启动一个新服务
+ * （包含读取主数据和各分片快照、重放日志、重建索引和启动时的一次检查点），按快照格式分别测量。
+ * load 之前先以同一格式启动并关闭一次服务，使被测的是该格式的分片快照而不是旧版 data.json 的迁移。
+ * 每次调用耗时在毫秒到秒级，因此使用单次计时模式。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Loaded {
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int size;
+
+        @Param({"JSON", "BINARY"})
+        public SnapshotFormat format;
+
+        Path dir;
+        BankingService service;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dir = BenchSupport.tempDir();
+            FixtureGenerator.install(size, dir);
+            service = BenchSupport.newService(dir, format);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            BenchSupport.dispose(service, dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Fresh {
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int size;
+
+        @Param({"JSON", "BINARY"})
+        public SnapshotFormat format;
+
+        Path dir;
+        BankingService service;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            dir = BenchSupport.tempDir();
+            FixtureGenerator.install(size, dir);
+            BenchSupport.newService(dir, format).shutdown();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            BenchSupport.dispose(service, dir);
+            service = null;
+        }
+    }
+
+    @Benchmark
+    public void saveData(Loaded state) {
+        state.service.saveData();
+    }
+
+    @Benchmark
+    public BankingService load(Fresh state) {
+        state.service = BenchSupport.newService(state.dir, state.format);
+        return state.service;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.banking.bench;
+
+import com.example.banking.service.RateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimiterBenchmark
+ *
+ * 限流器每个请求的开销：多线程对随机地址调用 {@link RateLimiter#acquire}。
+ * admitted 的速率足够高，请求全部放行，每次调用推进一次桶的 CAS；
+ * rejected 的桶已经耗尽，请求全部被拒绝，只读不写。
+ * 地址数为 1 时所有线程争用同一个桶；大于 maxKeys 时一部分地址落入溢出桶并触发清理。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+    private static final int MAX_KEYS = 100_000;
+
+    @Param({"1", "1024", "200000"})
+    public int addresses;
+
+    private String[] keys;
+    private RateLimiter open;
+    private RateLimiter exhausted;
+
+    @Setup
+    public void setUp() {
+        keys = new String[addresses];
+        for (int i = 0; i < addresses; i++) {
+            keys[i] = "10." + (i >>> 16 & 0xFF) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF);
+        }
+        open = new RateLimiter("open", 1e12, 1_000_000, MAX_KEYS);
+        exhausted = new RateLimiter("exhausted", 1e-3, 1, MAX_KEYS);
+        for (String key : keys) {
+            exhausted.acquire(key);
+        }
+    }
+
+    @Benchmark
+    public long admitted() {
+        return open.acquire(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    public long rejected() {
+        return exhausted.acquire(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+}
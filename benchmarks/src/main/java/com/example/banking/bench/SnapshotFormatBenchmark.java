@@ -0,0 +1,109 @@
+package com.example.banking.bench;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.Bank;
+import com.example.banking.model.Customer;
+import com.example.banking.service.DataReader;
+import com.example.banking.service.SnapshotConverter;
+import com.example.banking.service.SnapshotFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SnapshotFormatBenchmark
+ *
+ * 只比较快照编解码本身：write 把内存中的全部银行、客户和账户写成一个快照文件，
+ * read 把快照流式读回实体（不建索引、不重放日志）。数据为完整的合成 data.json，
+ * 两种格式的文件大小在准备阶段打印。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SnapshotFormatBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"JSON", "BINARY"})
+    public SnapshotFormat format;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Bank> banks = new ArrayList<>();
+    private final List<Customer> customers = new ArrayList<>();
+    private final List<Account> accounts = new ArrayList<>();
+    private Path dir;
+    private Path snapshot;
+    private Path output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchSupport.tempDir();
+        Path fixture = FixtureGenerator.fixture(size);
+        SnapshotFormat.readSnapshot(fixture, objectMapper, new DataReader.Sink() {
+            @Override
+            public void bank(Bank bank) { banks.add(bank); }
+
+            @Override
+            public void customer(Customer customer) { customers.add(customer); }
+
+            @Override
+            public void account(Account account) { accounts.add(account); }
+        });
+        snapshot = dir.resolve("data" + format.extension());
+        output = dir.resolve("out" + format.extension());
+        SnapshotConverter.convert(fixture, snapshot, format, objectMapper);
+        System.out.printf("%n%s snapshot of %d accounts: %d bytes%n", format, size, Files.size(snapshot));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchSupport.dispose(null, dir);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        try (FileChannel channel = FileChannel.open(output,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotFormat.Output out = format.open(channel, objectMapper);
+            for (Bank bank : banks) {
+                out.bank(bank);
+            }
+            for (Customer customer : customers) {
+                out.customer(customer, 0);
+            }
+            for (Account account : accounts) {
+                out.account(account, 0);
+            }
+            out.finish();
+            return channel.size();
+        }
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        long[] count = new long[1];
+        SnapshotFormat.readSnapshot(snapshot, objectMapper, new DataReader.Sink() {
+            @Override
+            public void bank(Bank bank) { count[0]++; }
+
+            @Override
+            public void customer(Customer customer) { count[0]++; }
+
+            @Override
+            public void account(Account account) { count[0]++; }
+        });
+        return count[0];
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.banking.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ThreadModeLoadTest
+ *
+ * 对比平台线程和虚拟线程两种请求处理模式：分别以 {@code spring.threads.virtual.enabled=false/true}
+ * 启动应用 jar（各用一份新的合成数据，持久化模式为 SYNC），由固定数量的并发客户端持续调用
+ * {@code POST /api/v1/transfers}，预热后统计吞吐量、延迟分位数、失败数和服务端线程峰值。
+ * 客户端是闭环模型（收到响应后才发下一个请求），用于比较同一并发下两种模式的差别，不反映开环到达下的排队延迟。
+ * 用法：{@code java -cp target/benchmarks.jar com.example.banking.bench.ThreadModeLoadTest
+ * ../target/banking-1.0-SNAPSHOT.jar [账户数=100000] [并发客户端=1000] [测量秒数=20]}
+ */
+public final class ThreadModeLoadTest {
+    /** 客户端使用的用户数，每个用户的第一次请求需要一次 BCrypt 校验 */
+    private static final int USERS = 64;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Pattern THREADS_PEAK = Pattern.compile("\"value\"\\s*:\\s*([0-9.]+)");
+
+    private ThreadModeLoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: ThreadModeLoadTest <app.jar> [accounts] [clients] [seconds]");
+            System.exit(2);
+        }
+        Path jar = Paths.get(args[0]).toAbsolutePath();
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        Duration measure = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 20);
+
+        List<String> rows = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            rows.add(run(jar, accounts, clients, measure, virtual));
+        }
+        System.out.printf("%n%-9s %8s %10s %9s %9s %9s %9s %7s %8s%n",
+                "mode", "clients", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors", "threads");
+        rows.forEach(System.out::println);
+    }
+
+    private static String run(Path jar, int accounts, int clients, Duration measure, boolean virtual)
+            throws Exception {
+        Path dir = BenchSupport.tempDir();
+        FixtureGenerator.install(accounts, dir);
+        int port = freePort();
+        int managementPort = freePort();
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process app = new ProcessBuilder(java, "-jar", jar.toString(),
+                "--server.port=" + port,
+                "--management.server.port=" + managementPort,
+                "--banking.data-file=" + dir.resolve("data.json"),
+                "--banking.persistence.durability=SYNC",
+                "--banking.interest.enabled=false",
+                "--spring.threads.virtual.enabled=" + virtual)
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve("app.log").toFile())
+                .start();
+        String mode = virtual ? "virtual" : "platform";
+        try {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            String base = "http://127.0.0.1:" + port;
+            awaitStartup(http, base, app);
+            System.out.printf("[%s] started on port %d, %d clients, warming up for %d s%n",
+                    mode, port, clients, WARMUP.toSeconds());
+            Result result = drive(http, base, accounts, clients, measure);
+            String threads = metric(http, "http://127.0.0.1:" + managementPort, "jvm.threads.peak");
+            return String.format("%-9s %8d %10.0f %9.2f %9.2f %9.2f %9.2f %7d %8s",
+                    mode, clients, result.throughput(), result.percentile(0.5), result.percentile(0.99),
+                    result.percentile(0.999), result.percentile(1.0), result.errors, threads);
+        } finally {
+            app.destroy();
+            if (!app.waitFor(60, TimeUnit.SECONDS)) {
+                app.destroyForcibly();
+            }
+            BenchSupport.dispose(null, dir);
+        }
+    }
+
+    /**
+     * 所有客户端先运行预热时间，再运行测量时间，只记录测量期间完成的请求。
+     */
+    private static Result drive(HttpClient http, String base, int accounts, int clients, Duration measure)
+            throws Exception {
+        int users = Math.min(USERS, FixtureGenerator.customerCount(accounts));
+        // 逐个用户登录一次，填充凭据缓存，避免所有客户端同时触发 BCrypt 而被拒绝
+        for (int user = 0; user < users; user++) {
+            http.send(HttpRequest.newBuilder(URI.create(base + "/api/v1/me"))
+                    .header("Authorization", authorization(user)).build(), HttpResponse.BodyHandlers.discarding());
+        }
+        long measureStart = System.nanoTime() + WARMUP.toNanos();
+        long end = measureStart + measure.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> futures = new ArrayList<>(clients);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int user = c % users;
+                futures.add(pool.submit(() -> client(http, base, user, accounts, measureStart, end, errors)));
+            }
+            long[][] perClient = new long[clients][];
+            int total = 0;
+            for (int c = 0; c < clients; c++) {
+                perClient[c] = futures.get(c).get();
+                total += perClient[c].length;
+            }
+            long[] all = new long[total];
+            int offset = 0;
+            for (long[] latencies : perClient) {
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+                offset += latencies.length;
+            }
+            Arrays.sort(all);
+            return new Result(all, errors.get(), measure);
+        }
+    }
+
+    private static long[] client(HttpClient http, String base, int user, int accounts,
+                                 long measureStart, long end, AtomicLong errors) {
+        String authorization = authorization(user);
+        int from = FixtureGenerator.FIRST_ACCOUNT_ID + user * FixtureGenerator.ACCOUNTS_PER_CUSTOMER;
+        long[] latencies = new long[1024];
+        int count = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            int to = FixtureGenerator.FIRST_ACCOUNT_ID + random.nextInt(accounts);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/v1/transfers"))
+                    .header("Authorization", authorization)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(60))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"fromAccountId\":\"" + from + "\",\"toAccountId\":\"" + to + "\",\"amount\":0.01}"))
+                    .build();
+            long start = System.nanoTime();
+            if (start - end >= 0) {
+                return Arrays.copyOf(latencies, count);
+            }
+            boolean ok;
+            try {
+                ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Arrays.copyOf(latencies, count);
+            }
+            long done = System.nanoTime();
+            if (start - measureStart < 0 || done - end > 0) {
+                continue;
+            }
+            if (!ok) {
+                errors.incrementAndGet();
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = done - start;
+        }
+    }
+
+    private static String authorization(int user) {
+        return "Basic " + Base64.getEncoder().encodeToString(
+                (FixtureGenerator.USERNAME_PREFIX + user + ":" + FixtureGenerator.PASSWORD)
+                        .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitStartup(HttpClient http, String base, Process app) throws Exception {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            if (!app.isAlive()) {
+                throw new IllegalStateException("Application exited with status " + app.exitValue());
+            }
+            try {
+                HttpResponse<Void> response = http.send(HttpRequest.newBuilder(URI.create(base + "/login")).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // 尚未开始监听
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Application did not start within " + STARTUP_TIMEOUT);
+    }
+
+    private static String metric(HttpClient http, String management, String name) {
+        try {
+            HttpResponse<String> response = http.send(
+                    HttpRequest.newBuilder(URI.create(management + "/actuator/metrics/" + name)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher m = THREADS_PEAK.matcher(response.body());
+            return m.find() ? String.valueOf((long) Double.parseDouble(m.group(1))) : "-";
+        } catch (IOException e) {
+            return "-";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "-";
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 测量期间完成的请求延迟（纳秒，已排序）和失败数。
+     */
+    private static final class Result {
+        final long[] latencies;
+        final long errors;
+        final Duration measure;
+
+        Result(long[] latencies, long errors, Duration measure) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.measure = measure;
+        }
+
+        double throughput() {
+            return latencies.length / (measure.toNanos() / 1e9);
+        }
+
+        double percentile(double p) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.banking.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyStats
+ *
+ * 一种操作在测量期间的延迟直方图（微秒，3 位有效数字）和失败数。每个请求记录两个值：
+ * <ul>
+ *   <li>响应时间：从按到达速率计划的发出时刻到收到响应。发送端落后（在途请求达到上限）时计划时刻不变，
+ *       等待时间计入延迟，即协调遗漏（coordinated omission）修正后的值</li>
+ *   <li>服务时间：从实际发出到收到响应，不含发送端的排队，用于和响应时间对比</li>
+ * </ul>
+ * 失败（非预期状态码、连接错误或超时）同样记录延迟，并单独计数。
+ */
+final class LatencyStats {
+    private final String name;
+    private final Histogram response = new ConcurrentHistogram(3);
+    private final Histogram service = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    LatencyStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 记录一个请求。
+     * @param intended 计划发出时刻（纳秒）
+     * @param sent 实际发出时刻（纳秒）
+     * @param done 收到响应时刻（纳秒）
+     * @param status 响应状态码，连接错误或超时为 0
+     * @param expected 预期的状态码
+     */
+    void record(long intended, long sent, long done, int status, int expected) {
+        response.recordValue(micros(done - intended));
+        service.recordValue(micros(done - sent));
+        if (status == 429) {
+            rejected.increment();
+        }
+        if (status != expected) {
+            errors.increment();
+        }
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * 把另一种操作的结果合并进来，用于汇总行。
+     * @param other 另一种操作
+     */
+    void add(LatencyStats other) {
+        response.add(other.response);
+        service.add(other.service);
+        errors.add(other.errors.sum());
+        rejected.add(other.rejected.sum());
+    }
+
+    /**
+     * 测量期间完成的请求数。
+     * @return 请求数
+     */
+    long count() {
+        return response.getTotalCount();
+    }
+
+    /**
+     * 打印表头。
+     * @param out 输出
+     */
+    static void printHeader(PrintStream out) {
+        out.printf("%-9s %8s %8s %6s %6s | %9s %9s %9s %9s | %9s %9s %9s%n",
+                "operation", "count", "req/s", "errors", "429",
+                "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p50", "svc p99", "svc max");
+    }
+
+    /**
+     * 打印一行统计。
+     * @param out 输出
+     * @param seconds 测量秒数
+     */
+    void print(PrintStream out, double seconds) {
+        out.printf("%-9s %8d %8.1f %6d %6d | %9.2f %9.2f %9.2f %9.2f | %9.2f %9.2f %9.2f%n",
+                name, count(), count() / seconds, errors.sum(), rejected.sum(),
+                ms(response, 50), ms(response, 99), ms(response, 99.9), response.getMaxValue() / 1000.0,
+                ms(service, 50), ms(service, 99), service.getMaxValue() / 1000.0);
+    }
+
+    private static double ms(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * 把两个直方图的百分位分布（毫秒）写入目录，文件可用 HdrHistogram 的绘图工具查看。
+     * @param dir 输出目录
+     * @throws IOException 写入失败
+     */
+    void write(Path dir) throws IOException {
+        write(response, dir.resolve(name + ".response.hgrm"));
+        write(service, dir.resolve(name + ".service.hgrm"));
+    }
+
+    private static void write(Histogram histogram, Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.banking.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * LoadTest
+ *
+ * 在本机重现网页用户负载：用一份临时的空数据文件启动应用 jar（只监听 127.0.0.1），
+ * 通过 /register 注册 N 个合成用户并逐个登录、充值，然后按目标速率发出主页、转账、充值、取款和管理页请求的混合负载。
+ * <p>
+ * 负载是开环模型：请求按计划时刻发出（固定间隔，或 --poisson 时为指数分布间隔），不等待前一个请求完成，
+ * 应用变慢时在途请求增多而不是发送速率下降。延迟从计划时刻算起，发送端落后时的等待也计入，
+ * 即协调遗漏修正后的响应时间；同时记录从实际发出算起的服务时间作对比（见 {@link LatencyStats}）。
+ * 预热期间的请求不计入结果。每种操作的百分位分布写入输出目录的 *.hgrm 文件。
+ * <p>
+ * 应用的限流默认关闭（所有请求来自同一地址），--rate-limit=true 时保留应用配置，被拒绝的请求计入 429 一列。
+ * 用法：
+ * <pre>
+ * java -jar loadtest/target/loadtest.jar target/banking-1.0-SNAPSHOT.jar \
+ *      [--customers=50] [--rate=100] [--warmup=10] [--duration=30] [--poisson=false] \
+ *      [--mix=home:40,transfer:30,recharge:10,withdraw:10,admin:10] [--max-in-flight=2000] \
+ *      [--durability=SYNC] [--rate-limit=false] [--out=target/loadtest-results]
+ * </pre>
+ */
+public final class LoadTest {
+    private static final String PASSWORD = "loadtest";
+    private static final String ADMIN_USERNAME = "admin";
+    private static final String ADMIN_PASSWORD = "admin";
+    private static final String INITIAL_DEPOSIT = "10000.00";
+    private static final int SETUP_THREADS = 8;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * 负载中的操作及其请求成功时的状态码。
+     */
+    enum Operation {
+        HOME(200), TRANSFER(302), RECHARGE(302), WITHDRAW(302), ADMIN(200);
+
+        final int expected;
+
+        Operation(int expected) {
+            this.expected = expected;
+        }
+
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args[0].startsWith("--")) {
+            System.err.println("usage: LoadTest <app.jar> [--customers=N] [--rate=req/s] [--warmup=s] [--duration=s]"
+                    + " [--poisson=true|false] [--mix=home:40,transfer:30,...] [--max-in-flight=N]"
+                    + " [--durability=SYNC|RELAXED] [--rate-limit=true|false] [--out=dir]");
+            System.exit(2);
+        }
+        Path jar = Paths.get(args[0]).toAbsolutePath();
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value: " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        int customers = Integer.parseInt(options.getOrDefault("customers", "50"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "100"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration measure = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        boolean poisson = Boolean.parseBoolean(options.getOrDefault("poisson", "false"));
+        Map<Operation, Integer> mix = parseMix(options.getOrDefault("mix", "home:40,transfer:30,recharge:10,withdraw:10,admin:10"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+        String durability = options.getOrDefault("durability", "SYNC");
+        boolean rateLimit = Boolean.parseBoolean(options.getOrDefault("rate-limit", "false"));
+        Path out = Paths.get(options.getOrDefault("out", "target/loadtest-results"));
+        if (customers < 2 || rate <= 0 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Need at least 2 customers, a positive rate and max-in-flight");
+        }
+
+        Path dir = Files.createTempDirectory("banking-loadtest");
+        int port = freePort();
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>(List.of(java, "-jar", jar.toString(),
+                "--server.address=127.0.0.1",
+                "--server.port=" + port,
+                "--management.server.port=" + freePort(),
+                "--banking.data-file=" + dir.resolve("data.json"),
+                "--banking.persistence.durability=" + durability,
+                "--banking.interest.enabled=false"));
+        if (!rateLimit) {
+            command.add("--banking.rate-limit.enabled=false");
+        }
+        Process app = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve("app.log").toFile())
+                .start();
+        try {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            String base = "http://127.0.0.1:" + port;
+            awaitStartup(http, base, app);
+            System.out.printf("Application started on %s (data in %s)%n", base, dir);
+
+            long setupStart = System.nanoTime();
+            List<WebSession> sessions = setUp(http, base, customers);
+            WebSession admin = new WebSession(http, base, ADMIN_USERNAME, ADMIN_PASSWORD);
+            admin.login();
+            System.out.printf("Registered and logged in %d customers in %d ms%n",
+                    sessions.size(), (System.nanoTime() - setupStart) / 1_000_000);
+
+            System.out.printf("Driving %.1f req/s (%s arrivals) for %d s warmup + %d s measurement, mix %s%n",
+                    rate, poisson ? "poisson" : "fixed", warmup.toSeconds(), measure.toSeconds(), mix);
+            Map<Operation, LatencyStats> stats = drive(sessions, admin, rate, poisson, mix, maxInFlight, warmup, measure);
+            report(stats, measure, out);
+        } finally {
+            app.destroy();
+            if (!app.waitFor(60, TimeUnit.SECONDS)) {
+                app.destroyForcibly();
+            }
+            delete(dir);
+        }
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.valueOf(kv[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Empty operation mix: " + spec);
+        }
+        return mix;
+    }
+
+    /**
+     * 并行注册、登录合成用户并为每人充值一笔初始余额。注册和登录各需要一次 BCrypt，是准备阶段的主要耗时。
+     */
+    private static List<WebSession> setUp(HttpClient http, String base, int customers) throws Exception {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        List<Future<WebSession>> futures = new ArrayList<>(customers);
+        try (ExecutorService pool = Executors.newFixedThreadPool(SETUP_THREADS)) {
+            for (int i = 0; i < customers; i++) {
+                String username = "lt" + run + "-" + i;
+                futures.add(pool.submit(() -> {
+                    WebSession session = new WebSession(http, base, username, PASSWORD);
+                    session.register();
+                    session.login();
+                    session.loadAccount();
+                    if (session.recharge(INITIAL_DEPOSIT) != Operation.RECHARGE.expected) {
+                        throw new IOException("Initial deposit for " + username + " failed");
+                    }
+                    return session;
+                }));
+            }
+            List<WebSession> sessions = new ArrayList<>(customers);
+            for (Future<WebSession> future : futures) {
+                sessions.add(future.get());
+            }
+            return sessions;
+        }
+    }
+
+    /**
+     * 按计划时刻发出请求，每个请求在自己的虚拟线程中执行。在途请求达到上限时计划线程等待，
+     * 但计划时刻照常推进，等待时间计入之后请求的响应时间。
+     */
+    private static Map<Operation, LatencyStats> drive(List<WebSession> sessions, WebSession admin, double rate,
+                                                     boolean poisson, Map<Operation, Integer> mix, int maxInFlight,
+                                                     Duration warmup, Duration measure) throws InterruptedException {
+        Map<Operation, LatencyStats> stats = new EnumMap<>(Operation.class);
+        for (Operation op : mix.keySet()) {
+            stats.put(op, new LatencyStats(op.label()));
+        }
+        Operation[] ops = mix.keySet().toArray(new Operation[0]);
+        int[] cumulative = new int[ops.length];
+        int total = 0;
+        for (int i = 0; i < ops.length; i++) {
+            total += mix.get(ops[i]);
+            cumulative[i] = total;
+        }
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        long end = measureStart + measure.toNanos();
+        double offset = 0;
+        long maxLag = 0;
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                long intended = start + (long) offset;
+                if (intended - end >= 0) {
+                    break;
+                }
+                offset += poisson ? -Math.log(1 - random.nextDouble()) * intervalNanos : intervalNanos;
+                long now;
+                while ((now = System.nanoTime()) - intended < 0) {
+                    LockSupport.parkNanos(intended - now);
+                }
+                inFlight.acquire();
+                maxLag = Math.max(maxLag, System.nanoTime() - intended);
+                int pick = random.nextInt(total);
+                int index = 0;
+                while (cumulative[index] <= pick) {
+                    index++;
+                }
+                Operation op = ops[index];
+                WebSession session = sessions.get(random.nextInt(sessions.size()));
+                String target = sessions.get(random.nextInt(sessions.size())).accountId();
+                LatencyStats opStats = intended - measureStart >= 0 ? stats.get(op) : null;
+                pool.execute(() -> {
+                    try {
+                        long sent = System.nanoTime();
+                        int status = execute(op, op == Operation.ADMIN ? admin : session, target);
+                        if (opStats != null) {
+                            opStats.record(intended, sent, System.nanoTime(), status, op.expected);
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            if (!inFlight.tryAcquire(maxInFlight, DRAIN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                System.err.println("Some requests did not complete within " + DRAIN_TIMEOUT);
+            }
+            pool.shutdownNow();
+        }
+        System.out.printf("Maximum dispatch lag behind schedule: %.2f ms%n", maxLag / 1e6);
+        return stats;
+    }
+
+    private static int execute(Operation op, WebSession session, String target) {
+        try {
+            switch (op) {
+                case HOME:
+                    return session.home();
+                case TRANSFER:
+                    return session.transfer(target, "0.01");
+                case RECHARGE:
+                    return session.recharge("1.00");
+                case WITHDRAW:
+                    return session.withdraw("0.01");
+                case ADMIN:
+                    return session.admin();
+                default:
+                    throw new IllegalStateException("Unknown operation " + op);
+            }
+        } catch (IOException e) {
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private static void report(Map<Operation, LatencyStats> stats, Duration measure, Path out) throws IOException {
+        double seconds = measure.toNanos() / 1e9;
+        LatencyStats all = new LatencyStats("all");
+        System.out.println();
+        LatencyStats.printHeader(System.out);
+        Files.createDirectories(out);
+        for (LatencyStats s : stats.values()) {
+            s.print(System.out, seconds);
+            s.write(out);
+            all.add(s);
+        }
+        all.print(System.out, seconds);
+        all.write(out);
+        System.out.printf("%nResponse time is measured from the scheduled send time (corrected for coordinated omission);"
+                + " svc columns from the actual send time. Percentile distributions written to %s%n", out.toAbsolutePath());
+    }
+
+    private static void awaitStartup(HttpClient http, String base, Process app) throws Exception {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() - deadline < 0) {
+            if (!app.isAlive()) {
+                throw new IllegalStateException("Application exited with status " + app.exitValue());
+            }
+            try {
+                HttpResponse<Void> response = http.send(HttpRequest.newBuilder(URI.create(base + "/login")).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // 尚未开始监听
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Application did not start within " + STARTUP_TIMEOUT);
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
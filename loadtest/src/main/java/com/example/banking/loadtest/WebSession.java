@@ -0,0 +1,176 @@
+package com.example.banking.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * WebSession
+ *
+ * 一个合成用户的网页会话：像浏览器一样提交注册和登录表单，保存会话 Cookie，之后的请求都带上它。
+ * 只访问网页路径（/register、/login、/、/user/**、/admin），与真实用户经过相同的控制器、模板和安全过滤器。
+ * 不跟随重定向：表单提交成功时应用返回 302，重定向到 /login 说明会话已失效，按失败处理。
+ */
+final class WebSession {
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final Pattern SESSION_COOKIE = Pattern.compile("JSESSIONID=([^;]+)");
+    private static final Pattern ACCOUNT_ID = Pattern.compile("ID: (\\d+)");
+
+    private final HttpClient http;
+    private final String base;
+    private final String username;
+    private final String password;
+    private String cookie;
+    private String accountId;
+
+    /**
+     * 创建尚未登录的会话。
+     * @param http 共用的 HTTP 客户端，不应自动跟随重定向
+     * @param base 应用地址，如 http://127.0.0.1:8080
+     * @param username 用户名
+     * @param password 密码
+     */
+    WebSession(HttpClient http, String base, String username, String password) {
+        this.http = http;
+        this.base = base;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * 通过注册页面创建用户，应用会为新用户在默认银行开一个账户，成功后重定向到登录页。
+     * @throws IOException 请求失败或注册被拒绝
+     * @throws InterruptedException 等待响应时被中断
+     */
+    void register() throws IOException, InterruptedException {
+        HttpResponse<Void> response = post("/register", Map.of("name", username, "username", username, "password", password));
+        if (response.statusCode() != 302) {
+            throw new IOException("Registration of " + username + " failed with status " + response.statusCode());
+        }
+    }
+
+    /**
+     * 通过登录页面登录并保存会话 Cookie。
+     * @throws IOException 请求失败或登录被拒绝
+     * @throws InterruptedException 等待响应时被中断
+     */
+    void login() throws IOException, InterruptedException {
+        HttpResponse<Void> response = post("/login", Map.of("username", username, "password", password));
+        Matcher m = SESSION_COOKIE.matcher(String.join(";", response.headers().allValues("set-cookie")));
+        if (!redirected(response) || !m.find()) {
+            throw new IOException("Login of " + username + " failed with status " + response.statusCode());
+        }
+        cookie = "JSESSIONID=" + m.group(1);
+    }
+
+    /**
+     * 从主页读取本用户的第一个账户ID。
+     * @throws IOException 请求失败或主页上没有账户
+     * @throws InterruptedException 等待响应时被中断
+     */
+    void loadAccount() throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(get("/"), HttpResponse.BodyHandlers.ofString());
+        Matcher m = ACCOUNT_ID.matcher(response.body());
+        if (response.statusCode() != 200 || !m.find()) {
+            throw new IOException("No account on home page of " + username + " (status " + response.statusCode() + ")");
+        }
+        accountId = m.group(1);
+    }
+
+    /**
+     * 本用户的账户ID，{@link #loadAccount()} 之后可用。
+     * @return 账户ID
+     */
+    String accountId() {
+        return accountId;
+    }
+
+    /**
+     * 打开主页。
+     * @return 响应状态码，重定向到登录页时为 401
+     */
+    int home() throws IOException, InterruptedException {
+        return status(http.send(get("/"), HttpResponse.BodyHandlers.discarding()));
+    }
+
+    /**
+     * 打开管理页，须以管理员身份登录。
+     * @return 响应状态码，重定向到登录页时为 401
+     */
+    int admin() throws IOException, InterruptedException {
+        return status(http.send(get("/admin"), HttpResponse.BodyHandlers.discarding()));
+    }
+
+    /**
+     * 提交转账表单。
+     * @param toAccountId 转入账户ID
+     * @param amount 金额（元）
+     * @return 响应状态码，重定向到登录页时为 401
+     */
+    int transfer(String toAccountId, String amount) throws IOException, InterruptedException {
+        return status(post("/user/transfer", Map.of("fromAccountId", accountId, "toAccountId", toAccountId, "amount", amount)));
+    }
+
+    /**
+     * 提交充值表单。
+     * @param amount 金额（元）
+     * @return 响应状态码，重定向到登录页时为 401
+     */
+    int recharge(String amount) throws IOException, InterruptedException {
+        return status(post("/user/recharge", Map.of("accountId", accountId, "amount", amount)));
+    }
+
+    /**
+     * 提交取款表单。
+     * @param amount 金额（元）
+     * @return 响应状态码，重定向到登录页时为 401
+     */
+    int withdraw(String amount) throws IOException, InterruptedException {
+        return status(post("/user/withdraw", Map.of("accountId", accountId, "amount", amount)));
+    }
+
+    private HttpRequest get(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + path)).timeout(TIMEOUT).GET();
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<Void> post(String path, Map<String, String> form) throws IOException, InterruptedException {
+        StringJoiner body = new StringJoiner("&");
+        form.forEach((k, v) -> body.add(URLEncoder.encode(k, StandardCharsets.UTF_8) + "=" + URLEncoder.encode(v, StandardCharsets.UTF_8)));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        return http.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    /**
+     * 表单提交成功时应用重定向到主页或管理页，重定向到登录页说明未登录。
+     */
+    private static boolean redirected(HttpResponse<?> response) {
+        return response.statusCode() == 302
+                && !response.headers().firstValue("location").orElse("").contains("/login");
+    }
+
+    private static int status(HttpResponse<?> response) {
+        if (response.statusCode() == 302 && !redirected(response)) {
+            return 401;
+        }
+        return response.statusCode();
+    }
+}
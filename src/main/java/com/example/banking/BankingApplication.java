@@ -2,13 +2,15 @@ package com.example.banking;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * BankingApplication
  *
- * Spring Boot 应用程序入口类。
+ * Spring Boot 应用程序入口类。启用定时任务（每日计息）。
  */
 @SpringBootApplication
+@EnableScheduling
 public class BankingApplication {
     /**
      * 应用程序主方法，启动Spring Boot应用。
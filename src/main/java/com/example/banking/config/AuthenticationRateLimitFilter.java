@@ -0,0 +1,65 @@
+package com.example.banking.config;
+
+import com.example.banking.service.BankingMetrics;
+import com.example.banking.service.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * AuthenticationRateLimitFilter
+ *
+ * REST API 过滤器链中位于 HTTP Basic 认证之前的限流：带 Basic 凭据的请求先按来源地址消耗一个令牌，
+ * 令牌桶为空时直接返回 429 和 Retry-After，不执行 BCrypt 校验。认证成功（响应不是 401）时退回令牌，
+ * 因此只有认证失败的请求计数，正常调用不受影响。
+ * 不是 Spring Bean，避免被注册为全局的 Servlet 过滤器，由 {@link SecurityConfig} 加入 API 过滤器链。
+ */
+public class AuthenticationRateLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationRateLimitFilter.class);
+
+    private final RateLimiter failures;
+
+    /**
+     * 按配置创建限流器并注册指标。
+     * @param properties 限流配置
+     * @param meterRegistry 指标注册表
+     */
+    public AuthenticationRateLimitFilter(BankingProperties.RateLimit properties, MeterRegistry meterRegistry) {
+        BankingProperties.Limit limit = properties.getAuthentication();
+        this.failures = new RateLimiter("authentication", limit.getRatePerSecond(), limit.getBurst(),
+                properties.getMaxKeys());
+        BankingMetrics.bindRateLimiter(meterRegistry, failures);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String address = request.getRemoteAddr();
+        long wait = failures.acquire(address);
+        if (wait > 0) {
+            logger.debug("event=authentication_rate_limited path={} address={}", request.getRequestURI(), address);
+            RateLimitInterceptor.reject(response, wait);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (response.getStatus() != HttpServletResponse.SC_UNAUTHORIZED) {
+                failures.refund(address);
+            }
+        }
+    }
+}
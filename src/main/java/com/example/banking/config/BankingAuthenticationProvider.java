@@ -0,0 +1,54 @@
+package com.example.banking.config;
+
+import com.example.banking.model.Customer;
+import com.example.banking.service.AuthenticationBusyException;
+import com.example.banking.service.BankingService;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * BankingAuthenticationProvider
+ *
+ * 用 {@link BankingService#authenticate(String, String)} 校验用户名和密码的认证提供者，
+ * 供 REST API 的 HTTP Basic 认证使用，与网页登录共用凭据缓存和 BCrypt 线程池。
+ */
+@Component
+public class BankingAuthenticationProvider implements AuthenticationProvider {
+    private final BankingService bankingService;
+
+    /**
+     * 构造函数。
+     * @param bankingService 银行业务服务
+     */
+    public BankingAuthenticationProvider(BankingService bankingService) {
+        this.bankingService = bankingService;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (username == null || credentials == null) {
+            throw new BadCredentialsException("Missing username or password");
+        }
+        Customer customer;
+        try {
+            customer = bankingService.authenticate(username, credentials.toString());
+        } catch (AuthenticationBusyException e) {
+            throw new AuthenticationServiceException(e.getMessage(), e);
+        }
+        if (customer == null) {
+            throw new BadCredentialsException("Invalid username or password");
+        }
+        return new UsernamePasswordAuthenticationToken(username, null, customer.getAuthorities());
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
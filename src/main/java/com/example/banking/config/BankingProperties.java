@@ -0,0 +1,389 @@
+package com.example.banking.config;
+
+import com.example.banking.service.DataJournal;
+import com.example.banking.service.SnapshotFormat;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * BankingProperties
+ *
+ * 银行系统的可配置参数，对应 application.properties 中以 banking 开头的配置项。
+ */
+@Component
+@ConfigurationProperties(prefix = "banking")
+public class BankingProperties {
+    private String dataFile = "data.json";
+    private final Persistence persistence = new Persistence();
+    private final Auth auth = new Auth();
+    private final Interest interest = new Interest();
+    private final Dashboard dashboard = new Dashboard();
+    private final Idempotency idempotency = new Idempotency();
+    private final RateLimit rateLimit = new RateLimit();
+
+    /**
+     * 获取数据快照文件路径，日志文件与其放在同一目录下。
+     * @return 数据文件路径
+     */
+    public String getDataFile() { return dataFile; }
+
+    /**
+     * 设置数据快照文件路径。
+     * @param dataFile 数据文件路径
+     */
+    public void setDataFile(String dataFile) { this.dataFile = dataFile; }
+
+    /**
+     * 获取持久化相关配置。
+     * @return 持久化配置
+     */
+    public Persistence getPersistence() { return persistence; }
+
+    /**
+     * 获取登录校验相关配置。
+     * @return 登录校验配置
+     */
+    public Auth getAuth() { return auth; }
+
+    /**
+     * 获取计息配置。
+     * @return 计息配置
+     */
+    public Interest getInterest() { return interest; }
+
+    /**
+     * 获取主页缓存配置。
+     * @return 主页缓存配置
+     */
+    public Dashboard getDashboard() { return dashboard; }
+
+    /**
+     * 获取幂等键配置。
+     * @return 幂等键配置
+     */
+    public Idempotency getIdempotency() { return idempotency; }
+
+    /**
+     * 获取限流配置。
+     * @return 限流配置
+     */
+    public RateLimit getRateLimit() { return rateLimit; }
+
+    /**
+     * 持久化相关配置（banking.persistence.*）。
+     */
+    public static class Persistence {
+        private int checkpointInterval = 1000;
+        private int maxBatchSize = 1024;
+        private DataJournal.Durability durability = DataJournal.Durability.SYNC;
+        private SnapshotFormat snapshotFormat = SnapshotFormat.JSON;
+
+        /**
+         * 获取触发后台快照的日志记录条数。
+         * @return 记录条数
+         */
+        public int getCheckpointInterval() { return checkpointInterval; }
+
+        /**
+         * 设置触发后台快照的日志记录条数。
+         * @param checkpointInterval 记录条数
+         */
+        public void setCheckpointInterval(int checkpointInterval) { this.checkpointInterval = checkpointInterval; }
+
+        /**
+         * 获取组提交时每批最多写入的记录条数。
+         * @return 记录条数
+         */
+        public int getMaxBatchSize() { return maxBatchSize; }
+
+        /**
+         * 设置组提交时每批最多写入的记录条数。
+         * @param maxBatchSize 记录条数
+         */
+        public void setMaxBatchSize(int maxBatchSize) { this.maxBatchSize = maxBatchSize; }
+
+        /**
+         * 获取持久化模式：SYNC 等待所在批次落盘，RELAXED 不等待。
+         * @return 持久化模式
+         */
+        public DataJournal.Durability getDurability() { return durability; }
+
+        /**
+         * 设置持久化模式。
+         * @param durability 持久化模式
+         */
+        public void setDurability(DataJournal.Durability durability) { this.durability = durability; }
+
+        /**
+         * 获取快照格式：JSON 为可读的 data.json，BINARY 为更小、加载更快的 data.snap。
+         * @return 快照格式
+         */
+        public SnapshotFormat getSnapshotFormat() { return snapshotFormat; }
+
+        /**
+         * 设置快照格式，切换后下一次检查点写出新格式并删除旧格式的快照。
+         * @param snapshotFormat 快照格式
+         */
+        public void setSnapshotFormat(SnapshotFormat snapshotFormat) { this.snapshotFormat = snapshotFormat; }
+    }
+
+    /**
+     * 登录校验相关配置（banking.auth.*）。
+     */
+    public static class Auth {
+        private int cacheSize = 10000;
+        private Duration cacheTtl = Duration.ofMinutes(10);
+        private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        private int queueCapacity = 64;
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * 获取凭据缓存的最大用户数，0 表示不缓存。
+         * @return 用户数
+         */
+        public int getCacheSize() { return cacheSize; }
+
+        /**
+         * 设置凭据缓存的最大用户数。
+         * @param cacheSize 用户数
+         */
+        public void setCacheSize(int cacheSize) { this.cacheSize = cacheSize; }
+
+        /**
+         * 获取凭据缓存的有效期。
+         * @return 有效期
+         */
+        public Duration getCacheTtl() { return cacheTtl; }
+
+        /**
+         * 设置凭据缓存的有效期。
+         * @param cacheTtl 有效期
+         */
+        public void setCacheTtl(Duration cacheTtl) { this.cacheTtl = cacheTtl; }
+
+        /**
+         * 获取 BCrypt 校验线程数，默认为 CPU 核数的一半。
+         * @return 线程数
+         */
+        public int getThreads() { return threads; }
+
+        /**
+         * 设置 BCrypt 校验线程数。
+         * @param threads 线程数
+         */
+        public void setThreads(int threads) { this.threads = threads; }
+
+        /**
+         * 获取等待 BCrypt 校验的最大请求数，超出时登录请求立即返回繁忙。
+         * @return 请求数
+         */
+        public int getQueueCapacity() { return queueCapacity; }
+
+        /**
+         * 设置等待 BCrypt 校验的最大请求数。
+         * @param queueCapacity 请求数
+         */
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        /**
+         * 获取等待校验结果的最长时间。
+         * @return 超时时间
+         */
+        public Duration getTimeout() { return timeout; }
+
+        /**
+         * 设置等待校验结果的最长时间。
+         * @param timeout 超时时间
+         */
+        public void setTimeout(Duration timeout) { this.timeout = timeout; }
+    }
+
+    /**
+     * 计息相关配置（banking.interest.*）。执行时间由 banking.interest.cron 配置，见 InterestScheduler。
+     */
+    public static class Interest {
+        private boolean enabled = true;
+        private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        private int chunkSize = 4096;
+
+        /**
+         * 是否启用定时计息。
+         * @return 启用返回 true
+         */
+        public boolean isEnabled() { return enabled; }
+
+        /**
+         * 设置是否启用定时计息。
+         * @param enabled 是否启用
+         */
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        /**
+         * 获取计息并行线程数，默认为 CPU 核数的一半，为在线请求保留 CPU。
+         * @return 线程数
+         */
+        public int getParallelism() { return parallelism; }
+
+        /**
+         * 设置计息并行线程数。
+         * @param parallelism 线程数
+         */
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+
+        /**
+         * 获取每个并行任务处理的最大账户数。
+         * @return 账户数
+         */
+        public int getChunkSize() { return chunkSize; }
+
+        /**
+         * 设置每个并行任务处理的最大账户数。
+         * @param chunkSize 账户数
+         */
+        public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+    }
+
+    /**
+     * 主页缓存配置（banking.dashboard.*）。
+     */
+    public static class Dashboard {
+        private int cacheSize = 10000;
+
+        /**
+         * 获取最多缓存主页快照的客户数，0 表示不缓存。
+         * @return 客户数
+         */
+        public int getCacheSize() { return cacheSize; }
+
+        /**
+         * 设置最多缓存主页快照的客户数。
+         * @param cacheSize 客户数
+         */
+        public void setCacheSize(int cacheSize) { this.cacheSize = cacheSize; }
+    }
+
+    /**
+     * 转账、充值、取款幂等键配置（banking.idempotency.*）。
+     */
+    public static class Idempotency {
+        private int maxKeys = 100000;
+        private Duration ttl = Duration.ofHours(24);
+
+        /**
+         * 获取每个账户分片最多保留的幂等键数，超出时淘汰最早的键。
+         * @return 键数
+         */
+        public int getMaxKeys() { return maxKeys; }
+
+        /**
+         * 设置每个账户分片最多保留的幂等键数。
+         * @param maxKeys 键数
+         */
+        public void setMaxKeys(int maxKeys) { this.maxKeys = maxKeys; }
+
+        /**
+         * 获取幂等键的保留时间，超过后同一键的请求按新请求处理。
+         * @return 保留时间
+         */
+        public Duration getTtl() { return ttl; }
+
+        /**
+         * 设置幂等键的保留时间。
+         * @param ttl 保留时间
+         */
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+    }
+
+    /**
+     * 限流配置（banking.rate-limit.*）。网页和 REST API 的资金操作按登录用户和来源地址分别限流，登录只按来源地址限流，
+     * REST API 的 HTTP Basic 认证失败按来源地址限流。
+     */
+    public static class RateLimit {
+        private boolean enabled = true;
+        private int maxKeys = 100000;
+        private final Limit customer = new Limit(10, 20);
+        private final Limit address = new Limit(20, 40);
+        private final Limit authentication = new Limit(1, 10);
+
+        /**
+         * 是否启用限流。
+         * @return 启用返回 true
+         */
+        public boolean isEnabled() { return enabled; }
+
+        /**
+         * 设置是否启用限流。
+         * @param enabled 是否启用
+         */
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        /**
+         * 获取每种限流最多跟踪的用户或地址数。
+         * @return 键数
+         */
+        public int getMaxKeys() { return maxKeys; }
+
+        /**
+         * 设置每种限流最多跟踪的用户或地址数。
+         * @param maxKeys 键数
+         */
+        public void setMaxKeys(int maxKeys) { this.maxKeys = maxKeys; }
+
+        /**
+         * 获取按登录用户的限流。
+         * @return 限流参数
+         */
+        public Limit getCustomer() { return customer; }
+
+        /**
+         * 获取按来源地址的限流。
+         * @return 限流参数
+         */
+        public Limit getAddress() { return address; }
+
+        /**
+         * 获取 REST API 按来源地址的认证失败限流，认证成功的请求不消耗令牌。
+         * @return 限流参数
+         */
+        public Limit getAuthentication() { return authentication; }
+    }
+
+    /**
+     * 令牌桶参数（banking.rate-limit.customer.*、banking.rate-limit.address.* 和 banking.rate-limit.authentication.*）。
+     */
+    public static class Limit {
+        private double ratePerSecond;
+        private int burst;
+
+        Limit(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+
+        /**
+         * 获取每秒允许的请求数。
+         * @return 请求数
+         */
+        public double getRatePerSecond() { return ratePerSecond; }
+
+        /**
+         * 设置每秒允许的请求数。
+         * @param ratePerSecond 请求数
+         */
+        public void setRatePerSecond(double ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+
+        /**
+         * 获取允许连续发出的请求数。
+         * @return 请求数
+         */
+        public int getBurst() { return burst; }
+
+        /**
+         * 设置允许连续发出的请求数。
+         * @param burst 请求数
+         */
+        public void setBurst(int burst) { this.burst = burst; }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.banking.config;
+
+import com.example.banking.service.BankingMetrics;
+import com.example.banking.service.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimitInterceptor
+ *
+ * 在控制器之前限流变更请求（GET、HEAD、OPTIONS 以外的方法）：每个请求按来源地址消耗一个令牌，已登录时再按用户名消耗一个令牌，
+ * 任一令牌桶为空时返回 429 和 Retry-After（秒），不进入控制器，因此不会触发日志写入或 BCrypt 校验。
+ * 来源地址取连接的对端地址，不信任 X-Forwarded-For；部署在反向代理之后时应在代理上限流。
+ * 拦截的路径见 {@link WebConfig}。
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    private final RateLimiter customers;
+    private final RateLimiter addresses;
+
+    /**
+     * 按配置创建两个限流器并注册指标。
+     * @param properties 限流配置
+     * @param meterRegistry 指标注册表
+     */
+    public RateLimitInterceptor(BankingProperties.RateLimit properties, MeterRegistry meterRegistry) {
+        BankingProperties.Limit customer = properties.getCustomer();
+        BankingProperties.Limit address = properties.getAddress();
+        this.customers = new RateLimiter("customer", customer.getRatePerSecond(), customer.getBurst(),
+                properties.getMaxKeys());
+        this.addresses = new RateLimiter("address", address.getRatePerSecond(), address.getBurst(),
+                properties.getMaxKeys());
+        BankingMetrics.bindRateLimiter(meterRegistry, customers);
+        BankingMetrics.bindRateLimiter(meterRegistry, addresses);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!isMutation(request.getMethod())) {
+            return true;
+        }
+        long wait = addresses.acquire(request.getRemoteAddr());
+        Principal principal = request.getUserPrincipal();
+        if (wait == 0 && principal != null) {
+            wait = customers.acquire(principal.getName());
+        }
+        if (wait == 0) {
+            return true;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("event=rate_limited path={} address={} user={}", request.getRequestURI(),
+                    request.getRemoteAddr(), principal == null ? null : principal.getName());
+        }
+        reject(response, wait);
+        return false;
+    }
+
+    private static boolean isMutation(String method) {
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+
+    /**
+     * 返回 429，Retry-After 为向上取整的等待秒数。
+     * @param response 响应
+     * @param wait 下一个令牌可用前需要等待的纳秒数
+     * @throws IOException 写入响应失败
+     */
+    static void reject(HttpServletResponse response, long wait) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999))));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "请求过于频繁，请稍后再试");
+    }
+}
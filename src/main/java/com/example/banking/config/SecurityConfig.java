@@ -1,59 +1,124 @@
 package com.example.banking.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.expression.WebExpressionAuthorizationManager;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 
 /**
  * SecurityConfig
  *
  * Spring Security 配置类，定义了各路径的访问权限和登录、登出行为。
+ * /api/** 使用单独的过滤器链：支持 HTTP Basic（由 {@link BankingAuthenticationProvider} 校验），
+ * 也接受网页登录后的会话；未认证时返回 401 而不是重定向到登录页，且不为 Basic 请求创建会话。
+ * 启用限流时，认证失败过多的来源地址在 BCrypt 校验之前被 {@link AuthenticationRateLimitFilter} 拒绝。
+ * Actuator 端点使用单独的过滤器链，只接受本机请求。
+ * 网页登录由 WebController 自行校验密码，登录成功后须通过 {@link #securityContextRepository()} 显式保存到会话。
  */
 @Configuration
 @EnableWebSecurity
-public class SecurityConfig extends WebSecurityConfigurerAdapter {
+public class SecurityConfig {
+
+    /**
+     * 会话中的安全上下文存储，网页登录和各过滤器链共用。
+     *
+     * @return 基于 HttpSession 的存储
+     */
+    @Bean
+    public SecurityContextRepository securityContextRepository() {
+        return new HttpSessionSecurityContextRepository();
+    }
+
+    /**
+     * Actuator 端点的安全配置：只允许本机访问，无需登录，供本地 Prometheus 抓取。
+     * 管理端口默认也只监听 127.0.0.1（见 management.server.address）。
+     *
+     * @param http HttpSecurity对象
+     * @return 过滤器链
+     * @throws Exception 配置异常
+     */
+    @Bean
+    @Order(0)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+        return http
+                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                .authorizeHttpRequests(auth -> auth
+                        .anyRequest().access(new WebExpressionAuthorizationManager(
+                                "hasIpAddress('127.0.0.1') or hasIpAddress('::1')")))
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .csrf(csrf -> csrf.disable())
+                .build();
+    }
+
     /**
-     * 配置静态资源的访问权限。
+     * REST API 的安全配置，优先于网页配置匹配 /api/** 路径。
      *
-     * @param web WebSecurity对象
+     * @param http HttpSecurity对象
+     * @param properties 系统配置，用于认证失败限流
+     * @param meterRegistry 指标注册表
+     * @return 过滤器链
      * @throws Exception 配置异常
      */
-    @Override
-    public void configure(WebSecurity web) throws Exception {
-        web.ignoring().antMatchers(
-            "/css/**",
-            "/js/**",
-            "/images/**",
-            "/favicon.ico"
-        );
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http, BankingProperties properties,
+                                                      MeterRegistry meterRegistry) throws Exception {
+        if (properties.getRateLimit().isEnabled()) {
+            http.addFilterBefore(new AuthenticationRateLimitFilter(properties.getRateLimit(), meterRegistry),
+                    BasicAuthenticationFilter.class);
+        }
+        return http
+                .securityMatcher("/api/**")
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/api/v1/admin/**").hasRole("ADMIN")
+                        .anyRequest().authenticated())
+                .httpBasic(basic -> basic
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .securityContext(context -> context.securityContextRepository(securityContextRepository()))
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.NEVER))
+                .csrf(csrf -> csrf.disable())
+                .build();
     }
 
     /**
-     * 配置HTTP安全，包括路径权限、登录、登出等。
+     * 配置HTTP安全，包括静态资源和各路径的权限、登录、登出等。
      *
      * @param http HttpSecurity对象
+     * @return 过滤器链
      * @throws Exception 配置异常
      */
-    @Override
-    protected void configure(HttpSecurity http) throws Exception {
-        http
-                .authorizeRequests()
-                .antMatchers("/register", "/login", "/").permitAll()
-                .antMatchers("/admin/**").hasRole("ADMIN")
-                .anyRequest().authenticated()
-                .and()
-                .formLogin()
-                .loginPage("/login")
-                .loginProcessingUrl("/perform_login_by_spring_security_unused") // 实际未用
-                .permitAll()
-                .and()
-                .logout()
-                .logoutUrl("/logout")
-                .logoutSuccessUrl("/login")
-                .permitAll()
-                .and()
-                .csrf().disable();
+    @Bean
+    @Order(2)
+    public SecurityFilterChain webSecurityFilterChain(HttpSecurity http) throws Exception {
+        return http
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/css/**", "/js/**", "/images/**", "/favicon.ico").permitAll()
+                        .requestMatchers("/register", "/login", "/", "/error").permitAll()
+                        .requestMatchers("/admin/**").hasRole("ADMIN")
+                        .anyRequest().authenticated())
+                .formLogin(form -> form
+                        .loginPage("/login")
+                        .loginProcessingUrl("/perform_login_by_spring_security_unused") // 实际未用
+                        .permitAll())
+                .logout(logout -> logout
+                        .logoutUrl("/logout")
+                        .logoutSuccessUrl("/login")
+                        .permitAll())
+                .securityContext(context -> context.securityContextRepository(securityContextRepository()))
+                .csrf(csrf -> csrf.disable())
+                .build();
     }
-}
\ No newline at end of file
+}
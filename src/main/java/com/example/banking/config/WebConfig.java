@@ -0,0 +1,37 @@
+package com.example.banking.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * WebConfig
+ *
+ * Spring MVC 配置：banking.rate-limit.enabled 为 true 时，在 UserController（/user/**）、
+ * WebController 的登录提交（/login）和 REST API（/api/**）之前加入 {@link RateLimitInterceptor}。
+ * 网页和 API 共用同一组限流器，同一用户或地址通过两种入口发出的请求合并计数。
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final BankingProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 构造函数。
+     * @param properties 系统配置
+     * @param meterRegistry 指标注册表
+     */
+    public WebConfig(BankingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (properties.getRateLimit().isEnabled()) {
+            registry.addInterceptor(new RateLimitInterceptor(properties.getRateLimit(), meterRegistry))
+                    .addPathPatterns("/user/**", "/login", "/api/**");
+        }
+    }
+}
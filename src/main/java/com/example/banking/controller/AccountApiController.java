@@ -0,0 +1,319 @@
+package com.example.banking.controller;
+/*
+ * AccountApiController.java
+ * 面向程序客户端的 JSON 接口（/api/v1），提供当前用户的账户查询、对账单、开户、转账、充值和取款。
+ * 与网页控制器共用 BankingService，用状态码表示结果，不重定向、不渲染页面。
+ * 转账、充值和取款接受 Idempotency-Key 请求头，同一用户以同一键重试时返回首次结果而不重复执行。
+*/
+import com.example.banking.model.Account;
+import com.example.banking.model.BatchTransferRequest;
+import com.example.banking.model.BatchTransferResult;
+import com.example.banking.model.Customer;
+import com.example.banking.model.LedgerEntry;
+import com.example.banking.model.Money;
+import com.example.banking.model.TransferLeg;
+import com.example.banking.service.BankingService;
+import com.example.banking.service.IdempotencyKeyReuseException;
+import com.example.banking.service.IdempotencyTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/v1")
+public class AccountApiController {
+    private static final Logger logger = LoggerFactory.getLogger(AccountApiController.class);
+    private static final int MAX_BATCH_LEGS = 100_000;
+    private static final int MAX_STATEMENT_ENTRIES = 500;
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    @Autowired
+    private BankingService bankingService;
+
+    /**
+     * 金额请求体：{"amount": 12.34}。
+     */
+    public static class AmountRequest {
+        private BigDecimal amount;
+
+        public BigDecimal getAmount() { return amount; }
+
+        public void setAmount(BigDecimal amount) { this.amount = amount; }
+    }
+
+    /**
+     * 开户请求体：{"bankId": "..."}。
+     */
+    public static class CreateAccountRequest {
+        private String bankId;
+
+        public String getBankId() { return bankId; }
+
+        public void setBankId(String bankId) { this.bankId = bankId; }
+    }
+
+    /**
+     * 获取当前用户信息。
+     * @param authentication 当前认证信息
+     * @return 客户公开信息
+     */
+    @GetMapping("/me")
+    public ResponseEntity<Object> me(Authentication authentication) {
+        Customer customer = currentCustomer(authentication);
+        if (customer == null) {
+            return ApiResponses.error(HttpStatus.UNAUTHORIZED, "UNKNOWN_USER");
+        }
+        return ResponseEntity.ok(ApiResponses.customer(customer));
+    }
+
+    /**
+     * 获取当前用户的全部账户。
+     * @param authentication 当前认证信息
+     * @return 账户列表
+     */
+    @GetMapping("/accounts")
+    public ResponseEntity<Object> accounts(Authentication authentication) {
+        Customer customer = currentCustomer(authentication);
+        if (customer == null) {
+            return ApiResponses.error(HttpStatus.UNAUTHORIZED, "UNKNOWN_USER");
+        }
+        return ResponseEntity.ok(bankingService.getAccountsByCustomerId(customer.getId()));
+    }
+
+    /**
+     * 获取当前用户的一个账户。
+     * @param accountId 账户ID
+     * @param authentication 当前认证信息
+     * @return 账户；不存在或不属于当前用户返回 404
+     */
+    @GetMapping("/accounts/{accountId}")
+    public ResponseEntity<Object> account(@PathVariable String accountId, Authentication authentication) {
+        Customer customer = currentCustomer(authentication);
+        if (customer == null) {
+            return ApiResponses.error(HttpStatus.UNAUTHORIZED, "UNKNOWN_USER");
+        }
+        if (!bankingService.ownsAccounts(customer.getId(), List.of(accountId))) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+        return ResponseEntity.ok(bankingService.getAccountById(accountId));
+    }
+
+    /**
+     * 获取当前用户一个账户的对账单，按时间顺序返回 before 之前最近的 limit 条流水。
+     * 结果中的 nextBefore 用作下一次请求的 before 参数以获取更早的流水，没有更早的流水时为 null。
+     * @param accountId 账户ID
+     * @param before 上一页最早一条的流水号，0 表示从最新流水开始
+     * @param limit 最多返回的条数（1-500）
+     * @param authentication 当前认证信息
+     * @return 对账单；账户不存在或不属于当前用户返回 404
+     */
+    @GetMapping("/accounts/{accountId}/statement")
+    public ResponseEntity<Object> statement(@PathVariable String accountId,
+                                            @RequestParam(defaultValue = "0") long before,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            Authentication authentication) {
+        Customer customer = currentCustomer(authentication);
+        if (customer == null) {
+            return ApiResponses.error(HttpStatus.UNAUTHORIZED, "UNKNOWN_USER");
+        }
+        if (!bankingService.ownsAccounts(customer.getId(), List.of(accountId))) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+        if (limit < 1 || limit > MAX_STATEMENT_ENTRIES) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_LIMIT");
+        }
+        List<LedgerEntry> entries = bankingService.getStatement(accountId, before, limit);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("accountId", accountId);
+        body.put("entries", entries);
+        body.put("nextBefore", entries.size() == limit ? entries.get(0).getSeq() : null);
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * 为当前用户在指定银行开户。
+     * @param request 开户请求
+     * @param authentication 当前认证信息
+     * @return 新账户，状态码 201；银行不存在返回 404
+     */
+    @PostMapping("/accounts")
+    public ResponseEntity<Object> createAccount(@RequestBody CreateAccountRequest request, Authentication authentication) {
+        Customer customer = currentCustomer(authentication);
+        if (customer == null) {
+            return ApiResponses.error(HttpStatus.UNAUTHORIZED, "UNKNOWN_USER");
+        }
+        Account account = bankingService.createAccount(customer, request.getBankId());
+        if (account == null) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "BANK_NOT_FOUND");
+        }
+        logger.info("API: created account {} for customer {}", account.getId(), customer.getId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(account);
+    }
+
+    /**
+     * 从当前用户的账户转账。
+     * @param leg 转账请求：fromAccountId、toAccountId、amount
+     * @param idempotencyKey 幂等键，可省略
+     * @param authentication 当前认证信息
+     * @return 转账后的转出账户；转出账户不属于当前用户返回 403，
+     *         转入账户不存在返回 404，金额或幂等键无效返回 400，余额不足、转入账户余额将溢出或幂等键已用于其他请求返回 422，
+     *         跨银行提交失败（余额不变，可用同一幂等键重试）返回 503
+     */
+    @PostMapping("/transfers")
+    public ResponseEntity<Object> transfer(@RequestBody TransferLeg leg,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                           Authentication authentication) {
+        Customer customer = currentCustomer(authentication);
+        if (customer == null) {
+            return ApiResponses.error(HttpStatus.UNAUTHORIZED, "UNKNOWN_USER");
+        }
+        if (idempotencyKey != null && !IdempotencyTable.isValidKey(idempotencyKey)) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_IDEMPOTENCY_KEY");
+        }
+        if (!bankingService.ownsAccounts(customer.getId(), Collections.singletonList(leg.getFromAccountId()))) {
+            return ApiResponses.error(HttpStatus.FORBIDDEN, "ACCOUNT_NOT_OWNED");
+        }
+        if (bankingService.getAccountById(leg.getToAccountId()) == null) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+        if (leg.getAmountCents() <= 0) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_AMOUNT");
+        }
+        BatchTransferResult.Status status;
+        try {
+            status = bankingService.transfer(leg, idempotencyKey);
+        } catch (IdempotencyKeyReuseException e) {
+            return ApiResponses.error(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED");
+        }
+        return statusResponse(status, leg.getFromAccountId());
+    }
+
+    /**
+     * 把转账、充值或取款的处理状态转换为响应：成功返回账户，失败返回对应的状态码和错误码。
+     * @param status 处理状态
+     * @param accountId 成功时返回的账户ID
+     * @return 响应
+     */
+    private ResponseEntity<Object> statusResponse(BatchTransferResult.Status status, String accountId) {
+        switch (status) {
+            case OK:
+                return ResponseEntity.ok(bankingService.getAccountById(accountId));
+            case ACCOUNT_NOT_FOUND:
+                return ApiResponses.error(HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+            case INVALID_AMOUNT:
+                return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_AMOUNT");
+            case ABORTED:
+                return ApiResponses.error(HttpStatus.SERVICE_UNAVAILABLE, "TRANSFER_ABORTED");
+            default:
+                return ApiResponses.error(HttpStatus.UNPROCESSABLE_ENTITY, status.name());
+        }
+    }
+
+    /**
+     * 批量转账，语义与 /user/transfer/batch 相同。
+     * @param request 批量转账请求
+     * @param authentication 当前认证信息
+     * @return 每笔转账的处理状态
+     */
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<Object> transferBatch(@RequestBody BatchTransferRequest request, Authentication authentication) {
+        Customer customer = currentCustomer(authentication);
+        if (customer == null) {
+            return ApiResponses.error(HttpStatus.UNAUTHORIZED, "UNKNOWN_USER");
+        }
+        List<TransferLeg> legs = request.getLegs();
+        if (legs == null || legs.isEmpty() || legs.size() > MAX_BATCH_LEGS) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_BATCH_SIZE");
+        }
+        Set<String> sources = legs.stream().map(TransferLeg::getFromAccountId).collect(Collectors.toSet());
+        if (!bankingService.ownsAccounts(customer.getId(), sources)) {
+            return ApiResponses.error(HttpStatus.FORBIDDEN, "ACCOUNT_NOT_OWNED");
+        }
+        return ResponseEntity.ok(bankingService.transferBatch(legs, request.isAtomic()));
+    }
+
+    /**
+     * 向当前用户的账户充值。
+     * @param accountId 账户ID
+     * @param request 金额请求
+     * @param idempotencyKey 幂等键，可省略
+     * @param authentication 当前认证信息
+     * @return 充值后的账户；余额将溢出返回 422
+     */
+    @PostMapping("/accounts/{accountId}/recharge")
+    public ResponseEntity<Object> recharge(@PathVariable String accountId, @RequestBody AmountRequest request,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                           Authentication authentication) {
+        return changeBalance(accountId, request, idempotencyKey, authentication, true);
+    }
+
+    /**
+     * 从当前用户的账户取款。
+     * @param accountId 账户ID
+     * @param request 金额请求
+     * @param idempotencyKey 幂等键，可省略
+     * @param authentication 当前认证信息
+     * @return 取款后的账户；余额不足返回 422
+     */
+    @PostMapping("/accounts/{accountId}/withdraw")
+    public ResponseEntity<Object> withdraw(@PathVariable String accountId, @RequestBody AmountRequest request,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                           Authentication authentication) {
+        return changeBalance(accountId, request, idempotencyKey, authentication, false);
+    }
+
+    private ResponseEntity<Object> changeBalance(String accountId, AmountRequest request, String idempotencyKey,
+                                                 Authentication authentication, boolean recharge) {
+        Customer customer = currentCustomer(authentication);
+        if (customer == null) {
+            return ApiResponses.error(HttpStatus.UNAUTHORIZED, "UNKNOWN_USER");
+        }
+        if (idempotencyKey != null && !IdempotencyTable.isValidKey(idempotencyKey)) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_IDEMPOTENCY_KEY");
+        }
+        if (!bankingService.ownsAccounts(customer.getId(), List.of(accountId))) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+        long amountCents;
+        try {
+            amountCents = request.getAmount() == null ? 0 : Money.toCents(request.getAmount());
+        } catch (ArithmeticException e) {
+            amountCents = 0;
+        }
+        if (amountCents <= 0) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_AMOUNT");
+        }
+        BatchTransferResult.Status status;
+        try {
+            status = recharge
+                    ? bankingService.recharge(accountId, amountCents, idempotencyKey)
+                    : bankingService.withdraw(accountId, amountCents, idempotencyKey);
+        } catch (IdempotencyKeyReuseException e) {
+            return ApiResponses.error(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED");
+        }
+        return statusResponse(status, accountId);
+    }
+
+    private Customer currentCustomer(Authentication authentication) {
+        return authentication == null ? null : bankingService.getCustomer(authentication.getName());
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.banking.controller;
+/*
+ * AdminApiController.java
+ * 管理员 JSON 接口（/api/v1/admin），提供银行、客户和账户的查询与修改以及手动计息，需要 ADMIN 角色。
+*/
+import com.example.banking.model.Account;
+import com.example.banking.model.Bank;
+import com.example.banking.model.Customer;
+import com.example.banking.model.InterestRunReport;
+import com.example.banking.model.Money;
+import com.example.banking.service.BankingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+public class AdminApiController {
+    private static final Logger logger = LoggerFactory.getLogger(AdminApiController.class);
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private BankingService bankingService;
+
+    /**
+     * 名称请求体：{"name": "..."}。
+     */
+    public static class NameRequest {
+        private String name;
+
+        public String getName() { return name; }
+
+        public void setName(String name) { this.name = name; }
+    }
+
+    /**
+     * 密码请求体：{"password": "..."}。
+     */
+    public static class PasswordRequest {
+        private String password;
+
+        public String getPassword() { return password; }
+
+        public void setPassword(String password) { this.password = password; }
+    }
+
+    /**
+     * 利率请求体：{"interestRate": 0.015}，小数形式，与账户 JSON 中的 interestRate 一致。
+     */
+    public static class InterestRateRequest {
+        private double interestRate;
+
+        public double getInterestRate() { return interestRate; }
+
+        public void setInterestRate(double interestRate) { this.interestRate = interestRate; }
+    }
+
+    /**
+     * 获取全部银行。
+     * @return 银行列表
+     */
+    @GetMapping("/banks")
+    public List<Bank> banks() {
+        return bankingService.getBanks();
+    }
+
+    /**
+     * 创建银行。
+     * @param request 名称请求
+     * @return 新银行，状态码 201；名称为空返回 400
+     */
+    @PostMapping("/banks")
+    public ResponseEntity<Object> createBank(@RequestBody NameRequest request) {
+        if (request.getName() == null || request.getName().trim().isEmpty()) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_NAME");
+        }
+        Bank bank = bankingService.createBank(request.getName());
+        logger.info("API: admin created bank {}", bank.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(bank);
+    }
+
+    /**
+     * 按创建顺序分页获取客户的公开信息。
+     * @param offset 跳过的客户数
+     * @param limit 每页条数，超出范围时按 1 到 {@value #MAX_LIMIT} 处理
+     * @return 客户列表
+     */
+    @GetMapping("/customers")
+    public List<Map<String, Object>> customers(@RequestParam(defaultValue = "0") int offset,
+                                               @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        return bankingService.getCustomers(Math.max(0, offset), clampLimit(limit)).stream()
+                .map(ApiResponses::customer).collect(Collectors.toList());
+    }
+
+    /**
+     * 获取一个客户的公开信息。
+     * @param customerId 客户ID
+     * @return 客户；不存在返回 404
+     */
+    @GetMapping("/customers/{customerId}")
+    public ResponseEntity<Object> customer(@PathVariable String customerId) {
+        Customer customer = bankingService.getCustomerById(customerId);
+        if (customer == null) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "CUSTOMER_NOT_FOUND");
+        }
+        return ResponseEntity.ok(ApiResponses.customer(customer));
+    }
+
+    /**
+     * 修改客户姓名。
+     * @param customerId 客户ID
+     * @param request 名称请求
+     * @return 修改后的客户；不存在返回 404
+     */
+    @PutMapping("/customers/{customerId}/name")
+    public ResponseEntity<Object> updateCustomerName(@PathVariable String customerId, @RequestBody NameRequest request) {
+        if (request.getName() == null || request.getName().trim().isEmpty()) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_NAME");
+        }
+        if (!bankingService.updateCustomerName(customerId, request.getName())) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "CUSTOMER_NOT_FOUND");
+        }
+        return ResponseEntity.ok(ApiResponses.customer(bankingService.getCustomerById(customerId)));
+    }
+
+    /**
+     * 重置客户密码。
+     * @param customerId 客户ID
+     * @param request 密码请求
+     * @return 成功返回 204；密码为空返回 400，客户不存在返回 404
+     */
+    @PutMapping("/customers/{customerId}/password")
+    public ResponseEntity<Object> resetCustomerPassword(@PathVariable String customerId, @RequestBody PasswordRequest request) {
+        if (request.getPassword() == null || request.getPassword().trim().isEmpty()) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_PASSWORD");
+        }
+        if (!bankingService.resetCustomerPassword(customerId, request.getPassword())) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "CUSTOMER_NOT_FOUND");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * 分页查询账户，可按银行或客户过滤，按银行、再按开户顺序排列。
+     * @param bankId 银行ID（可选）
+     * @param customerId 客户ID（可选）
+     * @param offset 跳过的账户数
+     * @param limit 每页条数，超出范围时按 1 到 {@value #MAX_LIMIT} 处理
+     * @return 账户列表
+     */
+    @GetMapping("/accounts")
+    public List<Account> accounts(@RequestParam(required = false) String bankId,
+                                  @RequestParam(required = false) String customerId,
+                                  @RequestParam(defaultValue = "0") int offset,
+                                  @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        if (customerId != null) {
+            return bankingService.getAccountsByCustomerId(customerId).stream()
+                    .filter(a -> bankId == null || bankId.equals(a.getBankId()))
+                    .skip(Math.max(0, offset))
+                    .limit(clampLimit(limit))
+                    .collect(Collectors.toList());
+        }
+        return bankingService.getAccounts(bankId, Math.max(0, offset), clampLimit(limit));
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * 修改账户余额。
+     * @param accountId 账户ID
+     * @param request 金额请求，amount 为新余额
+     * @return 修改后的账户；余额无效返回 400，账户不存在返回 404
+     */
+    @PutMapping("/accounts/{accountId}/balance")
+    public ResponseEntity<Object> updateBalance(@PathVariable String accountId,
+                                                @RequestBody AccountApiController.AmountRequest request) {
+        if (bankingService.getAccountById(accountId) == null) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+        long amountCents;
+        try {
+            amountCents = request.getAmount() == null ? -1 : Money.toCents(request.getAmount());
+        } catch (ArithmeticException e) {
+            amountCents = -1;
+        }
+        if (amountCents < 0 || !bankingService.updateAccountBalance(accountId, amountCents)) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_AMOUNT");
+        }
+        return ResponseEntity.ok(bankingService.getAccountById(accountId));
+    }
+
+    /**
+     * 修改账户利率。
+     * @param accountId 账户ID
+     * @param request 利率请求
+     * @return 修改后的账户；利率为负返回 400，账户不存在返回 404
+     */
+    @PutMapping("/accounts/{accountId}/interest-rate")
+    public ResponseEntity<Object> updateInterestRate(@PathVariable String accountId, @RequestBody InterestRateRequest request) {
+        if (bankingService.getAccountById(accountId) == null) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+        if (!Double.isFinite(request.getInterestRate())
+                || !bankingService.updateAccountInterestRate(accountId, request.getInterestRate())) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_INTEREST_RATE");
+        }
+        return ResponseEntity.ok(bankingService.getAccountById(accountId));
+    }
+
+    /**
+     * 立即为全部账户计息到指定日期（默认今天），与定时计息相同，请求在计息完成后返回。
+     * @param date 计息日期，不能晚于今天
+     * @return 计息统计；日期无效返回 400，已有计息任务在运行返回 409
+     */
+    @PostMapping("/interest/run")
+    public ResponseEntity<Object> runInterest(@RequestParam(required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate today = LocalDate.now();
+        if (date != null && date.isAfter(today)) {
+            return ApiResponses.error(HttpStatus.BAD_REQUEST, "INVALID_DATE");
+        }
+        InterestRunReport report = bankingService.postInterest(date != null ? date : today);
+        if (report == null) {
+            return ApiResponses.error(HttpStatus.CONFLICT, "INTEREST_RUN_IN_PROGRESS");
+        }
+        logger.info("Admin triggered interest run for {}", report.getDate());
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * 最近一次计息任务的统计。
+     * @return 计息统计；本次启动后尚未计息返回 404
+     */
+    @GetMapping("/interest/last-run")
+    public ResponseEntity<Object> lastInterestRun() {
+        InterestRunReport report = bankingService.getLastInterestRun();
+        if (report == null) {
+            return ApiResponses.error(HttpStatus.NOT_FOUND, "NO_INTEREST_RUN");
+        }
+        return ResponseEntity.ok(report);
+    }
+}
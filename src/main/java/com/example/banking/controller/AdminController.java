@@ -5,7 +5,7 @@ package com.example.banking.controller;
  * 处理管理员相关操作，如创建银行、编辑客户信息、编辑账户信息等。
  * * 需要管理员角色才能访问。
  * * 主要功能包括：
- * - 显示所有银行和客户信息
+ * - 显示所有银行，分页显示客户和账户（支持过滤和排序）
  * - 创建新银行
  * - 编辑客户名称
  * - 重置客户密码
@@ -14,7 +14,11 @@ package com.example.banking.controller;
  * * 通过 @PreAuthorize 注解限制访问权限，确保只有具有 ADMIN 角色的用户可以访问这些功能。
  * * @ENOCH
 */
+import com.example.banking.model.Account;
+import com.example.banking.model.Bank;
 import com.example.banking.model.Customer;
+import com.example.banking.model.Money;
+import com.example.banking.model.PageResult;
 import com.example.banking.service.BankingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,43 +31,116 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponents;
 
+import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/admin")
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminController {
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 200;
 
     @Autowired
     private BankingService bankingService;
 
     /**
-     * 显示管理员面板，包含所有银行、客户和账户信息。
+     * 显示管理员面板：银行列表，以及分页的客户列表和账户列表。
+     * 客户按姓名排序，可按姓名前缀过滤；账户按余额排序，可按银行和余额区间过滤。
+     * 每次只查询并渲染当前页，页面大小与客户和账户总数无关。
      * 可选参数 selectedCustomerId 用于高亮显示某个客户及其账户。
      *
      * @param model Spring MVC的Model对象
      * @param selectedCustomerId 选中的客户ID（可选）
+     * @param q 客户姓名前缀（可选）
+     * @param customerSort 客户排序，asc 或 desc
+     * @param customerPage 客户列表页码（从 0 开始）
+     * @param bankId 账户所属银行ID（可选）
+     * @param minBalance 最小余额（可选）
+     * @param maxBalance 最大余额（可选）
+     * @param accountSort 账户排序，asc 或 desc
+     * @param accountPage 账户列表页码（从 0 开始）
+     * @param size 每页条数
      * @return 返回admin页面
      */
     @GetMapping
-    public String adminPanel(Model model, @RequestParam(required = false) String selectedCustomerId) {
-        model.addAttribute("banks", bankingService.getBanks());
-        List<Customer> customers = bankingService.getCustomers();
-        model.addAttribute("customers", customers);
-        model.addAttribute("allAccounts", bankingService.getAccounts());
+    public String adminPanel(Model model,
+                             @RequestParam(required = false) String selectedCustomerId,
+                             @RequestParam(required = false) String q,
+                             @RequestParam(defaultValue = "asc") String customerSort,
+                             @RequestParam(defaultValue = "0") int customerPage,
+                             @RequestParam(required = false) String bankId,
+                             @RequestParam(required = false) BigDecimal minBalance,
+                             @RequestParam(required = false) BigDecimal maxBalance,
+                             @RequestParam(defaultValue = "desc") String accountSort,
+                             @RequestParam(defaultValue = "0") int accountPage,
+                             @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+        List<Bank> banks = bankingService.getBanks();
+        model.addAttribute("banks", banks);
+        Map<String, Integer> bankAccountCounts = new HashMap<>();
+        Map<String, Double> bankBalances = new HashMap<>();
+        for (Bank bank : banks) {
+            bankAccountCounts.put(bank.getId(), bankingService.countAccountsByBank(bank.getId()));
+            bankBalances.put(bank.getId(), Money.toDouble(bankingService.getTotalBalanceCentsByBank(bank.getId())));
+        }
+        model.addAttribute("bankAccountCounts", bankAccountCounts);
+        model.addAttribute("bankBalances", bankBalances);
+
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String namePrefix = blankToNull(q);
+        String bankFilter = blankToNull(bankId);
+        // 超出余额可表示范围的筛选条件按边界处理
+        long minCents = minBalance != null ? Money.toCentsSaturated(minBalance) : Long.MIN_VALUE;
+        long maxCents = maxBalance != null ? Money.toCentsSaturated(maxBalance) : Long.MAX_VALUE;
+        model.addAttribute("q", namePrefix);
+        model.addAttribute("customerSort", "desc".equals(customerSort) ? "desc" : "asc");
+        model.addAttribute("bankId", bankFilter);
+        model.addAttribute("minBalance", minBalance);
+        model.addAttribute("maxBalance", maxBalance);
+        model.addAttribute("accountSort", "asc".equals(accountSort) ? "asc" : "desc");
+        model.addAttribute("size", pageSize);
+
+        PageResult<Customer> customers = bankingService.searchCustomers(namePrefix, "desc".equals(customerSort),
+                Math.max(0, customerPage), pageSize);
+        model.addAttribute("customerPage", customers);
+        PageResult<Account> accounts = bankingService.searchAccounts(bankFilter, minCents, maxCents,
+                !"asc".equals(accountSort), Math.max(0, accountPage), pageSize);
+        model.addAttribute("accountPage", accounts);
+        model.addAttribute("customerPrevUrl", pageUrl("customerPage", customers.getPage() - 1));
+        model.addAttribute("customerNextUrl", pageUrl("customerPage", customers.getPage() + 1));
+        model.addAttribute("accountPrevUrl", pageUrl("accountPage", accounts.getPage() - 1));
+        model.addAttribute("accountNextUrl", pageUrl("accountPage", accounts.getPage() + 1));
 
         if (selectedCustomerId != null) {
             Customer selectedCustomer = bankingService.getCustomerById(selectedCustomerId);
             model.addAttribute("selectedCustomer", selectedCustomer);
             if (selectedCustomer != null) {
-                model.addAttribute("customerAccounts", bankingService.getAccounts(selectedCustomer.getUsername()));
+                model.addAttribute("customerAccounts", bankingService.getAccountsByCustomerId(selectedCustomer.getId()));
             }
         }
         return "admin";
     }
 
+    /**
+     * 生成保留当前过滤条件、只替换页码的链接。
+     */
+    private static String pageUrl(String param, int page) {
+        UriComponents uri = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam(param, page)
+                .build();
+        return uri.getPath() + "?" + uri.getQuery();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
     /**
      * 管理员创建新银行。
      * @param bankName 银行名称
@@ -131,12 +208,17 @@ public class AdminController {
      * @return 重定向到admin页面并高亮该客户
      */
     @PostMapping("/account/edit-balance")
-    public String editAccountBalance(@RequestParam String accountId, @RequestParam double newBalance, @RequestParam String customerId, RedirectAttributes redirectAttributes) {
-        boolean success = bankingService.updateAccountBalance(accountId, newBalance);
+    public String editAccountBalance(@RequestParam String accountId, @RequestParam BigDecimal newBalance, @RequestParam String customerId, RedirectAttributes redirectAttributes) {
+        boolean success;
+        try {
+            success = bankingService.updateAccountBalance(accountId, Money.toCents(newBalance));
+        } catch (ArithmeticException e) {
+            success = false;
+        }
         if (success) {
             redirectAttributes.addFlashAttribute("message", "账户余额更新成功。");
         } else {
-            redirectAttributes.addFlashAttribute("error", "账户余额更新失败。请确保余额非负。");
+            redirectAttributes.addFlashAttribute("error", "账户余额更新失败。请确保余额非负且不超出范围。");
         }
         return "redirect:/admin?selectedCustomerId=" + customerId;
     }
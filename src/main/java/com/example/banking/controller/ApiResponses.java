@@ -0,0 +1,44 @@
+package com.example.banking.controller;
+
+import com.example.banking.model.Customer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ApiResponses
+ *
+ * REST API 控制器共用的响应构造方法。错误响应统一为 {"error": "错误码"}，
+ * 客户信息只输出公开字段，不包含密码哈希。
+ */
+final class ApiResponses {
+    private ApiResponses() {}
+
+    /**
+     * 构造错误响应。
+     * @param status HTTP 状态码
+     * @param code 错误码
+     * @return 响应
+     */
+    static ResponseEntity<Object> error(HttpStatus status, String code) {
+        return ResponseEntity.status(status).body(Map.of("error", code));
+    }
+
+    /**
+     * 客户的公开信息。
+     * @param customer 客户对象
+     * @return 字段映射
+     */
+    static Map<String, Object> customer(Customer customer) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("id", customer.getId());
+        view.put("name", customer.getName());
+        view.put("username", customer.getUsername());
+        view.put("cardNumber", customer.getCardNumber());
+        view.put("bankIds", customer.getBankIds());
+        view.put("roles", customer.getRoles());
+        return view;
+    }
+}
@@ -5,10 +5,10 @@ package com.example.banking.controller;
  * 
  * 监听根路由 "/"，检测用户是否已登录。
  * 如果未登录，则重定向到登录页面。
- * 如果已登录，则返回 home.html 并传递账户、银行等信息。
+ * 如果已登录，则返回 home.html 并传递账户、银行等信息（来自按客户缓存的主页快照），
+ * 以及本次页面的幂等键，页面上的资金操作表单提交时带上它，重复提交同一表单只生效一次。
  */
-import com.example.banking.model.Account;
-import com.example.banking.model.Bank;
+import com.example.banking.model.DashboardView;
 import com.example.banking.service.BankingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -16,9 +16,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 @Controller
 public class HomeController {
@@ -37,14 +35,16 @@ public class HomeController {
         if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getName())) {
             return "redirect:/login";
         }
-        String username = auth.getName();
-        model.addAttribute("banks", bankingService.getBanks());
-        List<Account> userAccounts = bankingService.getAccounts(username);
-        model.addAttribute("accounts", userAccounts);
-        model.addAttribute("customer", bankingService.getCustomer(username));
-        Map<String, String> bankNames = bankingService.getBanks().stream()
-                .collect(Collectors.toMap(Bank::getId, Bank::getName));
-        model.addAttribute("bankNames", bankNames);
+        DashboardView dashboard = bankingService.getDashboard(auth.getName());
+        if (dashboard != null) {
+            model.addAttribute("dashboard", dashboard);
+            model.addAttribute("customer", dashboard.getCustomer());
+            model.addAttribute("accounts", dashboard.getAccounts());
+            model.addAttribute("banks", dashboard.getBanks());
+        } else {
+            model.addAttribute("banks", bankingService.getBanks());
+        }
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         return "home";
     }
 }
\ No newline at end of file
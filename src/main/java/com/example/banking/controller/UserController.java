@@ -1,54 +1,167 @@
 package com.example.banking.controller;
 /*
  * UserController.java
- * 处理用户相关操作，如转账、充值、提现、添加账户等。
+ * 处理用户相关操作，如转账、批量转账、充值、提现、添加账户等。
 */
+import com.example.banking.model.BatchTransferRequest;
+import com.example.banking.model.BatchTransferResult;
 import com.example.banking.model.Customer;
+import com.example.banking.model.Money;
+import com.example.banking.model.TransferLeg;
 import com.example.banking.service.BankingService;
+import com.example.banking.service.IdempotencyKeyReuseException;
+import com.example.banking.service.IdempotencyTable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import javax.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpSession;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/user")
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private static final int MAX_BATCH_LEGS = 100_000;
 
     @Autowired
     private BankingService bankingService;
 
+    /**
+     * 处理转账请求。表单带有页面生成的幂等键，重复提交同一表单只转账一次。
+     * @param fromAccountId 转出账户ID
+     * @param toAccountId 转入账户ID
+     * @param amount 转账金额
+     * @param idempotencyKey 幂等键，可省略
+     * @param redirectAttributes 重定向属性
+     * @return 重定向到主页
+     */
     @PostMapping("/transfer")
     public String transfer(@RequestParam String fromAccountId, @RequestParam String toAccountId,
-                           @RequestParam double amount, Model model) {
-        logger.info("Transfer attempt from {} to {} amount {}", fromAccountId, toAccountId, amount);
-        boolean success = bankingService.transfer(fromAccountId, toAccountId, amount);
-        if (!success) {
-            model.addAttribute("error", "转账失败，请检查账户ID或余额。");
-            logger.warn("Transfer failed from {} to {} amount {}", fromAccountId, toAccountId, amount);
+                           @RequestParam BigDecimal amount,
+                           @RequestParam(required = false) String idempotencyKey,
+                           RedirectAttributes redirectAttributes) {
+        if (!isValidKey(idempotencyKey)) {
+            redirectAttributes.addFlashAttribute("error", "请求无效，请刷新页面后重试。");
+            return "redirect:/";
+        }
+        // 结果由 BankingService 记录（DEBUG 级别），这里不再重复
+        try {
+            BatchTransferResult.Status status = bankingService.transfer(
+                    new TransferLeg(fromAccountId, toAccountId, Money.toCents(amount)), idempotencyKey);
+            switch (status) {
+                case OK:
+                    redirectAttributes.addFlashAttribute("message", "转账成功！");
+                    break;
+                case INSUFFICIENT_FUNDS:
+                    redirectAttributes.addFlashAttribute("error", "转账失败，余额不足。");
+                    break;
+                case OVERFLOW:
+                    redirectAttributes.addFlashAttribute("error", "转账失败，转入账户余额将超出上限。");
+                    break;
+                case ABORTED:
+                    redirectAttributes.addFlashAttribute("error", "转账未能完成，余额未变动，请稍后重试。");
+                    break;
+                default:
+                    redirectAttributes.addFlashAttribute("error", "转账失败，请检查账户ID或金额。");
+            }
+        } catch (IdempotencyKeyReuseException e) {
+            redirectAttributes.addFlashAttribute("error", "请求已提交过，请刷新页面后重试。");
+        } catch (ArithmeticException e) {
+            redirectAttributes.addFlashAttribute("error", "转账金额超出范围。");
         }
         return "redirect:/";
     }
 
+    /**
+     * 幂等键可省略；提供时须符合 {@link IdempotencyTable#isValidKey}。
+     */
+    private static boolean isValidKey(String idempotencyKey) {
+        return idempotencyKey == null || IdempotencyTable.isValidKey(idempotencyKey);
+    }
+
+    /**
+     * 批量转账接口，请求和响应均为 JSON。所有转出账户必须属于当前登录用户。
+     * @param request 批量转账请求
+     * @return 每笔转账的处理状态；请求无效返回 400，转出账户不属于当前用户返回 403
+     */
+    @PostMapping(value = "/transfer/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<BatchTransferResult> transferBatch(@RequestBody BatchTransferRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Customer customer = authentication == null ? null : bankingService.getCustomer(authentication.getName());
+        if (customer == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        List<TransferLeg> legs = request.getLegs();
+        if (legs == null || legs.isEmpty() || legs.size() > MAX_BATCH_LEGS) {
+            logger.warn("Batch transfer from customer {} rejected: {} legs", customer.getId(), legs == null ? 0 : legs.size());
+            return ResponseEntity.badRequest().build();
+        }
+        Set<String> sources = legs.stream().map(TransferLeg::getFromAccountId).collect(Collectors.toSet());
+        if (!bankingService.ownsAccounts(customer.getId(), sources)) {
+            logger.warn("Batch transfer from customer {} rejected: source accounts are not theirs", customer.getId());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("event=batch_transfer_request customer={} legs={} atomic={}", customer.getId(), legs.size(), request.isAtomic());
+        }
+        return ResponseEntity.ok(bankingService.transferBatch(legs, request.isAtomic()));
+    }
+
     /**
      * 处理用户充值请求。
      * @param accountId 充值账户ID
      * @param amount 充值金额
+     * @param idempotencyKey 幂等键，可省略
+     * @param redirectAttributes 重定向属性
      * @return 重定向到主页
      */
     @PostMapping("/recharge")
-    public String recharge(@RequestParam String accountId, @RequestParam double amount) {
-        logger.info("Recharge attempt for account {} amount {}", accountId, amount);
-        bankingService.recharge(accountId, amount);
+    public String recharge(@RequestParam String accountId, @RequestParam BigDecimal amount,
+                           @RequestParam(required = false) String idempotencyKey,
+                           RedirectAttributes redirectAttributes) {
+        if (!isValidKey(idempotencyKey)) {
+            redirectAttributes.addFlashAttribute("error", "请求无效，请刷新页面后重试。");
+            return "redirect:/";
+        }
+        try {
+            BatchTransferResult.Status status = bankingService.recharge(accountId, Money.toCents(amount), idempotencyKey);
+            switch (status) {
+                case OK:
+                    redirectAttributes.addFlashAttribute("message", "充值成功！");
+                    break;
+                case OVERFLOW:
+                    redirectAttributes.addFlashAttribute("error", "充值失败，账户余额将超出上限。");
+                    break;
+                case ACCOUNT_NOT_FOUND:
+                    redirectAttributes.addFlashAttribute("error", "充值失败，账户不存在。");
+                    break;
+                default:
+                    redirectAttributes.addFlashAttribute("error", "充值失败，请检查账户ID或金额。");
+            }
+        } catch (IdempotencyKeyReuseException e) {
+            redirectAttributes.addFlashAttribute("error", "请求已提交过，请刷新页面后重试。");
+        } catch (ArithmeticException e) {
+            redirectAttributes.addFlashAttribute("error", "充值金额超出范围。");
+        }
         return "redirect:/";
     }
 
@@ -56,10 +169,11 @@ public class UserController {
      * 处理添加新账户请求。
      * @param bankId 银行ID
      * @param model Spring MVC的Model对象
+     * @param redirectAttributes 重定向属性
      * @return 重定向到主页或登录页
      */
     @PostMapping("/add-account")
-    public String addAccount(@RequestParam String bankId, Model model) {
+    public String addAccount(@RequestParam String bankId, Model model, RedirectAttributes redirectAttributes) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             logger.warn("User not authenticated, cannot add account.");
@@ -74,7 +188,9 @@ public class UserController {
             return "redirect:/login";
         }
         logger.info("Adding new account for customer {} (ID: {}) in bank {}", customer.getUsername(), customer.getId(), bankId);
-        bankingService.createAccount(customer, bankId);
+        if (bankingService.createAccount(customer, bankId) == null) {
+            redirectAttributes.addFlashAttribute("error", "所选银行不存在，请刷新页面后重试。");
+        }
         return "redirect:/";
     }
 
@@ -82,21 +198,45 @@ public class UserController {
      * 处理取款请求。
      * @param accountId 取款账户ID
      * @param amount 取款金额
+     * @param idempotencyKey 幂等键，可省略
      * @param redirectAttributes 重定向属性
      * @param session HttpSession对象
      * @return 重定向到主页
      */
     @PostMapping("/withdraw")
-    public String withdraw(@RequestParam String accountId, @RequestParam double amount, RedirectAttributes redirectAttributes, HttpSession session) {
-        if (amount <= 0) {
+    public String withdraw(@RequestParam String accountId, @RequestParam BigDecimal amount,
+                           @RequestParam(required = false) String idempotencyKey,
+                           RedirectAttributes redirectAttributes, HttpSession session) {
+        if (amount.signum() <= 0) {
             redirectAttributes.addFlashAttribute("error", "取款金额必须大于0。");
             return "redirect:/";
         }
-        boolean success = bankingService.withdraw(accountId, amount);
-        if (success) {
-            redirectAttributes.addFlashAttribute("message", "取款成功！");
-        } else {
-            redirectAttributes.addFlashAttribute("error", "取款失败，余额不足或账户不存在。");
+        if (!isValidKey(idempotencyKey)) {
+            redirectAttributes.addFlashAttribute("error", "请求无效，请刷新页面后重试。");
+            return "redirect:/";
+        }
+        BatchTransferResult.Status status;
+        try {
+            status = bankingService.withdraw(accountId, Money.toCents(amount), idempotencyKey);
+        } catch (IdempotencyKeyReuseException e) {
+            redirectAttributes.addFlashAttribute("error", "请求已提交过，请刷新页面后重试。");
+            return "redirect:/";
+        } catch (ArithmeticException e) {
+            redirectAttributes.addFlashAttribute("error", "取款金额超出范围。");
+            return "redirect:/";
+        }
+        switch (status) {
+            case OK:
+                redirectAttributes.addFlashAttribute("message", "取款成功！");
+                break;
+            case INSUFFICIENT_FUNDS:
+                redirectAttributes.addFlashAttribute("error", "取款失败，余额不足。");
+                break;
+            case ACCOUNT_NOT_FOUND:
+                redirectAttributes.addFlashAttribute("error", "取款失败，账户不存在。");
+                break;
+            default:
+                redirectAttributes.addFlashAttribute("error", "取款失败，请检查账户ID或金额。");
         }
         return "redirect:/";
     }
@@ -6,28 +6,40 @@ package com.example.banking.controller;
  * 仅显示账户信息，不进行操作
 */
 import com.example.banking.model.Customer;
+import com.example.banking.model.LedgerEntry;
+import com.example.banking.service.AuthenticationBusyException;
 import com.example.banking.service.BankingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.SessionAttribute;
 
-import javax.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.util.List;
 
 @Controller
 public class WebController {
     private static final Logger logger = LoggerFactory.getLogger(WebController.class);
+    private static final int STATEMENT_PAGE_SIZE = 50;
 
     @Autowired
     private BankingService bankingService;
 
+    @Autowired
+    private SecurityContextRepository securityContextRepository;
+
     @GetMapping("/register")
     public String showRegistrationForm() {
         return "register";
@@ -59,16 +71,28 @@ public class WebController {
 
     @PostMapping("/login")
     public String login(@RequestParam String username, @RequestParam String password,
+                        HttpServletRequest request, HttpServletResponse response,
                         HttpSession session, Model model) {
         logger.info("Login attempt for username: {}", username);
-        Customer customer = bankingService.authenticate(username, password);
+        Customer customer;
+        try {
+            customer = bankingService.authenticate(username, password);
+        } catch (AuthenticationBusyException e) {
+            logger.warn("Login for username {} rejected: {}", username, e.getMessage());
+            model.addAttribute("error", "系统繁忙，请稍后再试");
+            return "login";
+        }
         if (customer == null) {
             logger.warn("Authentication failed for username: {}. Invalid username or password.", username);
             model.addAttribute("error", "用户名或密码错误");
             return "login";
         }
         Authentication auth = new UsernamePasswordAuthenticationToken(username, null, customer.getAuthorities());
-        SecurityContextHolder.getContext().setAuthentication(auth);
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(auth);
+        SecurityContextHolder.setContext(context);
+        // Spring Security 6 不再在请求结束时自动保存上下文，须显式写入会话
+        securityContextRepository.saveContext(context, request, response);
         session.setAttribute("customerId", customer.getId());
         if (customer.getRoles().contains("ROLE_ADMIN")) {
             return "redirect:/admin";
@@ -78,21 +102,27 @@ public class WebController {
 
     /**
      * 处理/account页面请求，显示当前登录用户的账户信息。
+     * 指定 statementAccountId 时同时显示该账户的对账单（按时间顺序，每页 {@value #STATEMENT_PAGE_SIZE} 条）。
      *
-     * @param session HttpSession对象，用于获取当前登录用户ID
+     * @param session HttpSession对象，用户不存在时清除登录状态
+     * @param customerId 会话中的当前登录用户ID，未登录为 null
      * @param model   Spring MVC的Model对象，用于向前端传递数据
+     * @param statementAccountId 查看对账单的账户ID（可选，须属于当前用户）
+     * @param before  对账单分页游标：只显示该流水号之前的记录，0 表示最新
      * @return 返回account页面模板名，未登录则重定向到登录页
      */
     @GetMapping("/account")
-    public String showAccount(HttpSession session, Model model) {
+    public String showAccount(HttpSession session,
+                              @SessionAttribute(name = "customerId", required = false) String customerId,
+                              Model model,
+                              @RequestParam(required = false) String statementAccountId,
+                              @RequestParam(defaultValue = "0") long before) {
         logger.debug("Accessing account page");
-        String customerId = (String) session.getAttribute("customerId");
         if (customerId == null) {
             logger.warn("No customerId in session, redirecting to login");
             return "redirect:/login";
         }
-        Customer customer = bankingService.getCustomers().stream()
-                .filter(c -> c.getId().equals(customerId)).findFirst().orElse(null);
+        Customer customer = bankingService.getCustomerById(customerId);
         if (customer == null) {
             logger.warn("Customer not found for customerId: {}, clearing session", customerId);
             session.removeAttribute("customerId");
@@ -100,8 +130,16 @@ public class WebController {
         }
         logger.debug("Showing account for customer: {}", customer.getUsername());
         model.addAttribute("customer", customer);
-        model.addAttribute("accounts", bankingService.getAccounts(customer.getUsername()));
+        model.addAttribute("accounts", bankingService.getAccountsByCustomerId(customer.getId()));
         model.addAttribute("banks", bankingService.getBanks());
+        if (statementAccountId != null && bankingService.ownsAccounts(customer.getId(), List.of(statementAccountId))) {
+            List<LedgerEntry> statement = bankingService.getStatement(statementAccountId, before, STATEMENT_PAGE_SIZE);
+            model.addAttribute("statementAccountId", statementAccountId);
+            model.addAttribute("statement", statement);
+            if (statement.size() == STATEMENT_PAGE_SIZE) {
+                model.addAttribute("statementBefore", statement.get(0).getSeq());
+            }
+        }
         return "account";
     }
 
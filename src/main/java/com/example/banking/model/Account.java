@@ -1,18 +1,33 @@
 package com.example.banking.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * Account
  * 
  * 账户模型类，关于银行账户的基本信息。
  * 包括账户ID、余额、利率、银行ID和客户ID。
  * 账户默认余额为0.0，利率为0.01。
+ * 余额以 long 类型的“分”存储（见 {@link Money}），JSON 中仍以小数形式的 balance 字段读写。
+ * interestPostedDay 为已计息到的日期（自 1970-01-01 起的天数，0 表示尚未开始计息），
+ * 计息任务据此跳过当天已计息的账户，中断后重新运行不会重复计息。
+ * <p>
+ * 新建或从文件读取的账户是独立对象，数值保存在自身字段中；加入分片的 {@link AccountStore} 之后成为存储中
+ * 某个位置的视图，余额、利率和计息日期改由存储的列保存，读取不加锁，修改由 BankingService 在账户锁内完成。
+ * 快照采用写时复制：每个快照周期内第一次修改前调用 {@link #beforeWrite(long)} 保存旧值，
+ * 快照线程通过 {@link #balanceCentsAt(long)} 等方法读取周期开始时的状态。独立对象没有快照周期，总是返回当前值。
  */
 public class Account {
     private String id;
-    private double balance;
-    private double interestRate;
     private String bankId;
     private String customerId;
+    // 加入存储之前的数值
+    private long balanceCents;
+    private double interestRate;
+    private long interestPostedDay;
+    // 加入存储之后所在的块和块内位置
+    private AccountStore.Chunk chunk;
+    private int slot;
 
     /**
      * 默认构造函数。
@@ -29,7 +44,7 @@ public class Account {
         this.id = id;
         this.customerId = customerId;
         this.bankId = bankId;
-        this.balance = 0.0;
+        this.balanceCents = 0L;
         this.interestRate = 0.01;
     }
     
@@ -48,28 +63,84 @@ public class Account {
     public void setId(String id) { this.id = id; }
 
     /**
-     * 获取账户余额。
+     * 获取账户余额（元），用于页面显示和 JSON 输出。
      * @return 余额
      */
-    public double getBalance() { return balance; }
+    public double getBalance() { return Money.toDouble(getBalanceCents()); }
 
     /**
-     * 设置账户余额。
+     * 设置账户余额（元），按银行家舍入精确到分。
      * @param balance 余额
      */
-    public void setBalance(double balance) { this.balance = balance; }
+    public void setBalance(double balance) { setBalanceCents(Money.toCents(balance)); }
+
+    /**
+     * 获取以分为单位的账户余额。
+     * @return 余额（分）
+     */
+    @JsonIgnore
+    public long getBalanceCents() {
+        AccountStore.Chunk c = chunk;
+        return c != null ? c.balanceCents(slot) : balanceCents;
+    }
+
+    /**
+     * 设置以分为单位的账户余额。
+     * @param balanceCents 余额（分）
+     */
+    @JsonIgnore
+    public void setBalanceCents(long balanceCents) {
+        AccountStore.Chunk c = chunk;
+        if (c != null) {
+            c.setBalanceCents(slot, balanceCents);
+        } else {
+            this.balanceCents = balanceCents;
+        }
+    }
 
     /**
      * 获取账户利率。
      * @return 利率
      */
-    public double getInterestRate() { return interestRate; }
+    public double getInterestRate() {
+        AccountStore.Chunk c = chunk;
+        return c != null ? c.interestRate(slot) : interestRate;
+    }
 
     /**
      * 设置账户利率。
      * @param interestRate 利率
      */
-    public void setInterestRate(double interestRate) { this.interestRate = interestRate; }
+    public void setInterestRate(double interestRate) {
+        AccountStore.Chunk c = chunk;
+        if (c != null) {
+            c.setInterestRate(slot, interestRate);
+        } else {
+            this.interestRate = interestRate;
+        }
+    }
+
+    /**
+     * 获取已计息到的日期。
+     * @return 自 1970-01-01 起的天数，0 表示尚未开始计息
+     */
+    public long getInterestPostedDay() {
+        AccountStore.Chunk c = chunk;
+        return c != null ? c.interestPostedDay(slot) : interestPostedDay;
+    }
+
+    /**
+     * 设置已计息到的日期。
+     * @param interestPostedDay 自 1970-01-01 起的天数
+     */
+    public void setInterestPostedDay(long interestPostedDay) {
+        AccountStore.Chunk c = chunk;
+        if (c != null) {
+            c.setInterestPostedDay(slot, interestPostedDay);
+        } else {
+            this.interestPostedDay = interestPostedDay;
+        }
+    }
 
     /**
      * 获取银行ID。
@@ -94,4 +165,63 @@ public class Account {
      * @param customerId 客户ID
      */
     public void setCustomerId(String customerId) { this.customerId = customerId; }
+
+    /**
+     * 由 {@link AccountStore#add} 调用：把当前数值写入存储的列，此后读写都落到该位置。
+     */
+    void attach(AccountStore.Chunk chunk, int slot) {
+        if (this.chunk != null) {
+            throw new IllegalStateException("Account " + id + " already belongs to a store");
+        }
+        chunk.setBalanceCents(slot, balanceCents);
+        chunk.setInterestRate(slot, interestRate);
+        chunk.setInterestPostedDay(slot, interestPostedDay);
+        this.slot = slot;
+        this.chunk = chunk;
+    }
+
+    /**
+     * 修改余额、利率或计息日期之前调用，须持有账户锁。本周期内第一次修改时保存修改前的状态。
+     * @param epoch 当前快照周期
+     */
+    public void beforeWrite(long epoch) {
+        AccountStore.Chunk c = chunk;
+        if (c != null) {
+            c.beforeWrite(slot, epoch);
+        }
+    }
+
+    /**
+     * 获取快照周期开始时的余额。先读当前值再读保存的旧值，
+     * 若读到的当前值已被本周期修改过，则一定能看到对应的旧值。
+     * @param epoch 快照周期
+     * @return 余额（分）
+     */
+    public long balanceCentsAt(long epoch) {
+        long current = getBalanceCents();
+        AccountStore.Chunk c = chunk;
+        return c != null && c.savedIn(slot, epoch) ? c.savedBalanceCents[slot] : current;
+    }
+
+    /**
+     * 获取快照周期开始时的利率。
+     * @param epoch 快照周期
+     * @return 利率
+     */
+    public double interestRateAt(long epoch) {
+        double current = getInterestRate();
+        AccountStore.Chunk c = chunk;
+        return c != null && c.savedIn(slot, epoch) ? c.savedInterestRate[slot] : current;
+    }
+
+    /**
+     * 获取快照周期开始时的计息日期。
+     * @param epoch 快照周期
+     * @return 自 1970-01-01 起的天数
+     */
+    public long interestPostedDayAt(long epoch) {
+        long current = getInterestPostedDay();
+        AccountStore.Chunk c = chunk;
+        return c != null && c.savedIn(slot, epoch) ? c.savedInterestPostedDay[slot] : current;
+    }
 }
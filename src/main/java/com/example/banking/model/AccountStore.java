@@ -0,0 +1,220 @@
+package com.example.banking.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * AccountStore
+ *
+ * 按列存放账户数值的存储：余额、利率和计息日期各自是一列基本类型数组，按账户序号（加入顺序，从 0 连续编号）定位，
+ * 快照写时复制保存的旧值也是同样的列。{@link Account} 加入存储后只保留ID等字符串字段和所在位置，数值读写都落到列上。
+ * <p>
+ * 列按固定大小的块分配，扩容只追加新块，已有块不移动，账户持有的块引用始终有效。
+ * 单个账户的读写与原来的 volatile 字段语义相同；合计、计息筛选等批量操作逐块对整列做不加锁的普通读取，
+ * 循环体只有基本类型运算，可由 JIT 展开和向量化，结果与不加锁的逐个读取一样只是近似当前值。
+ * 加入账户互斥进行，读取和修改不经过存储的锁。
+ */
+public final class AccountStore {
+    static final int CHUNK_BITS = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /** 块内余额都小于该值时，整块求和不会溢出 */
+    private static final long SAFE_SUM_LIMIT = Long.MAX_VALUE >> CHUNK_BITS;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle DOUBLES = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle VIEWS = MethodHandles.arrayElementVarHandle(Account[].class);
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+
+    /**
+     * 一块连续序号的账户列。saved* 为快照周期开始时的旧值，savedEpoch 为保存时的周期，初始为无效周期。
+     */
+    static final class Chunk {
+        final long[] balanceCents = new long[CHUNK_SIZE];
+        final double[] interestRate = new double[CHUNK_SIZE];
+        final long[] interestPostedDay = new long[CHUNK_SIZE];
+        final long[] savedEpoch = new long[CHUNK_SIZE];
+        final long[] savedBalanceCents = new long[CHUNK_SIZE];
+        final double[] savedInterestRate = new double[CHUNK_SIZE];
+        final long[] savedInterestPostedDay = new long[CHUNK_SIZE];
+        final Account[] views = new Account[CHUNK_SIZE];
+
+        Chunk() {
+            Arrays.fill(savedEpoch, Long.MIN_VALUE);
+        }
+
+        long balanceCents(int slot) { return (long) LONGS.getVolatile(balanceCents, slot); }
+
+        void setBalanceCents(int slot, long value) { LONGS.setVolatile(balanceCents, slot, value); }
+
+        double interestRate(int slot) { return (double) DOUBLES.getVolatile(interestRate, slot); }
+
+        void setInterestRate(int slot, double value) { DOUBLES.setVolatile(interestRate, slot, value); }
+
+        long interestPostedDay(int slot) { return (long) LONGS.getVolatile(interestPostedDay, slot); }
+
+        void setInterestPostedDay(int slot, long value) { LONGS.setVolatile(interestPostedDay, slot, value); }
+
+        /**
+         * 本周期内第一次修改前保存旧值：先写旧值列，最后发布周期号。
+         */
+        void beforeWrite(int slot, long epoch) {
+            if ((long) LONGS.getVolatile(savedEpoch, slot) != epoch) {
+                savedBalanceCents[slot] = balanceCents[slot];
+                savedInterestRate[slot] = interestRate[slot];
+                savedInterestPostedDay[slot] = interestPostedDay[slot];
+                LONGS.setVolatile(savedEpoch, slot, epoch);
+            }
+        }
+
+        /**
+         * 快照读取：调用方已先读过当前值，周期号匹配时旧值列一定可见。
+         */
+        boolean savedIn(int slot, long epoch) {
+            return (long) LONGS.getVolatile(savedEpoch, slot) == epoch;
+        }
+    }
+
+    /**
+     * 把账户加入存储：分配下一个序号，把账户当前的数值写入各列，账户此后成为该位置的视图。
+     * @param account 尚未加入任何存储的账户
+     * @throws IllegalStateException 账户已属于某个存储
+     */
+    public synchronized void add(Account account) {
+        int ordinal = size;
+        int index = ordinal >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+        if (index == current.length) {
+            current = Arrays.copyOf(current, index + 1);
+            current[index] = new Chunk();
+            chunks = current;
+        }
+        Chunk chunk = current[index];
+        int slot = ordinal & CHUNK_MASK;
+        account.attach(chunk, slot);
+        VIEWS.setRelease(chunk.views, slot, account);
+        size = ordinal + 1;
+    }
+
+    /**
+     * 清空存储后依次加入账户。只在加载时调用，此前取得的视图不再属于本存储。
+     * @param accounts 账户
+     */
+    public synchronized void reset(Collection<Account> accounts) {
+        chunks = new Chunk[0];
+        size = 0;
+        for (Account account : accounts) {
+            add(account);
+        }
+    }
+
+    /**
+     * 账户数。
+     * @return 账户数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 全部账户的只读视图，按序号迭代，迭代开始后加入的账户不一定可见。
+     * @return 账户集合
+     */
+    public Collection<Account> accounts() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Account> iterator() {
+                int end = size;
+                Chunk[] snapshot = chunks;
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < end;
+                    }
+
+                    @Override
+                    public Account next() {
+                        if (next >= end) {
+                            throw new NoSuchElementException();
+                        }
+                        int ordinal = next++;
+                        return (Account) VIEWS.getAcquire(snapshot[ordinal >>> CHUNK_BITS].views, ordinal & CHUNK_MASK);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * 余额合计（分）。余额均不为负，溢出时取最大值。
+     * @return 余额合计（分）
+     */
+    public long totalBalanceCents() {
+        int end = size;
+        Chunk[] snapshot = chunks;
+        long total = 0;
+        for (int base = 0; base < end; base += CHUNK_SIZE) {
+            long[] column = snapshot[base >>> CHUNK_BITS].balanceCents;
+            int n = Math.min(CHUNK_SIZE, end - base);
+            long sum = 0;
+            long bits = 0;
+            for (int i = 0; i < n; i++) {
+                sum += column[i];
+                bits |= column[i];
+            }
+            if (bits < 0 || bits >= SAFE_SUM_LIMIT) {
+                sum = saturatingSum(column, n);
+            }
+            long next = total + sum;
+            total = next < total ? Long.MAX_VALUE : next;
+        }
+        return total;
+    }
+
+    private static long saturatingSum(long[] column, int n) {
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            long next = sum + Math.max(0, column[i]);
+            sum = next < sum ? Long.MAX_VALUE : next;
+        }
+        return sum;
+    }
+
+    /**
+     * 尚未计息到指定日期的账户：只扫描计息日期列，命中的位置才取出账户视图。
+     * @param day 计息日期（自 1970-01-01 起的天数）
+     * @return 计息日期早于该日期的账户
+     */
+    public List<Account> dueForInterest(long day) {
+        int end = size;
+        Chunk[] snapshot = chunks;
+        List<Account> due = new ArrayList<>();
+        for (int base = 0; base < end; base += CHUNK_SIZE) {
+            Chunk chunk = snapshot[base >>> CHUNK_BITS];
+            long[] column = chunk.interestPostedDay;
+            int n = Math.min(CHUNK_SIZE, end - base);
+            for (int i = 0; i < n; i++) {
+                if (column[i] < day) {
+                    due.add((Account) VIEWS.getAcquire(chunk.views, i));
+                }
+            }
+        }
+        return due;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.banking.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchTransferRequest
+ *
+ * 批量转账请求。atomic 为 true（默认）时全部成功才生效，任何一笔失败则全部不执行；
+ * 为 false 时逐笔执行，失败的转账不影响其他转账。
+ */
+public class BatchTransferRequest {
+    private boolean atomic = true;
+    private List<TransferLeg> legs = new ArrayList<>();
+
+    /**
+     * 是否全部成功才生效。
+     * @return 原子模式返回 true
+     */
+    public boolean isAtomic() { return atomic; }
+
+    /**
+     * 设置是否全部成功才生效。
+     * @param atomic 是否原子执行
+     */
+    public void setAtomic(boolean atomic) { this.atomic = atomic; }
+
+    /**
+     * 获取转账列表。
+     * @return 转账列表
+     */
+    public List<TransferLeg> getLegs() { return legs; }
+
+    /**
+     * 设置转账列表。
+     * @param legs 转账列表
+     */
+    public void setLegs(List<TransferLeg> legs) { this.legs = legs; }
+}
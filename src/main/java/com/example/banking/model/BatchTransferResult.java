@@ -0,0 +1,70 @@
+package com.example.banking.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BatchTransferResult
+ *
+ * 批量转账结果，legs 与请求中的转账一一对应，给出每笔转账的处理状态。
+ */
+public class BatchTransferResult {
+
+    /**
+     * 单笔转账的处理状态，也用作单独的转账、充值和取款的处理结果。
+     */
+    public enum Status {
+        /** 已执行 */
+        OK,
+        /** 转出或转入账户不存在 */
+        ACCOUNT_NOT_FOUND,
+        /** 金额不是正数 */
+        INVALID_AMOUNT,
+        /** 执行到这一笔时转出账户余额不足 */
+        INSUFFICIENT_FUNDS,
+        /** 转入账户余额将溢出 */
+        OVERFLOW,
+        /** 原子模式下因其他转账失败而未执行，或跨银行提交失败而未执行 */
+        ABORTED
+    }
+
+    private final boolean atomic;
+    private final int applied;
+    private final List<Status> legs;
+
+    /**
+     * 构造结果。
+     * @param atomic 是否原子模式
+     * @param applied 已执行的转账笔数
+     * @param legs 每笔转账的状态
+     */
+    public BatchTransferResult(boolean atomic, int applied, List<Status> legs) {
+        this.atomic = atomic;
+        this.applied = applied;
+        this.legs = Collections.unmodifiableList(legs);
+    }
+
+    /**
+     * 是否原子模式。
+     * @return 原子模式返回 true
+     */
+    public boolean isAtomic() { return atomic; }
+
+    /**
+     * 全部转账是否都已执行。
+     * @return 全部执行返回 true
+     */
+    public boolean isSuccess() { return applied == legs.size(); }
+
+    /**
+     * 获取已执行的转账笔数。
+     * @return 笔数
+     */
+    public int getApplied() { return applied; }
+
+    /**
+     * 获取每笔转账的状态。
+     * @return 状态列表，与请求顺序一致
+     */
+    public List<Status> getLegs() { return legs; }
+}
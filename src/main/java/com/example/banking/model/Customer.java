@@ -4,6 +4,7 @@ package com.example.banking.model;
  * Customer
  *
  * 客户模型类，包含客户的基本信息，如ID、姓名、用户名、密码哈希、银行卡号、所属银行ID列表和角色列表。
+ * 姓名和密码哈希可在运行时修改，与 {@link Account} 一样在修改前保存快照周期开始时的旧值。
  */
 import java.util.ArrayList;
 import java.util.List;
@@ -14,12 +15,28 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 public class Customer {
     private String id;
-    private String name;
+    private volatile String name;
     private String username;
-    private String passwordHash;
+    private volatile String passwordHash;
     private String cardNumber;
     private List<String> bankIds = new ArrayList<>();
     private List<String> roles = new ArrayList<>();
+    private volatile Saved saved;
+
+    /**
+     * 某个快照周期开始时的姓名和密码哈希。
+     */
+    private static final class Saved {
+        final long epoch;
+        final String name;
+        final String passwordHash;
+
+        Saved(long epoch, String name, String passwordHash) {
+            this.epoch = epoch;
+            this.name = name;
+            this.passwordHash = passwordHash;
+        }
+    }
 
     /**
      * 默认构造函数，初始化角色为ROLE_USER。
@@ -147,4 +164,37 @@ public class Customer {
                 .map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    /**
+     * 修改姓名或密码之前调用，须持有客户锁。本周期内第一次修改时保存修改前的状态。
+     * @param epoch 当前快照周期
+     */
+    public void beforeWrite(long epoch) {
+        Saved s = saved;
+        if (s == null || s.epoch != epoch) {
+            saved = new Saved(epoch, name, passwordHash);
+        }
+    }
+
+    /**
+     * 获取快照周期开始时的姓名。
+     * @param epoch 快照周期
+     * @return 客户姓名
+     */
+    public String nameAt(long epoch) {
+        String current = name;
+        Saved s = saved;
+        return s != null && s.epoch == epoch ? s.name : current;
+    }
+
+    /**
+     * 获取快照周期开始时的密码哈希。
+     * @param epoch 快照周期
+     * @return 密码哈希
+     */
+    public String passwordHashAt(long epoch) {
+        String current = passwordHash;
+        Saved s = saved;
+        return s != null && s.epoch == epoch ? s.passwordHash : current;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.banking.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DashboardView
+ *
+ * 客户主页所需数据的不可变快照：客户、带银行名称的账户余额、合计以及可开户的银行列表。
+ * 由 BankingService 按客户缓存，涉及该客户的修改使其失效后重新生成。
+ */
+public class DashboardView {
+    private final Customer customer;
+    private final List<AccountLine> accounts;
+    private final List<Bank> banks;
+    private final long totalBalanceCents;
+    private final double totalAnnualInterest;
+
+    /**
+     * 主页上的一个账户：生成快照时的余额和利率，银行名称已解析。
+     */
+    public static class AccountLine {
+        private final String id;
+        private final String bankId;
+        private final String bankName;
+        private final long balanceCents;
+        private final double interestRate;
+
+        /**
+         * 构造账户行。
+         * @param id 账户ID
+         * @param bankId 银行ID
+         * @param bankName 银行名称
+         * @param balanceCents 余额（分）
+         * @param interestRate 利率
+         */
+        public AccountLine(String id, String bankId, String bankName, long balanceCents, double interestRate) {
+            this.id = id;
+            this.bankId = bankId;
+            this.bankName = bankName;
+            this.balanceCents = balanceCents;
+            this.interestRate = interestRate;
+        }
+
+        /**
+         * 获取账户ID。
+         * @return 账户ID
+         */
+        public String getId() { return id; }
+
+        /**
+         * 获取银行ID。
+         * @return 银行ID
+         */
+        public String getBankId() { return bankId; }
+
+        /**
+         * 获取银行名称。
+         * @return 银行名称
+         */
+        public String getBankName() { return bankName; }
+
+        /**
+         * 获取余额（分）。
+         * @return 余额（分）
+         */
+        public long getBalanceCents() { return balanceCents; }
+
+        /**
+         * 获取余额。
+         * @return 余额（元）
+         */
+        public double getBalance() { return Money.toDouble(balanceCents); }
+
+        /**
+         * 获取利率。
+         * @return 利率
+         */
+        public double getInterestRate() { return interestRate; }
+
+        /**
+         * 获取按当前余额和利率估算的一年利息。
+         * @return 一年利息（元）
+         */
+        public double getAnnualInterest() { return getBalance() * interestRate; }
+    }
+
+    /**
+     * 构造主页快照。
+     * @param customer 客户
+     * @param accounts 账户行
+     * @param banks 银行列表
+     */
+    public DashboardView(Customer customer, List<AccountLine> accounts, List<Bank> banks) {
+        this.customer = customer;
+        this.accounts = Collections.unmodifiableList(accounts);
+        this.banks = Collections.unmodifiableList(banks);
+        long balance = 0;
+        double interest = 0;
+        for (AccountLine line : accounts) {
+            // 余额均不为负，溢出时取最大值
+            long sum = balance + line.getBalanceCents();
+            balance = sum < balance ? Long.MAX_VALUE : sum;
+            interest += line.getAnnualInterest();
+        }
+        this.totalBalanceCents = balance;
+        this.totalAnnualInterest = interest;
+    }
+
+    /**
+     * 获取客户。
+     * @return 客户对象
+     */
+    public Customer getCustomer() { return customer; }
+
+    /**
+     * 获取客户的账户。
+     * @return 账户行列表
+     */
+    public List<AccountLine> getAccounts() { return accounts; }
+
+    /**
+     * 获取银行列表。
+     * @return 银行列表
+     */
+    public List<Bank> getBanks() { return banks; }
+
+    /**
+     * 获取全部账户的余额合计（分）。
+     * @return 余额合计（分）
+     */
+    public long getTotalBalanceCents() { return totalBalanceCents; }
+
+    /**
+     * 获取全部账户的余额合计。
+     * @return 余额合计（元）
+     */
+    public double getTotalBalance() { return Money.toDouble(totalBalanceCents); }
+
+    /**
+     * 获取全部账户的一年利息合计。
+     * @return 一年利息合计（元）
+     */
+    public double getTotalAnnualInterest() { return totalAnnualInterest; }
+}
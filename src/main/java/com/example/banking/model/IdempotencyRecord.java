@@ -0,0 +1,66 @@
+package com.example.banking.model;
+
+/**
+ * IdempotencyRecord
+ *
+ * 一次已生效的资金操作的幂等记录：客户范围内的幂等键、请求摘要（操作类型、账户和金额）和首次处理的时间。
+ * 与该操作的账户变更写在同一条日志记录中，随所在分片的快照保存，重启后同一幂等键的重试仍被识别为重复请求。
+ */
+public class IdempotencyRecord {
+    private String key;
+    private String request;
+    private long createdAt;
+
+    /**
+     * 默认构造函数。
+     */
+    public IdempotencyRecord() {}
+
+    /**
+     * 构造幂等记录。
+     * @param key 幂等键（含客户ID前缀）
+     * @param request 请求摘要
+     * @param createdAt 首次处理时间（毫秒时间戳）
+     */
+    public IdempotencyRecord(String key, String request, long createdAt) {
+        this.key = key;
+        this.request = request;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * 获取幂等键。
+     * @return 幂等键（含客户ID前缀）
+     */
+    public String getKey() { return key; }
+
+    /**
+     * 设置幂等键。
+     * @param key 幂等键
+     */
+    public void setKey(String key) { this.key = key; }
+
+    /**
+     * 获取请求摘要，同一幂等键的重试必须与之相同。
+     * @return 请求摘要
+     */
+    public String getRequest() { return request; }
+
+    /**
+     * 设置请求摘要。
+     * @param request 请求摘要
+     */
+    public void setRequest(String request) { this.request = request; }
+
+    /**
+     * 获取首次处理时间。
+     * @return 毫秒时间戳
+     */
+    public long getCreatedAt() { return createdAt; }
+
+    /**
+     * 设置首次处理时间。
+     * @param createdAt 毫秒时间戳
+     */
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,100 @@
+package com.example.banking.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * InterestRunReport
+ *
+ * 一次计息任务的统计：处理的账户数、入账的账户数、失败数、利息总额、耗时和吞吐量。
+ * completed 为 false 表示任务被中断，未处理的账户会在下次运行时继续计息。
+ */
+public class InterestRunReport {
+    private final LocalDate date;
+    private final long accounts;
+    private final long credited;
+    private final long failed;
+    private final long interestCents;
+    private final long elapsedNanos;
+    private final boolean completed;
+
+    /**
+     * 构造统计结果。
+     * @param date 计息日期
+     * @param accounts 处理的账户数
+     * @param credited 利息大于 0 并已入账的账户数
+     * @param failed 因余额溢出等原因未能计息的账户数
+     * @param interestCents 利息总额（分）
+     * @param elapsedNanos 耗时（纳秒）
+     * @param completed 是否处理完全部账户
+     */
+    public InterestRunReport(LocalDate date, long accounts, long credited, long failed, long interestCents,
+                             long elapsedNanos, boolean completed) {
+        this.date = date;
+        this.accounts = accounts;
+        this.credited = credited;
+        this.failed = failed;
+        this.interestCents = interestCents;
+        this.elapsedNanos = elapsedNanos;
+        this.completed = completed;
+    }
+
+    /**
+     * 获取计息日期。
+     * @return 计息日期
+     */
+    public LocalDate getDate() { return date; }
+
+    /**
+     * 获取处理的账户数。
+     * @return 账户数
+     */
+    public long getAccounts() { return accounts; }
+
+    /**
+     * 获取已入账的账户数。
+     * @return 账户数
+     */
+    public long getCredited() { return credited; }
+
+    /**
+     * 获取未能计息的账户数。
+     * @return 账户数
+     */
+    public long getFailed() { return failed; }
+
+    /**
+     * 获取利息总额（元）。
+     * @return 利息总额
+     */
+    public BigDecimal getTotalInterest() { return Money.toDecimal(interestCents); }
+
+    /**
+     * 获取以分为单位的利息总额。
+     * @return 利息总额（分）
+     */
+    @JsonIgnore
+    public long getInterestCents() { return interestCents; }
+
+    /**
+     * 获取耗时（毫秒）。
+     * @return 耗时
+     */
+    public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+    /**
+     * 获取吞吐量。
+     * @return 每秒处理的账户数
+     */
+    public long getAccountsPerSecond() {
+        return elapsedNanos > 0 ? (long) (accounts * 1e9 / elapsedNanos) : accounts;
+    }
+
+    /**
+     * 是否处理完全部账户。
+     * @return 处理完成返回 true
+     */
+    public boolean isCompleted() { return completed; }
+}
@@ -0,0 +1,126 @@
+package com.example.banking.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * LedgerEntry
+ *
+ * 交易流水中的一条记录：某个账户的一次余额变动。
+ * amount 为带符号的变动金额（入账为正、出账为负），balanceAfter 为变动后的余额，
+ * 转账记录的 counterpartyId 为对方账户ID，其他类型为 null。
+ */
+public class LedgerEntry {
+
+    /**
+     * 流水类型。序号写入账本文件，只能在末尾追加新类型。
+     */
+    public enum Type {
+        /** 转账转出 */
+        TRANSFER_OUT,
+        /** 转账转入 */
+        TRANSFER_IN,
+        /** 充值 */
+        RECHARGE,
+        /** 取款 */
+        WITHDRAW,
+        /** 利息入账 */
+        INTEREST,
+        /** 管理员调整余额 */
+        ADJUSTMENT
+    }
+
+    private final long seq;
+    private final long timestamp;
+    private final String accountId;
+    private final String counterpartyId;
+    private final Type type;
+    private final long amountCents;
+    private final long balanceAfterCents;
+
+    /**
+     * 构造流水记录。
+     * @param seq 流水号，全局递增
+     * @param timestamp 时间戳（毫秒）
+     * @param accountId 账户ID
+     * @param counterpartyId 对方账户ID，可为 null
+     * @param type 流水类型
+     * @param amountCents 变动金额（分），入账为正、出账为负
+     * @param balanceAfterCents 变动后余额（分）
+     */
+    public LedgerEntry(long seq, long timestamp, String accountId, String counterpartyId, Type type,
+                       long amountCents, long balanceAfterCents) {
+        this.seq = seq;
+        this.timestamp = timestamp;
+        this.accountId = accountId;
+        this.counterpartyId = counterpartyId;
+        this.type = type;
+        this.amountCents = amountCents;
+        this.balanceAfterCents = balanceAfterCents;
+    }
+
+    /**
+     * 获取流水号。
+     * @return 流水号
+     */
+    public long getSeq() { return seq; }
+
+    /**
+     * 获取发生时间。
+     * @return 时间
+     */
+    public Instant getTime() { return Instant.ofEpochMilli(timestamp); }
+
+    /**
+     * 获取时间戳。
+     * @return 自 1970-01-01 起的毫秒数
+     */
+    @JsonIgnore
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * 获取账户ID。
+     * @return 账户ID
+     */
+    public String getAccountId() { return accountId; }
+
+    /**
+     * 获取对方账户ID。
+     * @return 对方账户ID，非转账记录为 null
+     */
+    public String getCounterpartyId() { return counterpartyId; }
+
+    /**
+     * 获取流水类型。
+     * @return 流水类型
+     */
+    public Type getType() { return type; }
+
+    /**
+     * 获取变动金额（元）。
+     * @return 变动金额，入账为正、出账为负
+     */
+    public BigDecimal getAmount() { return Money.toDecimal(amountCents); }
+
+    /**
+     * 获取以分为单位的变动金额。
+     * @return 变动金额（分）
+     */
+    @JsonIgnore
+    public long getAmountCents() { return amountCents; }
+
+    /**
+     * 获取变动后余额（元）。
+     * @return 余额
+     */
+    public BigDecimal getBalanceAfter() { return Money.toDecimal(balanceAfterCents); }
+
+    /**
+     * 获取以分为单位的变动后余额。
+     * @return 余额（分）
+     */
+    @JsonIgnore
+    public long getBalanceAfterCents() { return balanceAfterCents; }
+}
@@ -0,0 +1,94 @@
+package com.example.banking.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money
+ *
+ * 金额的定点表示工具类。余额在内存中以 long 类型的“分”存储，
+ * 运算只用整数加减并做溢出检查，不产生对象分配；
+ * 只有在解析外部输入和旧数据中的小数金额时才使用 BigDecimal，按银行家舍入精确到分。
+ */
+public final class Money {
+    /**
+     * 金额的小数位数。
+     */
+    public static final int SCALE = 2;
+
+    private static final BigDecimal MAX_AMOUNT = BigDecimal.valueOf(Long.MAX_VALUE, SCALE);
+    private static final BigDecimal MIN_AMOUNT = BigDecimal.valueOf(Long.MIN_VALUE, SCALE);
+
+    private Money() {}
+
+    /**
+     * 把小数金额转换为分，按 HALF_EVEN 舍入到两位小数。
+     * @param amount 金额
+     * @return 以分为单位的金额
+     * @throws ArithmeticException 超出 long 范围
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * 把小数金额转换为分，超出 long 范围时取 {@link Long#MIN_VALUE} 或 {@link Long#MAX_VALUE}。
+     * 用于只参与比较的查询条件，如按余额范围筛选账户。
+     * @param amount 金额
+     * @return 以分为单位的金额
+     */
+    public static long toCentsSaturated(BigDecimal amount) {
+        if (amount.compareTo(MAX_AMOUNT) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (amount.compareTo(MIN_AMOUNT) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        return toCents(amount);
+    }
+
+    /**
+     * 把 double 金额转换为分。先按 double 的最短十进制表示转为 BigDecimal，
+     * 因此 data.json 中的 0.1、99.99 等值可以精确还原。
+     * @param amount 金额
+     * @return 以分为单位的金额
+     * @throws ArithmeticException 超出 long 范围
+     * @throws NumberFormatException 金额为 NaN 或无穷大
+     */
+    public static long toCents(double amount) {
+        return toCents(BigDecimal.valueOf(amount));
+    }
+
+    /**
+     * 把 JSON 解析得到的数值转换为分，支持整数、double 和 BigDecimal。
+     * @param amount 数值
+     * @return 以分为单位的金额
+     */
+    public static long toCents(Number amount) {
+        if (amount instanceof BigDecimal) {
+            return toCents((BigDecimal) amount);
+        }
+        if (amount instanceof Integer || amount instanceof Long || amount instanceof Short || amount instanceof Byte) {
+            return Math.multiplyExact(amount.longValue(), 100L);
+        }
+        return toCents(amount.doubleValue());
+    }
+
+    /**
+     * 把分转换为 double，仅用于页面显示和 JSON 输出。
+     * @param cents 以分为单位的金额
+     * @return 金额
+     */
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * 把分转换为精确的 BigDecimal。
+     * @param cents 以分为单位的金额
+     * @return 金额
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+}
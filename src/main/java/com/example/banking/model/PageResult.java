@@ -0,0 +1,63 @@
+package com.example.banking.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * PageResult
+ *
+ * 分页查询结果。只包含当前页的数据和是否还有下一页，不统计总数，
+ * 因此查询代价只与页码和每页条数有关，与数据总量无关。
+ *
+ * @param <T> 元素类型
+ */
+public class PageResult<T> {
+    private final List<T> items;
+    private final int page;
+    private final int size;
+    private final boolean hasNext;
+
+    /**
+     * 构造结果。
+     * @param items 当前页数据
+     * @param page 页码（从 0 开始）
+     * @param size 每页条数
+     * @param hasNext 是否还有下一页
+     */
+    public PageResult(List<T> items, int page, int size, boolean hasNext) {
+        this.items = Collections.unmodifiableList(items);
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * 获取当前页数据。
+     * @return 数据列表
+     */
+    public List<T> getItems() { return items; }
+
+    /**
+     * 获取页码。
+     * @return 页码（从 0 开始）
+     */
+    public int getPage() { return page; }
+
+    /**
+     * 获取每页条数。
+     * @return 每页条数
+     */
+    public int getSize() { return size; }
+
+    /**
+     * 是否还有下一页。
+     * @return 有下一页返回 true
+     */
+    public boolean isHasNext() { return hasNext; }
+
+    /**
+     * 是否有上一页。
+     * @return 有上一页返回 true
+     */
+    public boolean isHasPrevious() { return page > 0; }
+}
@@ -0,0 +1,84 @@
+package com.example.banking.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+
+/**
+ * TransferLeg
+ *
+ * 批量转账中的一笔转账：转出账户、转入账户和金额。
+ * 金额以分存储，JSON 中以小数形式的 amount 字段读写。
+ */
+public class TransferLeg {
+    private String fromAccountId;
+    private String toAccountId;
+    private long amountCents;
+
+    /**
+     * 默认构造函数。
+     */
+    public TransferLeg() {}
+
+    /**
+     * 带参数构造函数。
+     * @param fromAccountId 转出账户ID
+     * @param toAccountId 转入账户ID
+     * @param amountCents 金额（分）
+     */
+    public TransferLeg(String fromAccountId, String toAccountId, long amountCents) {
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.amountCents = amountCents;
+    }
+
+    /**
+     * 获取转出账户ID。
+     * @return 转出账户ID
+     */
+    public String getFromAccountId() { return fromAccountId; }
+
+    /**
+     * 设置转出账户ID。
+     * @param fromAccountId 转出账户ID
+     */
+    public void setFromAccountId(String fromAccountId) { this.fromAccountId = fromAccountId; }
+
+    /**
+     * 获取转入账户ID。
+     * @return 转入账户ID
+     */
+    public String getToAccountId() { return toAccountId; }
+
+    /**
+     * 设置转入账户ID。
+     * @param toAccountId 转入账户ID
+     */
+    public void setToAccountId(String toAccountId) { this.toAccountId = toAccountId; }
+
+    /**
+     * 获取金额（元）。
+     * @return 金额
+     */
+    public BigDecimal getAmount() { return Money.toDecimal(amountCents); }
+
+    /**
+     * 设置金额（元），按银行家舍入精确到分。
+     * @param amount 金额
+     */
+    public void setAmount(BigDecimal amount) { this.amountCents = Money.toCents(amount); }
+
+    /**
+     * 获取以分为单位的金额。
+     * @return 金额（分）
+     */
+    @JsonIgnore
+    public long getAmountCents() { return amountCents; }
+
+    /**
+     * 设置以分为单位的金额。
+     * @param amountCents 金额（分）
+     */
+    @JsonIgnore
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
+}
@@ -0,0 +1,356 @@
+package com.example.banking.service;
+
+import com.example.banking.config.BankingProperties;
+import com.example.banking.model.Account;
+import com.example.banking.model.AccountStore;
+import com.example.banking.model.Bank;
+import com.example.banking.model.Customer;
+import com.example.banking.model.IdempotencyRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AccountShard
+ *
+ * 一家银行的账户分片：该银行的全部账户（数值按列存放在 {@link AccountStore} 中）、独立的条带锁和独立的持久化文件
+ * （data.shards/&lt;银行ID&gt;.json 或 .snap 快照及同名日志，各有自己的组提交写线程和快照线程）。
+ * 同一银行内的修改只锁本分片的条带、只写本分片的日志，一家银行的写入高峰不会拖慢其他银行；
+ * 启动时各分片并行加载。
+ * <p>
+ * 跨分片的修改由 BankingService 以两阶段提交完成：先由 {@link #prepare} 在每个分片写入带事务号的
+ * 修改后状态并等待落盘，再在主日志中写入提交记录，最后修改内存并由 {@link #persist} 写入普通账户记录。
+ * 加载时 prepared 状态只在其后没有同一账户的普通记录、且事务号已提交时才生效（见 {@link Loaded}）。
+ * <p>
+ * 转出（或充值、取款）账户在本分片的请求，其幂等键登记在本分片的 {@link IdempotencyTable} 中，
+ * 幂等记录与账户变更写在同一条日志记录里，随分片快照保存。
+ */
+public class AccountShard implements Closeable {
+    private static final String DATA_SUFFIX = ".json";
+
+    private final String bankId;
+    private final AccountStore store = new AccountStore();
+    private final StripedLocks locks;
+    private final DataJournal journal;
+    private final IdempotencyTable requests;
+    private volatile long snapshotEpoch;
+
+    /**
+     * 创建分片，写线程需调用 {@link #start()} 启动。
+     * @param bankId 银行ID
+     * @param dir 分片文件所在目录
+     * @param objectMapper JSON 序列化器
+     * @param persistence 持久化配置
+     * @param idempotency 幂等键配置
+     * @param lockStripes 条带锁数量
+     */
+    public AccountShard(String bankId, Path dir, ObjectMapper objectMapper,
+                        BankingProperties.Persistence persistence, BankingProperties.Idempotency idempotency,
+                        int lockStripes) {
+        this.bankId = bankId;
+        this.locks = new StripedLocks(lockStripes);
+        this.requests = new IdempotencyTable(idempotency.getMaxKeys(), idempotency.getTtl().toMillis());
+        this.journal = new DataJournal(dir.resolve(fileNameOf(bankId)), objectMapper,
+                persistence.getCheckpointInterval(), persistence.getMaxBatchSize(),
+                persistence.getDurability(), persistence.getSnapshotFormat(), this::writeSnapshot);
+    }
+
+    /**
+     * 银行ID对应的数据文件名（JSON 快照的文件名，其他快照和日志为其兄弟文件）。
+     * ID 经 URL 编码，点号也被编码，保证兄弟文件名不被截断。
+     * @param bankId 银行ID
+     * @return 文件名
+     */
+    static String fileNameOf(String bankId) {
+        return URLEncoder.encode(bankId, StandardCharsets.UTF_8).replace(".", "%2E") + DATA_SUFFIX;
+    }
+
+    /**
+     * 从分片文件名（任一格式的快照或日志）还原银行ID。
+     * @param fileName 文件名
+     * @return 银行ID，不是分片文件时返回 null
+     */
+    static String bankIdOf(String fileName) {
+        int dot = fileName.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String suffix = fileName.substring(dot);
+        boolean shardFile = suffix.startsWith(".journal");
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            shardFile |= suffix.equals(format.extension());
+        }
+        if (!shardFile) {
+            return null;
+        }
+        try {
+            return URLDecoder.decode(fileName.substring(0, dot), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 加载结果：分片中的账户、幂等记录和尚未确认的 prepared 状态。
+     */
+    public static final class Loaded implements DataReader.Sink {
+        final Map<String, Account> accounts = new LinkedHashMap<>();
+        final Map<String, Account> prepared = new LinkedHashMap<>();
+        final Map<String, String> preparedTx = new LinkedHashMap<>();
+        final List<IdempotencyRecord> requests = new ArrayList<>();
+        final Map<String, List<IdempotencyRecord>> preparedRequests = new HashMap<>();
+
+        @Override
+        public void bank(Bank bank) {}
+
+        @Override
+        public void customer(Customer customer) {}
+
+        @Override
+        public void account(Account account) {
+            accounts.put(account.getId(), account);
+            // 准备之后写入的普通记录说明事务已完成应用，prepared 状态不再需要
+            prepared.remove(account.getId());
+            preparedTx.remove(account.getId());
+        }
+
+        @Override
+        public void prepared(String tx, Account account) {
+            prepared.put(account.getId(), account);
+            preparedTx.put(account.getId(), tx);
+        }
+
+        @Override
+        public void request(IdempotencyRecord record) {
+            requests.add(record);
+        }
+
+        @Override
+        public void preparedRequest(String tx, IdempotencyRecord record) {
+            preparedRequests.computeIfAbsent(tx, k -> new ArrayList<>()).add(record);
+        }
+
+        /**
+         * 应用事务号已提交的 prepared 状态和幂等记录，丢弃其余的（事务未提交，视为回滚）。
+         * @param committed 已提交的事务号
+         * @return 应用的 prepared 状态数
+         */
+        int resolve(Collection<String> committed) {
+            for (Map.Entry<String, List<IdempotencyRecord>> e : preparedRequests.entrySet()) {
+                if (committed.contains(e.getKey())) {
+                    requests.addAll(e.getValue());
+                }
+            }
+            preparedRequests.clear();
+            int applied = 0;
+            for (Map.Entry<String, Account> e : prepared.entrySet()) {
+                if (committed.contains(preparedTx.get(e.getKey()))) {
+                    accounts.put(e.getKey(), e.getValue());
+                    applied++;
+                }
+            }
+            prepared.clear();
+            preparedTx.clear();
+            return applied;
+        }
+
+        /**
+         * 加载到的账户。
+         * @return 账户，按ID去重
+         */
+        public Collection<Account> accounts() {
+            return accounts.values();
+        }
+
+        /**
+         * 加载到的幂等记录。
+         * @return 幂等记录，同一键可能出现多次
+         */
+        public List<IdempotencyRecord> requests() {
+            return requests;
+        }
+    }
+
+    /**
+     * 读取分片快照并重放日志。
+     * @return 加载结果，prepared 状态尚未处理，须调用 {@link Loaded#resolve}
+     * @throws IOException 读取失败
+     */
+    public Loaded load() throws IOException {
+        Loaded loaded = new Loaded();
+        journal.readSnapshot(loaded);
+        journal.replay(loaded);
+        return loaded;
+    }
+
+    /**
+     * 启动日志写线程。应在加载完成之后调用。
+     */
+    public void start() {
+        journal.start();
+    }
+
+    /**
+     * 获取银行ID。
+     * @return 银行ID
+     */
+    public String getBankId() { return bankId; }
+
+    /**
+     * 获取本分片的条带锁。
+     * @return 条带锁
+     */
+    public StripedLocks locks() { return locks; }
+
+    /**
+     * 获取本分片的日志。
+     * @return 日志
+     */
+    public DataJournal journal() { return journal; }
+
+    /**
+     * 当前快照周期，修改账户前传给 {@link Account#beforeWrite(long)}。
+     * @return 快照周期
+     */
+    public long snapshotEpoch() { return snapshotEpoch; }
+
+    /**
+     * 本分片的账户。
+     * @return 账户的只读视图
+     */
+    public Collection<Account> accounts() { return store.accounts(); }
+
+    /**
+     * 本分片的幂等键表。
+     * @return 幂等键表
+     */
+    public IdempotencyTable requests() { return requests; }
+
+    /**
+     * 本分片的列存储，用于合计等批量操作。
+     * @return 账户存储
+     */
+    public AccountStore store() { return store; }
+
+    /**
+     * 加入一个账户，账户此后成为列存储的视图。
+     * @param account 账户对象
+     */
+    public void add(Account account) {
+        store.add(account);
+    }
+
+    /**
+     * 清空后加入加载到的账户。
+     * @param loaded 账户
+     */
+    public void reset(Collection<Account> loaded) {
+        store.reset(loaded);
+    }
+
+    /**
+     * 追加一条账户变更记录。应在持有账户锁时调用。
+     * @param request 随变更一起写入的幂等记录，可为 null
+     * @param changed 变更后的账户
+     * @return 记录落盘后完成的 Future；宽松模式下立即完成
+     * @throws IOException 序列化失败或日志已关闭
+     */
+    public CompletableFuture<Void> persist(IdempotencyRecord request, Account... changed) throws IOException {
+        return journal.append(record(request, Arrays.asList(changed)));
+    }
+
+    /**
+     * 两阶段提交的应用阶段：内存已修改后写入普通账户记录。
+     * 返回的 Future 在记录实际落盘后完成，与持久化模式无关。应在持有账户锁时调用。
+     * @param changed 变更后的账户
+     * @param request 随变更一起写入的幂等记录，可为 null
+     * @return 记录落盘后完成的 Future
+     * @throws IOException 序列化失败或日志已关闭
+     */
+    public CompletableFuture<Void> apply(List<Account> changed, IdempotencyRecord request) throws IOException {
+        return journal.appendDurable(record(request, changed));
+    }
+
+    private static Map<String, Object> record(IdempotencyRecord request, List<Account> changed) {
+        return request == null ? Map.of("accounts", changed)
+                : Map.of("accounts", changed, "requests", List.of(request));
+    }
+
+    /**
+     * 两阶段提交的准备阶段：写入带事务号的修改后状态，内存中的账户不变。
+     * 返回的 Future 在记录实际落盘后完成，与持久化模式无关。应在持有账户锁时调用。
+     * @param tx 事务号
+     * @param accounts 账户
+     * @param balancesCents 对应账户修改后的余额（分）
+     * @param request 事务提交后才生效的幂等记录，可为 null
+     * @return 记录落盘后完成的 Future
+     * @throws IOException 序列化失败或日志已关闭
+     */
+    public CompletableFuture<Void> prepare(String tx, List<Account> accounts, long[] balancesCents,
+                                           IdempotencyRecord request) throws IOException {
+        List<Account> states = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(i);
+            Account state = new Account(account.getId(), account.getCustomerId(), account.getBankId());
+            state.setBalanceCents(balancesCents[i]);
+            state.setInterestRate(account.getInterestRate());
+            state.setInterestPostedDay(account.getInterestPostedDay());
+            states.add(state);
+        }
+        Map<String, Object> prepared = new LinkedHashMap<>();
+        prepared.put("tx", tx);
+        prepared.put("accounts", states);
+        if (request != null) {
+            prepared.put("requests", List.of(request));
+        }
+        return journal.appendDurable(Map.of("prepared", List.of(prepared)));
+    }
+
+    /**
+     * 写入分片快照并清空日志。
+     * @throws IOException 写入失败
+     */
+    public void checkpoint() throws IOException {
+        journal.checkpoint();
+    }
+
+    /**
+     * 写出分片快照，在本分片的快照线程中调用。与主数据快照相同，先在全部条带锁内推进快照周期；
+     * 幂等记录在账户锁内标记为已落盘，因此此后写出的记录包含轮换掉的旧日志中的全部记录。
+     */
+    private void writeSnapshot(SnapshotFormat.Output output) throws IOException {
+        long epoch;
+        locks.lockAll();
+        try {
+            epoch = ++snapshotEpoch;
+        } finally {
+            locks.unlockAll();
+        }
+        for (Account account : store.accounts()) {
+            output.account(account, epoch);
+        }
+        requests.write(output);
+    }
+
+    /**
+     * 写完剩余日志并关闭。
+     * @throws IOException 关闭失败
+     */
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.banking.service;
+
+/**
+ * AuthenticationBusyException
+ *
+ * 密码校验线程池繁忙（排队已满或等待超时）时抛出，调用方应提示用户稍后重试，
+ * 而不是按密码错误处理。
+ */
+public class AuthenticationBusyException extends RuntimeException {
+
+    /**
+     * 构造异常。
+     * @param message 异常信息
+     */
+    public AuthenticationBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.banking.service;
+
+import com.example.banking.model.Money;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BankingMetrics
+ *
+ * 银行业务的 Micrometer 指标，通过 Actuator 的 /actuator/prometheus 端点输出。
+ * <ul>
+ *   <li>banking.operation：转账、充值、取款、登录、保存和加载的耗时，按 operation 和 outcome（success/failure）区分，
+ *       带 p50/p99/p999 分位数，计数即成功/失败次数</li>
+ *   <li>banking.persisted：写入日志和快照的累计字节数，按 kind 区分</li>
+ *   <li>banking.checkpoint：快照（含后台快照）的次数和累计耗时</li>
+ *   <li>banking.lock.wait / banking.lock.contended / banking.lock.waiting：锁的累计等待时间、等待次数和当前等待线程数</li>
+ *   <li>banking.journal.queue.depth、banking.auth.queue.depth、banking.ledger.records：队列长度和流水条数</li>
+ *   <li>banking.dashboard.cache.requests / banking.dashboard.cache.invalidations / banking.dashboard.cache.size：
+ *       主页缓存的命中和未命中次数（按 result 区分）、失效次数和条目数</li>
+ *   <li>banking.ratelimit.requests / banking.ratelimit.keys：限流放行和拒绝的请求数（按 scope 和 result 区分）、
+ *       跟踪的用户或地址数，由 {@link #bindRateLimiter} 在限流拦截器创建时注册</li>
+ * </ul>
+ * 日志和锁相关指标按 shard 区分：main 为银行和客户数据，其余为各银行账户分片的银行ID。
+ * <ul>
+ *   <li>banking.shard.accounts / banking.shard.balance：各分片的账户数和余额合计</li>
+ *   <li>banking.idempotency.keys / banking.idempotency.replays：各分片保留的幂等键数和识别出的重复请求数</li>
+ * </ul>
+ * 计时器在构造时全部注册，记录时按下标取出，不在请求路径上查找或创建指标。
+ */
+public class BankingMetrics {
+
+    /**
+     * 被计时的业务操作。
+     */
+    public enum Operation {
+        TRANSFER, BATCH_TRANSFER, RECHARGE, WITHDRAW, AUTHENTICATE, SAVE_DATA, LOAD_DATA;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Timer[] failures;
+    private final Timer[] successes;
+
+    /**
+     * 注册业务操作计时器。
+     * @param registry 指标注册表
+     */
+    public BankingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Operation[] operations = Operation.values();
+        failures = new Timer[operations.length];
+        successes = new Timer[operations.length];
+        for (Operation op : operations) {
+            failures[op.ordinal()] = timer(op, "failure");
+            successes[op.ordinal()] = timer(op, "success");
+        }
+    }
+
+    private Timer timer(Operation op, String outcome) {
+        return Timer.builder("banking.operation")
+                .description("Latency of banking operations")
+                .tag("operation", op.tag())
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry);
+    }
+
+    /**
+     * 记录一次操作。
+     * @param op 操作
+     * @param success 是否成功
+     * @param startNanos 开始时的 {@link System#nanoTime()}
+     */
+    public void record(Operation op, boolean success, long startNanos) {
+        (success ? successes : failures)[op.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 注册持久化相关指标。
+     * @param journal 数据日志
+     * @param shard 分片名，主数据为 main
+     */
+    public void bindJournal(DataJournal journal, String shard) {
+        Gauge.builder("banking.journal.queue.depth", journal, DataJournal::queueDepth)
+                .description("Journal records waiting to be written")
+                .tag("shard", shard)
+                .register(registry);
+        FunctionCounter.builder("banking.persisted", journal, DataJournal::journalBytesWritten)
+                .description("Bytes written to persistence files")
+                .baseUnit("bytes")
+                .tag("kind", "journal")
+                .tag("shard", shard)
+                .register(registry);
+        FunctionCounter.builder("banking.persisted", journal, DataJournal::snapshotBytesWritten)
+                .description("Bytes written to persistence files")
+                .baseUnit("bytes")
+                .tag("kind", "snapshot")
+                .tag("shard", shard)
+                .register(registry);
+        FunctionTimer.builder("banking.checkpoint", journal, DataJournal::checkpointCount,
+                        DataJournal::checkpointNanos, TimeUnit.NANOSECONDS)
+                .description("Snapshots written, including background checkpoints")
+                .tag("shard", shard)
+                .register(registry);
+    }
+
+    /**
+     * 注册锁指标。
+     * @param locks 条带锁
+     * @param shard 分片名，主数据为 main
+     */
+    public void bindLocks(StripedLocks locks, String shard) {
+        FunctionCounter.builder("banking.lock.wait", locks, l -> l.waitNanos() / 1e9)
+                .description("Total time spent waiting for locks")
+                .baseUnit("seconds")
+                .tag("shard", shard)
+                .register(registry);
+        FunctionCounter.builder("banking.lock.contended", locks, StripedLocks::contendedCount)
+                .description("Lock acquisitions that had to wait")
+                .tag("shard", shard)
+                .register(registry);
+        Gauge.builder("banking.lock.waiting", locks, StripedLocks::waitingThreads)
+                .description("Threads currently waiting for a lock")
+                .tag("shard", shard)
+                .register(registry);
+    }
+
+    /**
+     * 注册账户分片的日志、锁和账户数指标。
+     * @param shard 账户分片
+     */
+    public void bindShard(AccountShard shard) {
+        bindJournal(shard.journal(), shard.getBankId());
+        bindLocks(shard.locks(), shard.getBankId());
+        Gauge.builder("banking.shard.accounts", shard, s -> s.accounts().size())
+                .description("Accounts in the shard")
+                .tag("shard", shard.getBankId())
+                .register(registry);
+        Gauge.builder("banking.shard.balance", shard, s -> Money.toDouble(s.store().totalBalanceCents()))
+                .description("Sum of account balances in the shard")
+                .tag("shard", shard.getBankId())
+                .register(registry);
+        Gauge.builder("banking.idempotency.keys", shard.requests(), IdempotencyTable::size)
+                .description("Idempotency keys retained in the shard")
+                .tag("shard", shard.getBankId())
+                .register(registry);
+        FunctionCounter.builder("banking.idempotency.replays", shard.requests(), IdempotencyTable::replayCount)
+                .description("Duplicate requests answered from the idempotency table")
+                .tag("shard", shard.getBankId())
+                .register(registry);
+    }
+
+    /**
+     * 注册登录校验队列指标。
+     * @param credentials 密码校验器
+     */
+    public void bindCredentials(CredentialVerifier credentials) {
+        Gauge.builder("banking.auth.queue.depth", credentials, CredentialVerifier::queueDepth)
+                .description("Logins waiting for BCrypt verification")
+                .register(registry);
+    }
+
+    /**
+     * 注册主页缓存指标。
+     * @param dashboards 主页缓存
+     */
+    public void bindDashboard(DashboardCache dashboards) {
+        FunctionCounter.builder("banking.dashboard.cache.requests", dashboards, DashboardCache::hitCount)
+                .description("Dashboard cache lookups")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("banking.dashboard.cache.requests", dashboards, DashboardCache::missCount)
+                .description("Dashboard cache lookups")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("banking.dashboard.cache.invalidations", dashboards, DashboardCache::invalidationCount)
+                .description("Dashboard cache invalidations")
+                .register(registry);
+        Gauge.builder("banking.dashboard.cache.size", dashboards, DashboardCache::size)
+                .description("Customers with a cached dashboard")
+                .register(registry);
+    }
+
+    /**
+     * 注册限流指标。限流器由网页层创建，不经过 BankingService，因此直接使用指标注册表。
+     * @param registry 指标注册表
+     * @param limiter 限流器
+     */
+    public static void bindRateLimiter(MeterRegistry registry, RateLimiter limiter) {
+        FunctionCounter.builder("banking.ratelimit.requests", limiter, RateLimiter::allowedCount)
+                .description("Requests checked by the rate limiter")
+                .tags("scope", limiter.getName(), "result", "allowed")
+                .register(registry);
+        FunctionCounter.builder("banking.ratelimit.requests", limiter, RateLimiter::rejectedCount)
+                .description("Requests checked by the rate limiter")
+                .tags("scope", limiter.getName(), "result", "rejected")
+                .register(registry);
+        Gauge.builder("banking.ratelimit.keys", limiter, RateLimiter::size)
+                .description("Customers or addresses tracked by the rate limiter")
+                .tag("scope", limiter.getName())
+                .register(registry);
+    }
+
+    /**
+     * 注册交易流水指标。
+     * @param ledger 交易流水账本
+     */
+    public void bindLedger(Ledger ledger) {
+        Gauge.builder("banking.ledger.records", ledger, Ledger::size)
+                .description("Records in the transaction ledger")
+                .register(registry);
+    }
+}
@@ -6,51 +6,137 @@ package com.example.banking.service;
  * 主要功能包括：
  * <ul>
  *   <li>初始化数据</li>
- *   <li>加载和保存数据到文件</li>
+ *   <li>加载和保存数据到文件（快照 + 追加写日志）</li>
  *   <li>创建银行、客户和账户</li>
  *   <li>转账、充值、提现</li>
  *   <li>账户利率和余额管理</li>
+ *   <li>定时计息（{@link InterestEngine}）</li>
+ *   <li>交易流水（{@link Ledger}），每次余额变动的日志记录落盘之后在账户锁内追加一条</li>
+ *   <li>客户主页快照（{@link DashboardCache}），修改客户或其账户后使该客户的快照失效</li>
  * </ul>
+ * 并发模型：银行、客户、账户注册表均为并发集合，读取不加锁；
+ * 余额等读-改-写操作在 {@link StripedLocks} 的账户条带锁内完成，
+ * 转账按条带序号顺序锁定两个账户，避免死锁。
+ * 分片：账户按银行ID分入各自的 {@link AccountShard}，每个分片有独立的条带锁和持久化文件
+ * （data.shards/ 目录），同一银行内的操作只涉及本分片。涉及多个分片的操作按银行ID、再按条带序号加锁，
+ * 并以两阶段提交持久化（见 {@link #commitAcrossShards}）。银行和客户仍保存在 data.json 及其日志中。
+ * 持久化：变更记录在持有锁时放入 {@link DataJournal} 的组提交队列。银行、客户等变更在释放锁之后再等待所在批次落盘；
+ * 余额变动要等日志记录落盘之后才追加交易流水，因此在账户锁内等待，不同条带的账户仍由组提交合并为一次 fsync。
+ * 快照：后台快照开始时在全部条带锁内推进快照周期，此后每个实体在本周期内第一次被修改前
+ * 保存旧值（写时复制），快照线程据此流式写出周期开始时刻的一致视图，不阻塞后续修改。
  */
+import com.example.banking.config.BankingProperties;
 import com.example.banking.model.*;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.mindrot.jbcrypt.BCrypt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
-import java.io.File;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BankingService {
     private static final Logger logger = LoggerFactory.getLogger(BankingService.class);
-    private List<Bank> banks = new ArrayList<>();
-    private List<Customer> customers = new ArrayList<>();
-    private List<Account> accounts = new ArrayList<>();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private int customerIdCounter = 1;
-    private int accountNumberCounter = 1000;
+    private static final int LOCK_STRIPES = 1024;
+    private final List<Bank> banks = new CopyOnWriteArrayList<>();
+    private final Queue<Customer> customers = new ConcurrentLinkedQueue<>();
+    private final Map<String, AccountShard> shards = new ConcurrentHashMap<>();
+    // 已写入提交记录、但各分片的应用记录尚未全部落盘的跨分片事务，随主快照保存
+    private final Set<String> inFlightTransactions = ConcurrentHashMap.newKeySet();
+    private final DataIndex index = new DataIndex();
+    // 银行和客户的锁，账户锁在各分片中
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private final BankingProperties properties;
+    private final BankingMetrics metrics;
+    private DataJournal journal;
+    private Path shardDir;
+    private volatile boolean shardsStarted;
+    private CredentialVerifier credentials;
+    private DashboardCache dashboards;
+    private InterestEngine interestEngine;
+    private Ledger ledger;
+    private volatile InterestRunReport lastInterestRun;
+    private volatile long snapshotEpoch;
+    private final AtomicInteger customerIdCounter = new AtomicInteger(1);
+    private final AtomicInteger accountNumberCounter = new AtomicInteger(1000);
+
+    /**
+     * 构造函数。
+     * @param properties 系统配置
+     * @param meterRegistry 指标注册表
+     */
+    public BankingService(BankingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.metrics = new BankingMetrics(meterRegistry);
+    }
 
     /**
      * 初始化服务，加载数据并创建默认银行和管理员（若无）
      */
     @PostConstruct
     public void init() {
+        long start = System.nanoTime();
+        BankingProperties.Persistence persistence = properties.getPersistence();
+        journal = new DataJournal(Paths.get(properties.getDataFile()), objectMapper,
+                persistence.getCheckpointInterval(), persistence.getMaxBatchSize(),
+                persistence.getDurability(), persistence.getSnapshotFormat(), this::writeSnapshot);
+        shardDir = DataJournal.siblingOf(Paths.get(properties.getDataFile()), ".shards");
+        BankingProperties.Auth auth = properties.getAuth();
+        credentials = new CredentialVerifier(auth.getCacheSize(), auth.getCacheTtl(), auth.getThreads(),
+                auth.getQueueCapacity(), auth.getTimeout());
+        BankingProperties.Interest interest = properties.getInterest();
+        interestEngine = new InterestEngine(interest.getParallelism(), interest.getChunkSize());
+        dashboards = new DashboardCache(properties.getDashboard().getCacheSize());
+        metrics.bindJournal(journal, "main");
+        metrics.bindCredentials(credentials);
+        metrics.bindDashboard(dashboards);
+        metrics.bindLocks(locks, "main");
         loadData();
+        try {
+            ledger = new Ledger(DataJournal.siblingOf(Paths.get(properties.getDataFile()), ".ledger"));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open ledger for " + properties.getDataFile(), e);
+        }
+        metrics.bindLedger(ledger);
+        journal.start();
+        shards.values().forEach(AccountShard::start);
+        shardsStarted = true;
         if (banks.isEmpty()) {
             logger.info("No banks found, creating default bank.");
-            banks.add(new Bank(UUID.randomUUID().toString(), "defaultBank"));
+            Bank defaultBank = new Bank(UUID.randomUUID().toString(), "defaultBank");
+            banks.add(defaultBank);
+            index.addBank(defaultBank);
         }
 
-        boolean adminExists = customers.stream()
-                                     .anyMatch(c -> "admin".equals(c.getUsername()));
-        if (!adminExists) {
+        if (!isUsernameTaken("admin")) {
             logger.info("Admin user 'admin' not found, creating default admin user.");
-            String adminId = "C" + String.format("%03d", customerIdCounter++);
+            String adminId = "C" + String.format("%03d", customerIdCounter.getAndIncrement());
             String adminPasswordHash = BCrypt.hashpw("admin", BCrypt.gensalt());
             Customer adminUser = new Customer(adminId, "Administrator", "admin", adminPasswordHash, UUID.randomUUID().toString().substring(0, 8));
             adminUser.setRoles(List.of("ROLE_ADMIN", "ROLE_USER"));
@@ -60,71 +146,194 @@ public class BankingService {
             } else {
                 Bank adminBank = new Bank(UUID.randomUUID().toString(), "AdminDefaultBank");
                 banks.add(adminBank);
+                index.addBank(adminBank);
                 adminUser.getBankIds().add(adminBank.getId());
                 logger.info("Created AdminDefaultBank for admin user.");
             }
             customers.add(adminUser);
+            index.addCustomer(adminUser);
             logger.info("Default admin user 'admin' created with password 'admin'.");
         }
         saveData();
+        logger.info("Banking service initialized in {} ms", (System.nanoTime() - start) / 1_000_000);
     }
 
     /**
-     * 从 data.json 文件加载银行、客户和账户数据。
+     * 从 data.json 快照流式加载银行和客户数据，再按顺序重放日志中的变更记录；
+     * 然后并行加载各账户分片，按已提交的事务号处理跨分片事务的 prepared 状态。
+     * 实体按ID覆盖，加载完成后一次性重建索引，并记录耗时和峰值堆内存。
+     * 旧版本写在 data.json 中的账户按银行ID分入分片，被分片中的同ID账户覆盖，下一次检查点后迁移完成。
+     * 只有在没有任何数据文件时才初始化为空；已有的快照、日志或分片无法读取（格式错误、校验和不符）时启动失败，
+     * 不会用空数据写检查点覆盖它们，由管理员修复或移走损坏的文件后再启动。
+     * @throws IllegalStateException 已有的数据文件无法加载
      */
     private void loadData() {
+        long start = System.nanoTime();
+        boolean success = false;
+        resetPeakHeap();
         try {
-            File file = new File("data.json");
-            if (file.exists() && file.length() > 0) {
-                Map<String, Object> data = objectMapper.readValue(file, Map.class);
-                banks = ((List<Map<String, String>>) data.getOrDefault("banks", new ArrayList<>())).stream()
-                        .map(m -> new Bank(m.get("id"), m.get("name")))
-                        .collect(Collectors.toList());
-                customers = ((List<Map<String, Object>>) data.getOrDefault("customers", new ArrayList<>())).stream()
-                        .map(m -> {
-                            Customer c = new Customer();
-                            c.setId((String) m.get("id"));
-                            c.setName((String) m.get("name"));
-                            c.setUsername((String) m.get("username"));
-                            c.setPasswordHash((String) m.get("passwordHash"));
-                            c.setCardNumber((String) m.get("cardNumber"));
-                            c.setBankIds((List<String>) m.getOrDefault("bankIds", new ArrayList<>()));
-                            List<String> roles = (List<String>) m.get("roles");
-                            if (roles == null || roles.isEmpty()) {
-                                c.setRoles(new ArrayList<>(List.of("ROLE_USER")));
-                            } else {
-                                c.setRoles(new ArrayList<>(roles));
-                            }
-                            return c;
-                        }).collect(Collectors.toList());
-                accounts = ((List<Map<String, Object>>) data.getOrDefault("accounts", new ArrayList<>())).stream()
-                        .map(m -> {
-                            Account a = new Account();
-                            a.setId((String) m.get("id"));
-                            a.setBalance((Double) m.getOrDefault("balance", 0.0));
-                            a.setInterestRate((Double) m.getOrDefault("interestRate", 0.01));
-                            a.setBankId((String) m.get("bankId"));
-                            a.setCustomerId((String) m.get("customerId"));
-                            return a;
-                        }).collect(Collectors.toList());
-                updateCounters();
-            } else {
+            LoadingSink sink = new LoadingSink();
+            boolean hasSnapshot = journal.readSnapshot(sink);
+            journal.replay(sink);
+            Set<String> bankIds = new TreeSet<>(sink.banks.keySet());
+            sink.accounts.values().forEach(a -> bankIds.add(a.getBankId()));
+            bankIds.addAll(shardFileBankIds());
+            if (!hasSnapshot && sink.banks.isEmpty() && sink.customers.isEmpty() && bankIds.isEmpty()) {
                 initializeEmptyData();
+                success = true;
+                return;
             }
-        } catch (IOException e) {
-            logger.error("Error loading data from data.json", e);
-            initializeEmptyData();
+            Map<String, AccountShard.Loaded> loaded = loadShards(bankIds);
+            Map<String, List<Account>> legacyByBank = new HashMap<>();
+            for (Account account : sink.accounts.values()) {
+                legacyByBank.computeIfAbsent(account.getBankId(), k -> new ArrayList<>()).add(account);
+            }
+            List<Account> allAccounts = new ArrayList<>();
+            for (Map.Entry<String, AccountShard.Loaded> e : loaded.entrySet()) {
+                AccountShard.Loaded shardData = e.getValue();
+                Map<String, Account> merged = new LinkedHashMap<>();
+                for (Account account : legacyByBank.getOrDefault(e.getKey(), Collections.emptyList())) {
+                    merged.put(account.getId(), account);
+                }
+                int resolved = shardData.resolve(sink.committed);
+                if (resolved > 0) {
+                    logger.info("Applied {} committed cross-bank account states in shard {}", resolved, e.getKey());
+                }
+                for (Account account : shardData.accounts()) {
+                    merged.put(account.getId(), account);
+                }
+                shardFor(e.getKey()).reset(merged.values());
+                shardFor(e.getKey()).requests().load(shardData.requests());
+                allAccounts.addAll(merged.values());
+            }
+            banks.clear();
+            banks.addAll(sink.banks.values());
+            customers.clear();
+            customers.addAll(sink.customers.values());
+            index.rebuild(banks, customers, allAccounts);
+            updateCounters(allAccounts);
+            logger.info("Loaded {} banks, {} customers, {} accounts in {} shards from {} in {} ms (peak heap {} MB)",
+                    banks.size(), sink.customers.size(), allAccounts.size(), loaded.size(), properties.getDataFile(),
+                    (System.nanoTime() - start) / 1_000_000, peakHeap() >> 20);
+            success = true;
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Error loading data from {}, refusing to start over existing files", properties.getDataFile(), e);
+            throw new IllegalStateException("Cannot load data from " + properties.getDataFile(), e);
+        } finally {
+            metrics.record(BankingMetrics.Operation.LOAD_DATA, success, start);
         }
     }
+
+    /**
+     * 加载时按ID收集实体，后读到的记录覆盖先读到的。
+     * 账户只在旧版本的数据文件中出现，新版本的账户保存在各分片中。
+     */
+    private static class LoadingSink implements DataReader.Sink {
+        final Map<String, Bank> banks = new LinkedHashMap<>();
+        final Map<String, Customer> customers = new LinkedHashMap<>();
+        final Map<String, Account> accounts = new LinkedHashMap<>();
+        final Set<String> committed = new HashSet<>();
+
+        @Override
+        public void bank(Bank bank) { banks.put(bank.getId(), bank); }
+
+        @Override
+        public void customer(Customer customer) { customers.put(customer.getId(), customer); }
+
+        @Override
+        public void account(Account account) { accounts.put(account.getId(), account); }
+
+        @Override
+        public void committed(String tx) { committed.add(tx); }
+    }
+
+    /**
+     * 分片目录中已有文件对应的银行ID，包括银行记录已丢失的分片。
+     */
+    private Set<String> shardFileBankIds() throws IOException {
+        Set<String> bankIds = new TreeSet<>();
+        if (!Files.isDirectory(shardDir)) {
+            return bankIds;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shardDir)) {
+            for (Path file : files) {
+                String bankId = AccountShard.bankIdOf(file.getFileName().toString());
+                if (bankId != null) {
+                    bankIds.add(bankId);
+                }
+            }
+        }
+        return bankIds;
+    }
+
+    /**
+     * 并行读取各分片的快照和日志。
+     */
+    private Map<String, AccountShard.Loaded> loadShards(Set<String> bankIds) {
+        Map<String, AccountShard.Loaded> loaded = new ConcurrentHashMap<>();
+        bankIds.parallelStream().forEach(bankId -> {
+            try {
+                loaded.put(bankId, shardFor(bankId).load());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load account shard " + bankId, e);
+            }
+        });
+        return new TreeMap<>(loaded);
+    }
+
+    /**
+     * 获取银行的账户分片，不存在时创建。加载完成之后创建的分片立即启动写线程。
+     * @param bankId 银行ID
+     * @return 账户分片
+     */
+    private AccountShard shardFor(String bankId) {
+        AccountShard shard = shards.get(bankId);
+        if (shard != null) {
+            return shard;
+        }
+        return shards.computeIfAbsent(bankId, id -> {
+            try {
+                Files.createDirectories(shardDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create shard directory " + shardDir, e);
+            }
+            AccountShard created = new AccountShard(id, shardDir, objectMapper,
+                    properties.getPersistence(), properties.getIdempotency(), LOCK_STRIPES);
+            metrics.bindShard(created);
+            if (shardsStarted) {
+                created.start();
+            }
+            return created;
+        });
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
     
     /**
      * 根据现有数据更新客户和账户的自增ID计数器。
+     * @param accounts 全部账户
      */
-    private void updateCounters() {
+    private void updateCounters(Collection<Account> accounts) {
         for (Customer customer : customers) {
             try {
                 int idNum = Integer.parseInt(customer.getId().substring(1));
-                if (idNum >= customerIdCounter) customerIdCounter = idNum + 1;
+                customerIdCounter.accumulateAndGet(idNum + 1, Math::max);
             } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
                 logger.warn("Could not parse customer ID for counter: {}", customer.getId());
             }
@@ -132,7 +341,7 @@ public class BankingService {
         for (Account account : accounts) {
              try {
                 int accNum = Integer.parseInt(account.getId());
-                if (accNum >= accountNumberCounter) accountNumberCounter = accNum + 1;
+                accountNumberCounter.accumulateAndGet(accNum + 1, Math::max);
             } catch (NumberFormatException e) {
                 logger.warn("Could not parse account ID for counter: {}", account.getId());
             }
@@ -144,36 +353,423 @@ public class BankingService {
      */
     private void initializeEmptyData() {
         logger.info("Initializing with empty data store.");
-        banks = new ArrayList<>();
-        customers = new ArrayList<>();
-        accounts = new ArrayList<>();
-
+        banks.clear();
+        customers.clear();
+        shards.values().forEach(shard -> shard.reset(Collections.emptyList()));
+        index.rebuild(banks, customers, Collections.emptyList());
     }
 
 
     /**
-     * 将当前银行、客户和账户数据保存到 data.json 文件。
+     * 将各账户分片和银行、客户数据完整保存到快照，并清空日志。
+     * 日常变更只追加日志记录，完整快照仅在启动、关闭和后台检查点时写入。
+     * 分片先于 data.json 写入，从旧格式迁移时账户在离开 data.json 之前已保存在分片中。
      */
     public void saveData() {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            shards.values().parallelStream().forEach(shard -> {
+                try {
+                    shard.checkpoint();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot checkpoint account shard " + shard.getBankId(), e);
+                }
+            });
+            journal.checkpoint();
+            success = true;
+            logger.debug("Data saved successfully to {}", properties.getDataFile());
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Error saving data to {}", properties.getDataFile(), e);
+        } finally {
+            metrics.record(BankingMetrics.Operation.SAVE_DATA, success, start);
+        }
+    }
+
+    /**
+     * 服务关闭时写入最终快照并关闭日志。
+     */
+    @PreDestroy
+    public void shutdown() {
+        interestEngine.close();
+        saveData();
+        ledger.close();
+        credentials.close();
+        for (AccountShard shard : shards.values()) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                logger.error("Error closing account shard {}", shard.getBankId(), e);
+            }
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.error("Error closing data journal", e);
+        }
+    }
+
+    /**
+     * 写出银行和客户的完整快照，在后台快照线程中调用。先在全部条带锁内推进快照周期，
+     * 此刻没有进行中的修改；之后的修改会先保存旧值，因此写出的是周期开始时刻的一致视图。
+     * 周期开始后新建的实体也可能被写出，它们的变更记录都在新日志中，重放时按ID覆盖。
+     * 尚未在各分片完成应用的跨分片事务号一并写出，轮换掉的旧日志中的提交记录因此不会丢失。
+     */
+    private void writeSnapshot(SnapshotFormat.Output output) throws IOException {
+        long epoch;
+        locks.lockAll();
+        try {
+            epoch = ++snapshotEpoch;
+        } finally {
+            locks.unlockAll();
+        }
+        for (Bank bank : banks) {
+            output.bank(bank);
+        }
+        for (Customer customer : customers) {
+            output.customer(customer, epoch);
+        }
+        for (String tx : inFlightTransactions) {
+            output.committed(tx);
+        }
+    }
+
+    /**
+     * 修改账户余额：保存所在分片快照周期的旧值，写入新余额，更新余额索引并使客户的主页快照失效。
+     * 应在持有账户锁时调用。
+     * @param account 账户对象
+     * @param balanceCents 新余额（分）
+     */
+    private void writeBalance(Account account, long balanceCents) {
+        long oldBalanceCents = account.getBalanceCents();
+        account.beforeWrite(shardFor(account.getBankId()).snapshotEpoch());
+        account.setBalanceCents(balanceCents);
+        index.updateBalance(account, oldBalanceCents);
+        dashboards.invalidate(account.getCustomerId());
+    }
+
+    /**
+     * 追加一条交易流水。应在持有账户锁时、余额修改的日志记录落盘之后调用（跨分片操作为提交记录落盘之后），
+     * 使崩溃后账本中的变动后余额都能由日志恢复出来；流水写入失败只记录日志，不影响交易本身。
+     * @param type 流水类型
+     * @param account 账户对象（已是新余额）
+     * @param counterparty 对方账户，可为 null
+     * @param amountCents 变动金额（分），入账为正、出账为负
+     */
+    private void record(LedgerEntry.Type type, Account account, Account counterparty, long amountCents) {
+        record(type, account, counterparty, amountCents, account.getBalanceCents());
+    }
+
+    /**
+     * 追加一条交易流水，变动后余额由调用方给出（批量转账中每笔转账之后的中间余额）。
+     */
+    private void record(LedgerEntry.Type type, Account account, Account counterparty, long amountCents,
+                        long balanceAfterCents) {
+        try {
+            ledger.append(type, account.getId(), counterparty != null ? counterparty.getId() : null,
+                    amountCents, balanceAfterCents);
+        } catch (IOException e) {
+            logger.error("Error appending {} for account {} to ledger", type, account.getId(), e);
+        }
+    }
+
+    /**
+     * 追加一条变更记录，只包含本次变更涉及的实体。应在持有实体锁时调用。
+     * @param key 实体集合名（banks 或 customers）
+     * @param entities 变更后的实体
+     * @return 记录落盘后完成的 Future
+     */
+    private CompletableFuture<Void> persist(String key, Object... entities) {
+        try {
+            return journal.append(Map.of(key, Arrays.asList(entities)));
+        } catch (IOException e) {
+            logger.error("Error appending {} to data journal", key, e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * 在账户所在分片的日志中追加一条账户变更记录。应在持有账户锁时调用。
+     * @param shard 账户分片
+     * @param changed 变更后的账户
+     * @return 记录落盘后完成的 Future
+     */
+    private CompletableFuture<Void> persist(AccountShard shard, Account... changed) {
+        return persist(shard, (IdempotencyTable.Entry) null, changed);
+    }
+
+    /**
+     * 在账户所在分片的日志中追加一条账户变更记录，幂等记录与之写在同一条记录中。应在持有账户锁时调用。
+     * @param shard 账户分片
+     * @param request 幂等键的处理状态，可为 null；写入前标记为已落盘
+     * @param changed 变更后的账户
+     * @return 记录落盘后完成的 Future
+     */
+    private CompletableFuture<Void> persist(AccountShard shard, IdempotencyTable.Entry request, Account... changed) {
         try {
-            Map<String, Object> data = new HashMap<>();
-            data.put("banks", banks);
-            data.put("customers", customers);
-            data.put("accounts", accounts);
-            objectMapper.writeValue(new File("data.json"), data);
-            logger.debug("Data saved successfully to data.json");
+            return shard.persist(durableRecord(request), changed);
         } catch (IOException e) {
-            logger.error("Error saving data to data.json", e);
+            logger.error("Error appending accounts to journal of shard {}", shard.getBankId(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * 标记幂等记录随本次变更写入日志。应在持有账户锁时调用，使分片快照不会漏掉该记录。
+     * @param request 幂等键的处理状态，可为 null
+     * @return 要写入的幂等记录，request 为 null 时返回 null
+     */
+    private static IdempotencyRecord durableRecord(IdempotencyTable.Entry request) {
+        if (request == null) {
+            return null;
+        }
+        request.markDurable();
+        return request.record();
+    }
+
+    /**
+     * 按幂等键执行一次资金操作。幂等键登记在主账户所在分片的幂等键表中，键前加上账户所属客户的ID，
+     * 不同客户的键互不影响。第一次出现的键执行操作并记住结果；重复的键直接返回首次结果，
+     * 不加账户锁、不写日志。操作抛出异常或跨分片提交失败（{@link BatchTransferResult.Status#ABORTED}）时
+     * 移除该键，之后的重试按新请求处理；只有余额不足、溢出等业务结果被记住。
+     * @param accountId 主账户ID（转出、充值或取款账户）
+     * @param key 客户端幂等键，为 null 时直接执行
+     * @param request 请求摘要，同一键的重试必须相同
+     * @param operation 实际操作，参数为随变更写入日志的幂等键状态
+     * @return 处理状态
+     * @throws IdempotencyKeyReuseException 该键已用于内容不同的请求
+     */
+    private BatchTransferResult.Status idempotent(String accountId, String key, String request,
+                                                  Function<IdempotencyTable.Entry, BatchTransferResult.Status> operation) {
+        Account account = key == null ? null : index.accountById(accountId);
+        if (account == null) {
+            return operation.apply(null);
+        }
+        IdempotencyTable.Claim claim = shardFor(account.getBankId()).requests()
+                .claim(account.getCustomerId() + ":" + key, request);
+        if (!claim.isOwner()) {
+            BatchTransferResult.Status result = claim.result();
+            if (logger.isDebugEnabled()) {
+                logger.debug("event=idempotent_replay request={} outcome={}", request, result);
+            }
+            return result;
+        }
+        try {
+            BatchTransferResult.Status status = operation.apply(claim.entry());
+            if (status == BatchTransferResult.Status.ABORTED) {
+                claim.release(status);
+            } else {
+                claim.complete(status);
+            }
+            return status;
+        } catch (RuntimeException | Error e) {
+            claim.abandon(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 锁定若干账户：按银行ID排序逐个分片，分片内按条带序号顺序加锁，所有操作遵循同一顺序，避免死锁。
+     * @param accounts 账户
+     * @return 已获得的锁，须传给 {@link #unlockAccounts} 释放
+     */
+    private List<HeldStripes> lockAccounts(Collection<Account> accounts) {
+        Map<String, Set<String>> idsByBank = new TreeMap<>();
+        for (Account account : accounts) {
+            idsByBank.computeIfAbsent(account.getBankId(), k -> new HashSet<>()).add(account.getId());
+        }
+        List<HeldStripes> held = new ArrayList<>(idsByBank.size());
+        for (Map.Entry<String, Set<String>> e : idsByBank.entrySet()) {
+            StripedLocks shardLocks = shardFor(e.getKey()).locks();
+            int[] stripes = shardLocks.stripesOf(e.getValue());
+            shardLocks.lock(stripes);
+            held.add(new HeldStripes(shardLocks, stripes));
+        }
+        return held;
+    }
+
+    /**
+     * 按加锁的相反顺序释放 {@link #lockAccounts} 获得的锁。
+     * @param held 已获得的锁
+     */
+    private static void unlockAccounts(List<HeldStripes> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).locks.unlock(held.get(i).stripes);
+        }
+    }
+
+    /**
+     * 一个分片中已锁定的条带。
+     */
+    private static final class HeldStripes {
+        final StripedLocks locks;
+        final int[] stripes;
+
+        HeldStripes(StripedLocks locks, int[] stripes) {
+            this.locks = locks;
+            this.stripes = stripes;
+        }
+    }
+
+    /**
+     * 以两阶段提交修改分属多个分片的账户余额。应在持有全部相关账户锁时调用。
+     * <ol>
+     *   <li>准备：每个分片写入带事务号的新余额并等待落盘，内存不变</li>
+     *   <li>提交：在主日志中写入事务号并等待落盘，此后事务视为已生效</li>
+     *   <li>应用：修改内存中的余额，每个分片写入普通账户记录；全部落盘后事务号不再需要保留</li>
+     * </ol>
+     * 提交记录落盘之前的任何失败都使事务回滚，内存不变；崩溃后重启时，
+     * 事务号已提交的 prepared 状态被应用，其余的被丢弃。
+     * 准备和提交需要等待落盘，因此跨分片操作在持有锁时有两次 fsync 等待，同一分片内的余额变动只有一次。
+     * 提交记录落盘后事务即已生效，交易流水可以在应用记录落盘之前追加。
+     * 幂等记录写入第一个账户所在分片的准备记录和应用记录，与账户状态一样在事务号提交后才生效。
+     * @param balances 账户及其新余额（分），第一个为主账户
+     * @param request 幂等键的处理状态，可为 null
+     * @return 应用记录落盘后完成的 Future（宽松模式下立即完成）；回滚时返回 null
+     */
+    private CompletableFuture<Void> commitAcrossShards(Map<Account, Long> balances, IdempotencyTable.Entry request) {
+        String tx = UUID.randomUUID().toString();
+        AccountShard home = shardFor(balances.keySet().iterator().next().getBankId());
+        Map<AccountShard, List<Account>> byShard = new LinkedHashMap<>();
+        for (Account account : balances.keySet()) {
+            byShard.computeIfAbsent(shardFor(account.getBankId()), k -> new ArrayList<>()).add(account);
+        }
+        try {
+            List<CompletableFuture<Void>> prepared = new ArrayList<>(byShard.size());
+            for (Map.Entry<AccountShard, List<Account>> e : byShard.entrySet()) {
+                List<Account> shardAccounts = e.getValue();
+                long[] after = new long[shardAccounts.size()];
+                for (int i = 0; i < after.length; i++) {
+                    after[i] = balances.get(shardAccounts.get(i));
+                }
+                prepared.add(e.getKey().prepare(tx, shardAccounts, after,
+                        e.getKey() == home && request != null ? request.record() : null));
+            }
+            CompletableFuture.allOf(prepared.toArray(new CompletableFuture<?>[0])).join();
+            inFlightTransactions.add(tx);
+            journal.appendDurable(Map.of("committed", List.of(tx))).join();
+        } catch (IOException | CompletionException e) {
+            inFlightTransactions.remove(tx);
+            logger.error("Cross-bank transaction {} rolled back", tx, e);
+            return null;
+        }
+        for (Map.Entry<Account, Long> e : balances.entrySet()) {
+            writeBalance(e.getKey(), e.getValue());
+        }
+        List<CompletableFuture<Void>> applied = new ArrayList<>(byShard.size());
+        for (Map.Entry<AccountShard, List<Account>> e : byShard.entrySet()) {
+            try {
+                applied.add(e.getKey().apply(e.getValue(), e.getKey() == home ? durableRecord(request) : null));
+            } catch (IOException ex) {
+                // 事务号保留在主快照中，重启时由 prepared 状态恢复
+                logger.error("Error appending accounts to journal of shard {}", e.getKey().getBankId(), ex);
+                applied.add(CompletableFuture.failedFuture(ex));
+            }
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(applied.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((v, t) -> {
+                    if (t == null) {
+                        inFlightTransactions.remove(tx);
+                    }
+                });
+        return properties.getPersistence().getDurability() == DataJournal.Durability.SYNC
+                ? all.exceptionally(t -> null) : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 等待变更记录落盘，宽松持久化模式下立即返回。通常在释放实体锁之后调用；
+     * 之后还要追加交易流水时在持有账户锁时调用，使流水只记录已落盘的变更，且同一账户的流水仍按顺序追加。
+     * @param durable persist 返回的 Future
+     */
+    private void awaitDurable(CompletableFuture<Void> durable) {
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            logger.error("Error writing data journal", e.getCause());
+        }
+    }
+
+    /**
+     * 为全部账户计息到指定日期。账户并行处理，每个账户在自己的锁内计息并记录计息日期，
+     * 已计息到该日期的账户会被跳过，因此中断后重新运行只处理剩余账户。
+     * 每个账户的计息在账户锁内写入所在分片的日志（由分组提交合并落盘），有利息入账时等待落盘后再追加利息流水，
+     * 崩溃后已落盘的计息连同计息日期一起恢复，未落盘的计息既不恢复也没有流水，不会重复计息或重复记流水；
+     * 整次运行结束后写入一次完整快照。
+     * 待处理的账户先由各分片扫描计息日期列筛出，已计息到该日期的账户不进入计息任务，也不计入处理数。
+     * @param date 计息日期
+     * @return 统计结果；已有计息任务在运行时返回 null
+     */
+    public InterestRunReport postInterest(LocalDate date) {
+        long day = date.toEpochDay();
+        List<Account> due = new ArrayList<>();
+        for (AccountShard shard : shards.values()) {
+            due.addAll(shard.store().dueForInterest(day));
+        }
+        InterestRunReport report = interestEngine.run(due.toArray(new Account[0]), date, this::postAccountInterest);
+        if (report != null) {
+            saveData();
+            lastInterestRun = report;
+        }
+        return report;
+    }
+
+    /**
+     * 获取最近一次计息任务的统计。
+     * @return 统计结果，本次启动后尚未计息时返回 null
+     */
+    public InterestRunReport getLastInterestRun() {
+        return lastInterestRun;
+    }
+
+    /**
+     * 为单个账户计息。首次计息的账户（没有计息日期）只记录日期，不补计历史利息。
+     * 余额和计息日期的日志记录落盘之后才追加利息流水：流水写入内存映射的账本后立即生效，
+     * 若先于日志记录落盘而进程崩溃，重新运行会再次入账并留下第二条利息流水。
+     */
+    private long postAccountInterest(Account account, long day) {
+        AccountShard shard = shardFor(account.getBankId());
+        shard.locks().lock(account.getId());
+        try {
+            long postedDay = account.getInterestPostedDay();
+            if (postedDay >= day) {
+                return 0;
+            }
+            long interest = postedDay == 0 ? 0
+                    : InterestEngine.accrue(account.getBalanceCents(), account.getInterestRate(), day - postedDay);
+            long balance = Math.addExact(account.getBalanceCents(), interest);
+            if (interest > 0) {
+                writeBalance(account, balance);
+            } else {
+                account.beforeWrite(shard.snapshotEpoch());
+            }
+            account.setInterestPostedDay(day);
+            CompletableFuture<Void> durable = persist(shard, account);
+            if (interest > 0) {
+                awaitDurable(durable);
+                record(LedgerEntry.Type.INTEREST, account, null, interest);
+            }
+            return interest;
+        } catch (ArithmeticException e) {
+            logger.warn("Interest rejected: balance of account {} would overflow", account.getId());
+            return -1;
+        } finally {
+            shard.locks().unlock(account.getId());
         }
     }
 
     /**
      * 创建一个新银行。
      * @param name 银行名称
+     * @return 新银行
      */
-    public void createBank(String name) {
-        banks.add(new Bank(UUID.randomUUID().toString(), name));
-        saveData();
+    public Bank createBank(String name) {
+        Bank bank = new Bank(UUID.randomUUID().toString(), name);
+        shardFor(bank.getId());
+        banks.add(bank);
+        index.addBank(bank);
+        dashboards.invalidateAll();
+        awaitDurable(persist("banks", bank));
+        return bank;
     }
 
     /**
@@ -189,86 +785,426 @@ public class BankingService {
             logger.warn("Username {} is already taken.", username);
             return null;
         }
-        String id = "C" + String.format("%03d", customerIdCounter++);
-        String cardNumber = UUID.randomUUID().toString().substring(0, 8);
         String passwordHash = BCrypt.hashpw(password, BCrypt.gensalt());
+        String id = "C" + String.format("%03d", customerIdCounter.getAndIncrement());
+        String cardNumber = UUID.randomUUID().toString().substring(0, 8);
         Customer customer = new Customer(id, name, username, passwordHash, cardNumber);
         customer.getBankIds().add(bank.getId());
+        if (!index.addCustomer(customer)) {
+            // 并发注册时用户名索引负责最终裁决
+            logger.warn("Username {} is already taken.", username);
+            return null;
+        }
         customers.add(customer);
+        awaitDurable(persist("customers", customer));
         createAccount(customer, bank.getId());
-        saveData();
         logger.info("Customer {} created successfully with username {}.", name, username);
         return customer;
     }
 
     /**
-     * 为指定客户在指定银行创建新账户。
+     * 为指定客户在指定银行创建新账户。银行ID来自请求参数，须是已存在的银行：
+     * 每个银行ID对应一个带写线程和持久化文件的分片，不能由任意ID创建。
      * @param customer 客户对象
      * @param bankId 银行ID
+     * @return 新账户，银行不存在返回 null
      */
-    public void createAccount(Customer customer, String bankId) {
-        String accountId = String.valueOf(accountNumberCounter++);
+    public Account createAccount(Customer customer, String bankId) {
+        if (getBankById(bankId) == null) {
+            logger.warn("Cannot create account for customer {}: bank {} not found", customer.getId(), bankId);
+            return null;
+        }
+        String accountId = String.valueOf(accountNumberCounter.getAndIncrement());
         Account account = new Account(accountId, customer.getId(), bankId);
-        accounts.add(account);
-        saveData();
+        account.setInterestPostedDay(LocalDate.now().toEpochDay());
+        AccountShard shard = shardFor(bankId);
+        shard.add(account);
+        index.addAccount(account);
+        dashboards.invalidate(customer.getId());
+        awaitDurable(persist(shard, account));
+        return account;
     }
 
     /**
      * 转账操作。
      * @param fromAccountId 转出账户ID
      * @param toAccountId 转入账户ID
-     * @param amount 转账金额
+     * @param amountCents 转账金额（分）
      * @return 转账成功返回 true，否则返回 false
      */
-    public boolean transfer(String fromAccountId, String toAccountId, double amount) {
-        Account from = accounts.stream().filter(a -> a.getId().equals(fromAccountId)).findFirst().orElse(null);
-        Account to = accounts.stream().filter(a -> a.getId().equals(toAccountId)).findFirst().orElse(null);
-        if (from != null && to != null && from.getBalance() >= amount && amount > 0) {
-            from.setBalance(from.getBalance() - amount);
-            to.setBalance(to.getBalance() + amount);
-            saveData();
-            logger.info("Transfer successful: {} from account {} to account {}", amount, fromAccountId, toAccountId);
-            return true;
+    public boolean transfer(String fromAccountId, String toAccountId, long amountCents) {
+        return transfer(fromAccountId, toAccountId, amountCents, null);
+    }
+
+    /**
+     * 带幂等键的转账操作，同一客户以同一键重复提交时返回首次结果，不再转账（见 {@link #idempotent}）。
+     * @param fromAccountId 转出账户ID
+     * @param toAccountId 转入账户ID
+     * @param amountCents 转账金额（分）
+     * @param idempotencyKey 客户端幂等键，可为 null
+     * @return 转账成功返回 true，否则返回 false
+     * @throws IdempotencyKeyReuseException 该键已用于内容不同的请求
+     */
+    public boolean transfer(String fromAccountId, String toAccountId, long amountCents, String idempotencyKey) {
+        return transfer(new TransferLeg(fromAccountId, toAccountId, amountCents), idempotencyKey)
+                == BatchTransferResult.Status.OK;
+    }
+
+    /**
+     * 带幂等键的转账操作，返回处理状态，供需要区分失败原因的调用方（REST API、网页）使用。
+     * 跨银行提交失败时返回 {@link BatchTransferResult.Status#ABORTED}，余额不变，可以用同一幂等键重试。
+     * @param leg 转账：转出账户、转入账户和金额
+     * @param idempotencyKey 客户端幂等键，可为 null
+     * @return 处理状态
+     * @throws IdempotencyKeyReuseException 该键已用于内容不同的请求
+     */
+    public BatchTransferResult.Status transfer(TransferLeg leg, String idempotencyKey) {
+        long start = System.nanoTime();
+        BatchTransferResult.Status status = null;
+        try {
+            String fromAccountId = leg.getFromAccountId();
+            String toAccountId = leg.getToAccountId();
+            long amountCents = leg.getAmountCents();
+            status = idempotent(fromAccountId, idempotencyKey,
+                    "transfer:" + fromAccountId + ":" + toAccountId + ":" + amountCents,
+                    request -> doTransfer(fromAccountId, toAccountId, amountCents, request));
+            return status;
+        } finally {
+            metrics.record(BankingMetrics.Operation.TRANSFER, status == BatchTransferResult.Status.OK, start);
         }
-        logger.warn("Transfer failed: amount {}, from account {}, to account {}. Conditions not met or accounts not found.", amount, fromAccountId, toAccountId);
-        return false;
+    }
+
+    /**
+     * {@link #transfer} 的实现，计时由公开方法完成。
+     */
+    private BatchTransferResult.Status doTransfer(String fromAccountId, String toAccountId, long amountCents,
+                                                  IdempotencyTable.Entry request) {
+        Account from = index.accountById(fromAccountId);
+        Account to = index.accountById(toAccountId);
+        BatchTransferResult.Status status;
+        if (from == null || to == null) {
+            status = BatchTransferResult.Status.ACCOUNT_NOT_FOUND;
+        } else if (amountCents <= 0) {
+            status = BatchTransferResult.Status.INVALID_AMOUNT;
+        } else {
+            CompletableFuture<Void> durable = null;
+            if (from.getBankId().equals(to.getBankId())) {
+                AccountShard shard = shardFor(from.getBankId());
+                shard.locks().lock(fromAccountId, toAccountId);
+                try {
+                    if (from.getBalanceCents() < amountCents) {
+                        status = BatchTransferResult.Status.INSUFFICIENT_FUNDS;
+                    } else {
+                        // 先算出两个新余额再写回，溢出时不修改任何账户；同一账户互转时余额不变
+                        long fromBalance = from.getBalanceCents() - amountCents;
+                        long toBalance = Math.addExact(from == to ? fromBalance : to.getBalanceCents(), amountCents);
+                        writeBalance(from, fromBalance);
+                        writeBalance(to, toBalance);
+                        awaitDurable(persist(shard, request, from, to));
+                        record(LedgerEntry.Type.TRANSFER_OUT, from, to, -amountCents);
+                        record(LedgerEntry.Type.TRANSFER_IN, to, from, amountCents);
+                        status = BatchTransferResult.Status.OK;
+                    }
+                } catch (ArithmeticException e) {
+                    logger.warn("Transfer rejected: balance of account {} would overflow", toAccountId);
+                    status = BatchTransferResult.Status.OVERFLOW;
+                } finally {
+                    shard.locks().unlock(fromAccountId, toAccountId);
+                }
+            } else {
+                List<HeldStripes> held = lockAccounts(List.of(from, to));
+                try {
+                    if (from.getBalanceCents() < amountCents) {
+                        status = BatchTransferResult.Status.INSUFFICIENT_FUNDS;
+                    } else {
+                        Map<Account, Long> balances = new LinkedHashMap<>();
+                        balances.put(from, from.getBalanceCents() - amountCents);
+                        balances.put(to, Math.addExact(to.getBalanceCents(), amountCents));
+                        durable = commitAcrossShards(balances, request);
+                        if (durable != null) {
+                            record(LedgerEntry.Type.TRANSFER_OUT, from, to, -amountCents);
+                            record(LedgerEntry.Type.TRANSFER_IN, to, from, amountCents);
+                            status = BatchTransferResult.Status.OK;
+                        } else {
+                            status = BatchTransferResult.Status.ABORTED;
+                        }
+                    }
+                } catch (ArithmeticException e) {
+                    logger.warn("Transfer rejected: balance of account {} would overflow", toAccountId);
+                    status = BatchTransferResult.Status.OVERFLOW;
+                } finally {
+                    unlockAccounts(held);
+                }
+            }
+            if (durable != null) {
+                awaitDurable(durable);
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            if (status == BatchTransferResult.Status.OK) {
+                logger.debug("event=transfer outcome=ok from={} to={} cents={}", fromAccountId, toAccountId, amountCents);
+            } else {
+                logger.debug("event=transfer outcome=rejected reason={} from={} to={} cents={}",
+                        status, fromAccountId, toAccountId, amountCents);
+            }
+        }
+        return status;
+    }
+
+    /**
+     * 批量转账。先不加锁地批量校验账户和金额，再把涉及的账户按分片、条带去重排序后逐个加锁（每个条带只锁一次），
+     * 在工作余额上按顺序执行全部转账，最后把余额有变化的账户写回并作为一条日志记录持久化；
+     * 涉及多家银行时以两阶段提交持久化，提交失败则全部转账标记为未执行。
+     * 原子模式下任何一笔失败则全部不执行；非原子模式下逐笔执行，失败的转账被跳过，
+     * 后面的转账基于前面已执行的转账之后的余额。
+     * @param legs 转账列表
+     * @param atomic 是否全部成功才生效
+     * @return 每笔转账的处理状态
+     */
+    public BatchTransferResult transferBatch(List<TransferLeg> legs, boolean atomic) {
+        long start = System.nanoTime();
+        BatchTransferResult result = null;
+        try {
+            result = doTransferBatch(legs, atomic);
+            return result;
+        } finally {
+            metrics.record(BankingMetrics.Operation.BATCH_TRANSFER, result != null && result.isSuccess(), start);
+        }
+    }
+
+    /**
+     * {@link #transferBatch} 的实现，计时由公开方法完成。
+     */
+    private BatchTransferResult doTransferBatch(List<TransferLeg> legs, boolean atomic) {
+        int n = legs.size();
+        List<BatchTransferResult.Status> statuses = new ArrayList<>(Collections.nCopies(n, BatchTransferResult.Status.OK));
+        Account[] from = new Account[n];
+        Account[] to = new Account[n];
+        Set<Account> involved = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean failed = false;
+        for (int i = 0; i < n; i++) {
+            TransferLeg leg = legs.get(i);
+            from[i] = index.accountById(leg.getFromAccountId());
+            to[i] = index.accountById(leg.getToAccountId());
+            if (from[i] == null || to[i] == null) {
+                statuses.set(i, BatchTransferResult.Status.ACCOUNT_NOT_FOUND);
+                failed = true;
+            } else if (leg.getAmountCents() <= 0) {
+                statuses.set(i, BatchTransferResult.Status.INVALID_AMOUNT);
+                failed = true;
+            } else {
+                involved.add(from[i]);
+                involved.add(to[i]);
+            }
+        }
+        if (atomic && failed) {
+            return abortBatch(statuses);
+        }
+
+        int applied = 0;
+        CompletableFuture<Void> durable = null;
+        Map<Account, long[]> balances = new IdentityHashMap<>();
+        long[] fromAfter = new long[n];
+        long[] toAfter = new long[n];
+        boolean rolledBack = false;
+        List<HeldStripes> held = lockAccounts(involved);
+        try {
+            for (int i = 0; i < n && !(atomic && failed); i++) {
+                if (statuses.get(i) != BatchTransferResult.Status.OK) continue;
+                long amount = legs.get(i).getAmountCents();
+                long[] fromBalance = balances.computeIfAbsent(from[i], a -> new long[] {a.getBalanceCents()});
+                long[] toBalance = balances.computeIfAbsent(to[i], a -> new long[] {a.getBalanceCents()});
+                if (fromBalance[0] < amount) {
+                    statuses.set(i, BatchTransferResult.Status.INSUFFICIENT_FUNDS);
+                    failed = true;
+                } else if (from[i] != to[i] && toBalance[0] > Long.MAX_VALUE - amount) {
+                    statuses.set(i, BatchTransferResult.Status.OVERFLOW);
+                    failed = true;
+                } else {
+                    if (from[i] != to[i]) {
+                        fromBalance[0] -= amount;
+                        toBalance[0] += amount;
+                    }
+                    fromAfter[i] = from[i] == to[i] ? fromBalance[0] - amount : fromBalance[0];
+                    toAfter[i] = toBalance[0];
+                    applied++;
+                }
+            }
+            if (!(atomic && failed)) {
+                Map<Account, Long> changed = new LinkedHashMap<>();
+                for (Map.Entry<Account, long[]> e : balances.entrySet()) {
+                    if (e.getKey().getBalanceCents() != e.getValue()[0]) {
+                        changed.put(e.getKey(), e.getValue()[0]);
+                    }
+                }
+                if (changed.keySet().stream().map(Account::getBankId).distinct().count() > 1) {
+                    durable = commitAcrossShards(changed, null);
+                    rolledBack = durable == null;
+                } else if (!changed.isEmpty()) {
+                    changed.forEach(this::writeBalance);
+                    awaitDurable(persist(shardFor(changed.keySet().iterator().next().getBankId()),
+                            changed.keySet().toArray(new Account[0])));
+                }
+                for (int i = 0; i < n && !rolledBack; i++) {
+                    if (statuses.get(i) == BatchTransferResult.Status.OK) {
+                        long amount = legs.get(i).getAmountCents();
+                        record(LedgerEntry.Type.TRANSFER_OUT, from[i], to[i], -amount, fromAfter[i]);
+                        record(LedgerEntry.Type.TRANSFER_IN, to[i], from[i], amount, toAfter[i]);
+                    }
+                }
+            }
+        } finally {
+            unlockAccounts(held);
+        }
+        if (rolledBack) {
+            statuses.replaceAll(s -> s == BatchTransferResult.Status.OK ? BatchTransferResult.Status.ABORTED : s);
+            return new BatchTransferResult(atomic, 0, statuses);
+        }
+        if (atomic && failed) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("event=batch_transfer outcome=rejected legs={}", n);
+            }
+            return abortBatch(statuses);
+        }
+        if (durable != null) {
+            awaitDurable(durable);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("event=batch_transfer outcome=ok applied={} legs={} accounts={}", applied, n, balances.size());
+        }
+        return new BatchTransferResult(atomic, applied, statuses);
+    }
+
+    /**
+     * 原子模式下批量转账失败：保留失败原因，其余转账标记为未执行。
+     */
+    private static BatchTransferResult abortBatch(List<BatchTransferResult.Status> statuses) {
+        statuses.replaceAll(s -> s == BatchTransferResult.Status.OK ? BatchTransferResult.Status.ABORTED : s);
+        return new BatchTransferResult(true, 0, statuses);
     }
 
     /**
      * 充值操作。
      * @param accountId 账户ID
-     * @param amount 充值金额
+     * @param amountCents 充值金额（分）
      * @return 充值成功返回 true，否则返回 false
      */
-    public boolean recharge(String accountId, double amount) {
-        Optional<Account> accountOpt = accounts.stream().filter(a -> a.getId().equals(accountId)).findFirst();
-        if (accountOpt.isPresent() && amount > 0) {
-            Account account = accountOpt.get();
-            account.setBalance(account.getBalance() + amount);
-            saveData();
-            logger.info("Recharge successful for account {}: amount {}", accountId, amount);
-            return true;
+    public boolean recharge(String accountId, long amountCents) {
+        return recharge(accountId, amountCents, null) == BatchTransferResult.Status.OK;
+    }
+
+    /**
+     * 带幂等键的充值操作，同一客户以同一键重复提交时返回首次结果，不再充值。
+     * 返回处理状态，供需要区分失败原因的调用方（REST API、网页）使用。
+     * @param accountId 账户ID
+     * @param amountCents 充值金额（分）
+     * @param idempotencyKey 客户端幂等键，可为 null
+     * @return 处理状态
+     * @throws IdempotencyKeyReuseException 该键已用于内容不同的请求
+     */
+    public BatchTransferResult.Status recharge(String accountId, long amountCents, String idempotencyKey) {
+        long start = System.nanoTime();
+        BatchTransferResult.Status status = null;
+        try {
+            status = idempotent(accountId, idempotencyKey, "recharge:" + accountId + ":" + amountCents,
+                    request -> doRecharge(accountId, amountCents, request));
+            return status;
+        } finally {
+            metrics.record(BankingMetrics.Operation.RECHARGE, status == BatchTransferResult.Status.OK, start);
         }
-        logger.warn("Recharge failed for account {}: amount {}. Account not found or amount not positive.", accountId, amount);
-        return false;
+    }
+
+    /**
+     * {@link #recharge} 的实现，计时由公开方法完成。
+     */
+    private BatchTransferResult.Status doRecharge(String accountId, long amountCents, IdempotencyTable.Entry request) {
+        Account account = index.accountById(accountId);
+        if (account != null && amountCents > 0) {
+            AccountShard shard = shardFor(account.getBankId());
+            shard.locks().lock(accountId);
+            try {
+                writeBalance(account, Math.addExact(account.getBalanceCents(), amountCents));
+                awaitDurable(persist(shard, request, account));
+                record(LedgerEntry.Type.RECHARGE, account, null, amountCents);
+            } catch (ArithmeticException e) {
+                logger.warn("Recharge rejected: balance of account {} would overflow", accountId);
+                return BatchTransferResult.Status.OVERFLOW;
+            } finally {
+                shard.locks().unlock(accountId);
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("event=recharge outcome=ok account={} cents={}", accountId, amountCents);
+            }
+            return BatchTransferResult.Status.OK;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("event=recharge outcome=rejected account={} cents={}", accountId, amountCents);
+        }
+        return account == null ? BatchTransferResult.Status.ACCOUNT_NOT_FOUND : BatchTransferResult.Status.INVALID_AMOUNT;
     }
 
     /**
      * 取款操作。
      * @param accountId 账户ID
-     * @param amount 取款金额
+     * @param amountCents 取款金额（分）
      * @return 取款成功返回 true，否则返回 false
      */
-    public boolean withdraw(String accountId, double amount) {
+    public boolean withdraw(String accountId, long amountCents) {
+        return withdraw(accountId, amountCents, null) == BatchTransferResult.Status.OK;
+    }
+
+    /**
+     * 带幂等键的取款操作，同一客户以同一键重复提交时返回首次结果，不再取款。
+     * 返回处理状态，供需要区分失败原因的调用方（REST API、网页）使用。
+     * @param accountId 账户ID
+     * @param amountCents 取款金额（分）
+     * @param idempotencyKey 客户端幂等键，可为 null
+     * @return 处理状态
+     * @throws IdempotencyKeyReuseException 该键已用于内容不同的请求
+     */
+    public BatchTransferResult.Status withdraw(String accountId, long amountCents, String idempotencyKey) {
+        long start = System.nanoTime();
+        BatchTransferResult.Status status = null;
+        try {
+            status = idempotent(accountId, idempotencyKey, "withdraw:" + accountId + ":" + amountCents,
+                    request -> doWithdraw(accountId, amountCents, request));
+            return status;
+        } finally {
+            metrics.record(BankingMetrics.Operation.WITHDRAW, status == BatchTransferResult.Status.OK, start);
+        }
+    }
+
+    /**
+     * {@link #withdraw} 的实现，计时由公开方法完成。
+     */
+    private BatchTransferResult.Status doWithdraw(String accountId, long amountCents, IdempotencyTable.Entry request) {
         Account account = getAccountById(accountId);
-        if (account != null && amount > 0 && account.getBalance() >= amount) {
-            account.setBalance(account.getBalance() - amount);
-            saveData();
-            logger.info("Withdraw successful for account {}: amount {}", accountId, amount);
-            return true;
+        if (account != null && amountCents > 0) {
+            boolean withdrawn = false;
+            AccountShard shard = shardFor(account.getBankId());
+            shard.locks().lock(accountId);
+            try {
+                if (account.getBalanceCents() >= amountCents) {
+                    writeBalance(account, account.getBalanceCents() - amountCents);
+                    awaitDurable(persist(shard, request, account));
+                    record(LedgerEntry.Type.WITHDRAW, account, null, -amountCents);
+                    withdrawn = true;
+                }
+            } finally {
+                shard.locks().unlock(accountId);
+            }
+            if (withdrawn) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("event=withdraw outcome=ok account={} cents={}", accountId, amountCents);
+                }
+                return BatchTransferResult.Status.OK;
+            }
         }
-        logger.warn("Withdraw failed for account {}: amount {}. Account not found or insufficient balance.", accountId, amount);
-        return false;
+        if (logger.isDebugEnabled()) {
+            logger.debug("event=withdraw outcome=rejected account={} cents={}", accountId, amountCents);
+        }
+        return account == null ? BatchTransferResult.Status.ACCOUNT_NOT_FOUND
+                : amountCents <= 0 ? BatchTransferResult.Status.INVALID_AMOUNT : BatchTransferResult.Status.INSUFFICIENT_FUNDS;
     }
 
     /**
@@ -277,39 +1213,85 @@ public class BankingService {
      * @return 已存在返回 true，否则返回 false
      */
     public boolean isUsernameTaken(String username) {
-        return customers.stream().anyMatch(c -> c.getUsername().equals(username));
+        return index.customerByUsername(username) != null;
     }
 
     /**
-     * 用户认证。
+     * 用户认证。按用户名索引查找客户，密码由 {@link CredentialVerifier} 校验：
+     * 近期校验成功过的凭据直接命中缓存，否则在有界的 BCrypt 线程池中校验。
      * @param username 用户名
      * @param password 密码
      * @return 认证成功返回 Customer 对象，否则返回 null
+     * @throws AuthenticationBusyException 校验线程池繁忙，应提示用户稍后重试
      */
     public Customer authenticate(String username, String password) {
-        return customers.stream()
-                .filter(c -> c.getUsername().equals(username) && BCrypt.checkpw(password, c.getPasswordHash()))
-                .findFirst()
-                .orElse(null);
+        long start = System.nanoTime();
+        Customer result = null;
+        try {
+            result = doAuthenticate(username, password);
+            return result;
+        } finally {
+            metrics.record(BankingMetrics.Operation.AUTHENTICATE, result != null, start);
+        }
+    }
+
+    /**
+     * {@link #authenticate} 的实现，计时由公开方法完成。
+     */
+    private Customer doAuthenticate(String username, String password) {
+        Customer customer = index.customerByUsername(username);
+        if (customer != null && credentials.verify(username, password, customer.getPasswordHash())) {
+            return customer;
+        }
+        return null;
     }
 
     /**
      * 获取所有银行列表。
-     * @return 银行列表
+     * @return 只读银行列表
      */
-    public List<Bank> getBanks() { return banks; }
+    public List<Bank> getBanks() { return Collections.unmodifiableList(banks); }
 
     /**
      * 获取所有客户列表。
+     * @return 客户列表副本
+     */
+    public List<Customer> getCustomers() { return new ArrayList<>(customers); }
+
+    /**
+     * 按创建顺序获取一段客户，只复制这一段。
+     * @param offset 跳过的客户数
+     * @param limit 最多返回的客户数
      * @return 客户列表
      */
-    public List<Customer> getCustomers() { return customers; }
+    public List<Customer> getCustomers(int offset, int limit) {
+        return customers.stream().skip(offset).limit(limit).collect(Collectors.toList());
+    }
 
     /**
      * 获取所有账户列表。
+     * @return 各分片账户的合并副本
+     */
+    public List<Account> getAccounts() {
+        List<Account> all = new ArrayList<>();
+        for (AccountShard shard : shards.values()) {
+            all.addAll(shard.accounts());
+        }
+        return all;
+    }
+
+    /**
+     * 按银行、再按开户顺序获取一段账户，只复制这一段。
+     * @param bankId 银行ID，null 表示全部银行
+     * @param offset 跳过的账户数
+     * @param limit 最多返回的账户数
      * @return 账户列表
      */
-    public List<Account> getAccounts() { return accounts; }
+    public List<Account> getAccounts(String bankId, int offset, int limit) {
+        Stream<Account> accounts = bankId != null ? index.accountsByBankId(bankId).stream()
+                : banks.stream().flatMap(bank -> index.accountsByBankId(bank.getId()).stream());
+        return accounts.skip(offset).limit(limit).collect(Collectors.toList());
+    }
 
     /**
      * 根据用户名获取该用户所有账户。
@@ -317,13 +1299,117 @@ public class BankingService {
      * @return 账户列表
      */
     public List<Account> getAccounts(String username) {
-        String customerId = customers.stream()
-                .filter(c -> c.getUsername().equals(username))
-                .findFirst().map(Customer::getId).orElse(null);
-        if (customerId == null) return Collections.emptyList();
-        return accounts.stream()
-                .filter(a -> customerId.equals(a.getCustomerId()))
-                .collect(Collectors.toList());
+        Customer customer = index.customerByUsername(username);
+        if (customer == null) return Collections.emptyList();
+        return getAccountsByCustomerId(customer.getId());
+    }
+
+    /**
+     * 获取客户主页快照：客户、账户（含银行名称）、合计和银行列表。命中缓存时只读取一次缓存，
+     * 未命中时由索引生成，客户或其账户被修改后重新生成。
+     * @param username 用户名
+     * @return 主页快照，用户不存在返回 null
+     */
+    public DashboardView getDashboard(String username) {
+        Customer customer = index.customerByUsername(username);
+        if (customer == null) return null;
+        return dashboards.get(customer.getId(), () -> buildDashboard(customer));
+    }
+
+    private DashboardView buildDashboard(Customer customer) {
+        List<DashboardView.AccountLine> lines = new ArrayList<>();
+        for (Account account : index.accountsByCustomerId(customer.getId())) {
+            lines.add(new DashboardView.AccountLine(account.getId(), account.getBankId(),
+                    getBankNameById(account.getBankId()), account.getBalanceCents(), account.getInterestRate()));
+        }
+        return new DashboardView(customer, lines, new ArrayList<>(banks));
+    }
+
+    /**
+     * 根据客户ID获取该客户所有账户。
+     * @param customerId 客户ID
+     * @return 账户列表
+     */
+    public List<Account> getAccountsByCustomerId(String customerId) {
+        return new ArrayList<>(index.accountsByCustomerId(customerId));
+    }
+
+    /**
+     * 获取指定银行下的所有账户。
+     * @param bankId 银行ID
+     * @return 账户列表
+     */
+    public List<Account> getAccountsByBank(String bankId) {
+        return new ArrayList<>(index.accountsByBankId(bankId));
+    }
+
+    /**
+     * 获取指定银行的账户数。
+     * @param bankId 银行ID
+     * @return 账户数
+     */
+    public int countAccountsByBank(String bankId) {
+        return index.accountCountByBankId(bankId);
+    }
+
+    /**
+     * 获取某银行全部账户的余额合计，由分片的余额列直接求和，不加锁。
+     * @param bankId 银行ID
+     * @return 余额合计（分），银行没有账户时为 0
+     */
+    public long getTotalBalanceCentsByBank(String bankId) {
+        AccountShard shard = shards.get(bankId);
+        return shard == null ? 0 : shard.store().totalBalanceCents();
+    }
+
+    /**
+     * 按姓名排序分页查询客户。
+     * @param namePrefix 姓名前缀（不区分大小写），null 或空表示全部
+     * @param descending 是否按姓名倒序
+     * @param page 页码（从 0 开始）
+     * @param size 每页条数
+     * @return 当前页的客户
+     */
+    public PageResult<Customer> searchCustomers(String namePrefix, boolean descending, int page, int size) {
+        List<Customer> items = index.customersByName(namePrefix, descending, offset(page, size), size + 1);
+        return toPage(items, page, size);
+    }
+
+    /**
+     * 按余额排序分页查询账户。
+     * @param bankId 银行ID，null 表示全部银行
+     * @param minCents 最小余额（分，含）
+     * @param maxCents 最大余额（分，含）
+     * @param descending 是否按余额倒序
+     * @param page 页码（从 0 开始）
+     * @param size 每页条数
+     * @return 当前页的账户
+     */
+    public PageResult<Account> searchAccounts(String bankId, long minCents, long maxCents, boolean descending,
+                                              int page, int size) {
+        List<Account> items = index.accountsByBalance(bankId, minCents, maxCents, descending, offset(page, size), size + 1);
+        return toPage(items, page, size);
+    }
+
+    private static int offset(int page, int size) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) page * size);
+    }
+
+    // 多取一条用于判断是否还有下一页
+    private static <T> PageResult<T> toPage(List<T> items, int page, int size) {
+        boolean hasNext = items.size() > size;
+        return new PageResult<>(hasNext ? items.subList(0, size) : items, page, size, hasNext);
+    }
+
+    /**
+     * 按时间顺序获取账户的一段交易流水（对账单），只读取该账户自己的记录。
+     * @param accountId 账户ID
+     * @param beforeSeq 上一页最早一条的流水号，0 表示从最新记录开始
+     * @param limit 最多返回的条数
+     * @return 流水记录，按时间递增
+     */
+    public List<LedgerEntry> getStatement(String accountId, long beforeSeq, int limit) {
+        return ledger.statement(accountId, beforeSeq, limit);
     }
 
     /**
@@ -332,7 +1418,7 @@ public class BankingService {
      * @return Customer 对象
      */
     public Customer getCustomer(String username) {
-        return customers.stream().filter(c -> c.getUsername().equals(username)).findFirst().orElse(null);
+        return index.customerByUsername(username);
     }
 
     /**
@@ -341,7 +1427,16 @@ public class BankingService {
      * @return Customer 对象
      */
     public Customer getCustomerById(String customerId) {
-        return customers.stream().filter(c -> c.getId().equals(customerId)).findFirst().orElse(null);
+        return index.customerById(customerId);
+    }
+
+    /**
+     * 根据银行卡号获取客户对象。
+     * @param cardNumber 银行卡号
+     * @return Customer 对象
+     */
+    public Customer getCustomerByCardNumber(String cardNumber) {
+        return index.customerByCardNumber(cardNumber);
     }
 
     /**
@@ -350,7 +1445,32 @@ public class BankingService {
      * @return Account 对象
      */
     public Account getAccountById(String accountId) {
-        return accounts.stream().filter(a -> a.getId().equals(accountId)).findFirst().orElse(null);
+        return index.accountById(accountId);
+    }
+
+    /**
+     * 根据银行ID获取银行。
+     * @param bankId 银行ID
+     * @return Bank 对象，不存在返回 null
+     */
+    public Bank getBankById(String bankId) {
+        return index.bankById(bankId);
+    }
+
+    /**
+     * 检查一组账户是否都属于指定客户。
+     * @param customerId 客户ID
+     * @param accountIds 账户ID集合
+     * @return 全部存在且属于该客户返回 true
+     */
+    public boolean ownsAccounts(String customerId, Collection<String> accountIds) {
+        for (String accountId : accountIds) {
+            Account account = index.accountById(accountId);
+            if (account == null || !Objects.equals(account.getCustomerId(), customerId)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -359,11 +1479,8 @@ public class BankingService {
      * @return 银行名称
      */
     public String getBankNameById(String bankId) {
-        return banks.stream()
-                .filter(b -> b.getId().equals(bankId))
-                .findFirst()
-                .map(Bank::getName)
-                .orElse("Unknown Bank");
+        Bank bank = index.bankById(bankId);
+        return bank != null ? bank.getName() : "Unknown Bank";
     }
 
     /**
@@ -378,8 +1495,19 @@ public class BankingService {
     public boolean updateCustomerName(String customerId, String newName) {
         Customer customer = getCustomerById(customerId);
         if (customer != null) {
-            customer.setName(newName);
-            saveData();
+            CompletableFuture<Void> durable;
+            locks.lock(customerId);
+            try {
+                String oldName = customer.getName();
+                customer.beforeWrite(snapshotEpoch);
+                customer.setName(newName);
+                index.updateCustomerName(customer, oldName);
+                dashboards.invalidate(customerId);
+                durable = persist("customers", customer);
+            } finally {
+                locks.unlock(customerId);
+            }
+            awaitDurable(durable);
             logger.info("Updated name for customer {} to {}", customerId, newName);
             return true;
         }
@@ -396,8 +1524,18 @@ public class BankingService {
     public boolean resetCustomerPassword(String customerId, String newPassword) {
         Customer customer = getCustomerById(customerId);
         if (customer != null) {
-            customer.setPasswordHash(BCrypt.hashpw(newPassword, BCrypt.gensalt()));
-            saveData();
+            String passwordHash = BCrypt.hashpw(newPassword, BCrypt.gensalt());
+            CompletableFuture<Void> durable;
+            locks.lock(customerId);
+            try {
+                customer.beforeWrite(snapshotEpoch);
+                customer.setPasswordHash(passwordHash);
+                durable = persist("customers", customer);
+            } finally {
+                locks.unlock(customerId);
+            }
+            credentials.invalidate(customer.getUsername());
+            awaitDurable(durable);
             logger.info("Reset password for customer {}", customerId);
             return true;
         }
@@ -408,20 +1546,30 @@ public class BankingService {
     /**
      * 更新指定账户ID的余额。
      * @param accountId 账户ID
-     * @param newBalance 新余额
+     * @param newBalanceCents 新余额（分）
      * @return 更新成功返回 true，否则返回 false
      */
-    public boolean updateAccountBalance(String accountId, double newBalance) {
+    public boolean updateAccountBalance(String accountId, long newBalanceCents) {
 
         Account account = getAccountById(accountId);
         if (account != null) {
-            if (newBalance < 0) {
+            if (newBalanceCents < 0) {
                 logger.warn("Cannot set negative balance for account {}", accountId);
                 return false;
             }
-            account.setBalance(newBalance);
-            saveData();
-            logger.info("Updated balance for account {} to {}", accountId, newBalance);
+            AccountShard shard = shardFor(account.getBankId());
+            shard.locks().lock(accountId);
+            try {
+                long delta = newBalanceCents - account.getBalanceCents();
+                writeBalance(account, newBalanceCents);
+                awaitDurable(persist(shard, account));
+                if (delta != 0) {
+                    record(LedgerEntry.Type.ADJUSTMENT, account, null, delta);
+                }
+            } finally {
+                shard.locks().unlock(accountId);
+            }
+            logger.info("Updated balance for account {} to {} cents", accountId, newBalanceCents);
             return true;
         }
         logger.warn("Failed to update balance. Account {} not found.", accountId);
@@ -442,8 +1590,18 @@ public class BankingService {
                 logger.warn("Cannot set negative interest rate for account {}", accountId);
                 return false;
             }
-            account.setInterestRate(newInterestRate);
-            saveData();
+            CompletableFuture<Void> durable;
+            AccountShard shard = shardFor(account.getBankId());
+            shard.locks().lock(accountId);
+            try {
+                account.beforeWrite(shard.snapshotEpoch());
+                account.setInterestRate(newInterestRate);
+                dashboards.invalidate(account.getCustomerId());
+                durable = persist(shard, account);
+            } finally {
+                shard.locks().unlock(accountId);
+            }
+            awaitDurable(durable);
             logger.info("Updated interest rate for account {} to {}", accountId, newInterestRate);
             return true;
         }
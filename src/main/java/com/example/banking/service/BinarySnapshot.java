@@ -0,0 +1,383 @@
+package com.example.banking.service;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.Bank;
+import com.example.banking.model.Customer;
+import com.example.banking.model.IdempotencyRecord;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * BinarySnapshot
+ *
+ * 二进制快照格式（版本 2，可读取版本 1），字节序为大端：
+ * <pre>
+ * 文件头   "BNKS" | u16 版本 | u16 保留
+ * 记录     u8 类型 + 字段，按类型分组，顺序与 JSON 快照相同
+ *   1 银行    str id, str name
+ *   2 客户    str id, str name, str username, str passwordHash, str cardNumber,
+ *             varint n + n × ref bankId, varint n + n × ref role
+ *   3 账户    str id, ref customerId, ref bankId, i64 余额（分）, f64 利率, i64 计息日期
+ *   4 已提交  str 事务号
+ *   5 幂等    str 幂等键, str 请求摘要, i64 首次处理时间（毫秒），版本 2 新增
+ * 结尾     u8 0 | u64 记录数 | u32 CRC32C（从文件头到记录数的全部字节）
+ * </pre>
+ * str 为 varint(长度 + 1) 加 UTF-8 字节，0 表示 null。
+ * ref 引用字符串表：0 表示 null，1 表示新字符串（varint 长度加 UTF-8 字节，依次编号），k ≥ 2 表示第 k - 2 个字符串。
+ * 字符串表在写出时边写边建，银行ID、客户ID 等重复值只写一次，读取时相同的值共用一个 String 对象。
+ * <p>
+ * 读取时把文件映射到内存，先校验 CRC 再解析，校验失败或文件被截断时抛出 IOException，不交出任何实体。
+ */
+final class BinarySnapshot {
+    static final byte[] MAGIC = {'B', 'N', 'K', 'S'};
+    static final int VERSION = 2;
+
+    private static final byte END = 0;
+    private static final byte BANK = 1;
+    private static final byte CUSTOMER = 2;
+    private static final byte ACCOUNT = 3;
+    private static final byte COMMITTED = 4;
+    private static final byte REQUEST = 5;
+    private static final int HEADER_SIZE = MAGIC.length + 4;
+    private static final int TRAILER_SIZE = 1 + 8 + 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private BinarySnapshot() {}
+
+    static boolean hasMagic(byte[] head, int length) {
+        if (length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 流式写出器：记录先写入固定大小的缓冲区，缓冲区满时更新 CRC 并写入文件通道。
+     */
+    static final class Writer implements SnapshotFormat.Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+        private final Map<String, Integer> strings = new HashMap<>();
+        private long records;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+            buffer.put(MAGIC).putShort((short) VERSION).putShort((short) 0);
+        }
+
+        @Override
+        public void bank(Bank bank) throws IOException {
+            ensure(1);
+            buffer.put(BANK);
+            writeString(bank.getId());
+            writeString(bank.getName());
+            records++;
+        }
+
+        @Override
+        public void customer(Customer customer, long epoch) throws IOException {
+            ensure(1);
+            buffer.put(CUSTOMER);
+            writeString(customer.getId());
+            writeString(customer.nameAt(epoch));
+            writeString(customer.getUsername());
+            writeString(customer.passwordHashAt(epoch));
+            writeString(customer.getCardNumber());
+            writeRefs(customer.getBankIds());
+            writeRefs(customer.getRoles());
+            records++;
+        }
+
+        @Override
+        public void account(Account account, long epoch) throws IOException {
+            ensure(1);
+            buffer.put(ACCOUNT);
+            writeString(account.getId());
+            writeRef(account.getCustomerId());
+            writeRef(account.getBankId());
+            ensure(24);
+            buffer.putLong(account.balanceCentsAt(epoch));
+            buffer.putDouble(account.interestRateAt(epoch));
+            buffer.putLong(account.interestPostedDayAt(epoch));
+            records++;
+        }
+
+        @Override
+        public void request(IdempotencyRecord record) throws IOException {
+            ensure(1);
+            buffer.put(REQUEST);
+            writeString(record.getKey());
+            writeString(record.getRequest());
+            ensure(8);
+            buffer.putLong(record.getCreatedAt());
+            records++;
+        }
+
+        @Override
+        public void committed(String tx) throws IOException {
+            ensure(1);
+            buffer.put(COMMITTED);
+            writeString(tx);
+            records++;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            ensure(9);
+            buffer.put(END).putLong(records);
+            flush();
+            ByteBuffer checksum = ByteBuffer.allocate(4).putInt((int) crc.getValue());
+            checksum.flip();
+            while (checksum.hasRemaining()) {
+                channel.write(checksum);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            writeBytes(bytes);
+        }
+
+        private void writeRef(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarint(index + 2L);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(1);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+
+        private void writeRefs(List<String> values) throws IOException {
+            if (values == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(values.size());
+            for (String value : values) {
+                writeRef(value);
+            }
+        }
+
+        private void writeVarint(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * 把快照文件映射到内存，校验后逐条交给接收者。
+     * @param file 快照文件
+     * @param sink 实体接收者
+     * @throws IOException 读取失败、格式错误或校验失败
+     */
+    static void read(Path file, DataReader.Sink sink) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is too large to map");
+            }
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        int checked = map.limit() - 4;
+        CRC32C crc = new CRC32C();
+        crc.update(map.slice(0, checked));
+        if ((int) crc.getValue() != map.getInt(checked)) {
+            throw new IOException("Checksum mismatch in snapshot " + file);
+        }
+        byte[] magic = new byte[MAGIC.length];
+        map.get(magic);
+        if (!hasMagic(magic, magic.length)) {
+            throw new IOException("Not a binary snapshot: " + file);
+        }
+        int version = Short.toUnsignedInt(map.getShort());
+        map.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file);
+        }
+        map.limit(checked);
+        try {
+            new Parser(map).parse(sink);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Malformed snapshot " + file, e);
+        }
+    }
+
+    /**
+     * 校验通过之后的解析器，持有读取过程中建立的字符串表。
+     */
+    private static final class Parser {
+        private final ByteBuffer in;
+        private final List<String> strings = new ArrayList<>();
+        private byte[] scratch = new byte[256];
+
+        Parser(ByteBuffer in) {
+            this.in = in;
+        }
+
+        void parse(DataReader.Sink sink) {
+            long records = 0;
+            while (true) {
+                byte tag = in.get();
+                switch (tag) {
+                    case END:
+                        if (in.getLong() != records || in.hasRemaining()) {
+                            throw new IllegalArgumentException("Record count mismatch");
+                        }
+                        return;
+                    case BANK:
+                        sink.bank(new Bank(readString(), readString()));
+                        break;
+                    case CUSTOMER:
+                        sink.customer(readCustomer());
+                        break;
+                    case ACCOUNT:
+                        sink.account(readAccount());
+                        break;
+                    case COMMITTED:
+                        sink.committed(readString());
+                        break;
+                    case REQUEST:
+                        sink.request(new IdempotencyRecord(readString(), readString(), in.getLong()));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown record type " + tag);
+                }
+                records++;
+            }
+        }
+
+        private Customer readCustomer() {
+            Customer customer = new Customer();
+            customer.setId(readString());
+            customer.setName(readString());
+            customer.setUsername(readString());
+            customer.setPasswordHash(readString());
+            customer.setCardNumber(readString());
+            customer.setBankIds(readRefs());
+            List<String> roles = readRefs();
+            if (!roles.isEmpty()) {
+                customer.setRoles(roles);
+            }
+            return customer;
+        }
+
+        private Account readAccount() {
+            Account account = new Account(readString(), readRef(), readRef());
+            account.setBalanceCents(in.getLong());
+            account.setInterestRate(in.getDouble());
+            account.setInterestPostedDay(in.getLong());
+            return account;
+        }
+
+        private String readString() {
+            long length = readVarint();
+            return length == 0 ? null : decode(Math.toIntExact(length - 1));
+        }
+
+        private String readRef() {
+            long ref = readVarint();
+            if (ref == 0) {
+                return null;
+            }
+            if (ref == 1) {
+                String value = decode(Math.toIntExact(readVarint()));
+                strings.add(value);
+                return value;
+            }
+            return strings.get(Math.toIntExact(ref - 2));
+        }
+
+        private List<String> readRefs() {
+            int n = Math.toIntExact(readVarint());
+            List<String> values = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                values.add(readRef());
+            }
+            return values;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varint too long");
+        }
+
+        private String decode(int length) {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
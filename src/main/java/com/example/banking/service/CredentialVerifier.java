@@ -0,0 +1,195 @@
+package com.example.banking.service;
+
+import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CredentialVerifier
+ *
+ * 密码校验器。BCrypt 校验在独立的有界线程池中执行，线程数和排队长度都有上限，
+ * 队列已满或等待超时时抛出 {@link AuthenticationBusyException}，登录高峰不会占满处理转账等请求的 CPU。
+ * 校验成功后缓存凭据摘要（HMAC-SHA256，密钥在进程启动时随机生成，不落盘），
+ * 同一用户在有效期内再次登录时只比较摘要，不再执行 BCrypt。
+ * 摘要包含密码哈希，修改密码后旧缓存自然失效。缓存按最近使用淘汰，条目过期后失效。
+ */
+public class CredentialVerifier implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(CredentialVerifier.class);
+    private static final String HMAC = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final long ttlNanos;
+    private final long timeoutNanos;
+    private final Map<String, CachedCredential> cache;
+    // 请求线程（可能是虚拟线程）在此竞争，用 ReentrantLock 而不是 synchronized，等待时不占住载体线程
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 缓存的凭据摘要及其过期时间。
+     */
+    private static final class CachedCredential {
+        final byte[] digest;
+        final long expiresAt;
+
+        CachedCredential(byte[] digest, long expiresAt) {
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 创建校验器。
+     * @param cacheSize 最多缓存的用户数，0 表示不缓存
+     * @param cacheTtl 缓存有效期
+     * @param threads BCrypt 校验线程数
+     * @param queueCapacity 等待校验的最大请求数
+     * @param timeout 等待校验结果的最长时间
+     */
+    public CredentialVerifier(int cacheSize, Duration cacheTtl, int threads, int queueCapacity, Duration timeout) {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC);
+        this.ttlNanos = cacheTtl.toNanos();
+        this.timeoutNanos = timeout.toNanos();
+        int maxEntries = Math.max(0, cacheSize);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCredential> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        AtomicInteger counter = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 校验密码。
+     * @param username 用户名
+     * @param password 明文密码
+     * @param passwordHash 存储的 BCrypt 哈希
+     * @return 密码正确返回 true
+     * @throws AuthenticationBusyException 校验线程池已满或等待超时
+     */
+    public boolean verify(String username, String password, String passwordHash) {
+        if (passwordHash == null) {
+            return false;
+        }
+        byte[] digest = digest(username, password, passwordHash);
+        long now = System.nanoTime();
+        CachedCredential cached;
+        cacheLock.lock();
+        try {
+            cached = cache.get(username);
+        } finally {
+            cacheLock.unlock();
+        }
+        if (cached != null && now - cached.expiresAt < 0 && MessageDigest.isEqual(cached.digest, digest)) {
+            return true;
+        }
+        if (!checkpw(password, passwordHash)) {
+            return false;
+        }
+        cacheLock.lock();
+        try {
+            cache.put(username, new CachedCredential(digest, System.nanoTime() + ttlNanos));
+        } finally {
+            cacheLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * 使某个用户的缓存失效，例如修改密码之后。
+     * @param username 用户名
+     */
+    public void invalidate(String username) {
+        cacheLock.lock();
+        try {
+            cache.remove(username);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private boolean checkpw(String password, String passwordHash) {
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> BCrypt.checkpw(password, passwordHash));
+        } catch (RejectedExecutionException e) {
+            logger.warn("BCrypt queue full ({} waiting), rejecting login", executor.getQueue().size());
+            throw new AuthenticationBusyException("Too many concurrent logins");
+        }
+        try {
+            return result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            logger.warn("BCrypt verification timed out");
+            throw new AuthenticationBusyException("Login verification timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new AuthenticationBusyException("Interrupted while verifying password");
+        } catch (ExecutionException e) {
+            // 哈希格式错误等，按校验失败处理
+            logger.warn("BCrypt verification failed", e.getCause());
+            return false;
+        }
+    }
+
+    private byte[] digest(String username, String password, String passwordHash) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(password.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(passwordHash.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC + " not available", e);
+        }
+    }
+
+    /**
+     * 当前等待 BCrypt 校验的请求数。
+     * @return 队列长度
+     */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 关闭校验线程池。
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
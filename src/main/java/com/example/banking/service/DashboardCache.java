@@ -0,0 +1,137 @@
+package com.example.banking.service;
+
+import com.example.banking.model.DashboardView;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * DashboardCache
+ *
+ * 按客户ID缓存主页快照 {@link DashboardView}，条目数达到上限时淘汰任意一个已有条目。
+ * 修改客户或其账户之后调用 {@link #invalidate}，只删除该客户的条目；银行列表变化时调用 {@link #invalidateAll}。
+ * 失效在转账等热点路径上调用，读取和失效都不加锁。
+ * <p>
+ * 快照生成期间发生的修改可能没有被读到。为此按客户ID分条带记录失效版本：
+ * 生成前读取版本，放入缓存后版本已变则撤回（本次请求仍返回该快照）；
+ * 失效先推进版本再删除条目，两者无论怎样交错，缓存中都不会留下失效之前生成的快照。
+ */
+public class DashboardCache {
+    private static final int VERSION_STRIPES = 1024;
+
+    private final ConcurrentHashMap<String, DashboardView> cache = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final int capacity;
+
+    // 监控用的累计值
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * 创建缓存。
+     * @param maxEntries 最多缓存的客户数，0 表示不缓存
+     */
+    public DashboardCache(int maxEntries) {
+        this.capacity = Math.max(0, maxEntries);
+    }
+
+    /**
+     * 读取客户的主页快照，未命中时生成并放入缓存。
+     * @param customerId 客户ID
+     * @param loader 生成快照，返回 null 时不缓存
+     * @return 主页快照
+     */
+    public DashboardView get(String customerId, Supplier<DashboardView> loader) {
+        DashboardView view = cache.get(customerId);
+        if (view != null) {
+            hits.increment();
+            return view;
+        }
+        misses.increment();
+        int stripe = stripeOf(customerId);
+        long version = versions.get(stripe);
+        view = loader.get();
+        if (view == null || capacity == 0 || versions.get(stripe) != version) {
+            return view;
+        }
+        if (cache.size() >= capacity) {
+            Iterator<String> victims = cache.keySet().iterator();
+            if (victims.hasNext()) {
+                cache.remove(victims.next());
+            }
+        }
+        cache.put(customerId, view);
+        if (versions.get(stripe) != version) {
+            cache.remove(customerId, view);
+        }
+        return view;
+    }
+
+    /**
+     * 使客户的主页快照失效。应在修改生效之后调用。
+     * @param customerId 客户ID
+     */
+    public void invalidate(String customerId) {
+        if (capacity == 0 || customerId == null) {
+            return;
+        }
+        invalidations.increment();
+        versions.incrementAndGet(stripeOf(customerId));
+        cache.remove(customerId);
+    }
+
+    /**
+     * 使全部快照失效，用于银行列表等所有客户共享的数据变化时。
+     */
+    public void invalidateAll() {
+        if (capacity == 0) {
+            return;
+        }
+        invalidations.increment();
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        cache.clear();
+    }
+
+    private static int stripeOf(String customerId) {
+        int h = customerId.hashCode();
+        return (h ^ (h >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    /**
+     * 当前缓存的客户数。
+     * @return 条目数
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * 累计命中次数。
+     * @return 命中次数
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * 累计未命中次数。
+     * @return 未命中次数
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 累计失效次数。
+     * @return 失效次数
+     */
+    public long invalidationCount() {
+        return invalidations.sum();
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.banking.service;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.Bank;
+import com.example.banking.model.Customer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataIndex
+ *
+ * 银行、客户和账户的内存哈希索引，提供按ID、用户名和银行卡号的 O(1) 查找，
+ * 以及客户ID、银行ID到账户列表的二级索引。
+ * 索引由 BankingService 在加载数据和创建银行、客户、账户时维护。
+ * 另有两个有序索引供管理后台分页查询：按姓名排序的客户索引（支持前缀过滤），
+ * 以及每个银行内按余额排序的账户索引（支持余额区间过滤，不限银行时按余额多路归并）。
+ * 姓名和余额变化时由 BankingService 在实体锁内调用 {@link #updateCustomerName} 和 {@link #updateBalance} 维护。
+ * 所有结构都是并发集合，查找不加锁，可与请求线程上的写入并行。
+ */
+public class DataIndex {
+    private final Map<String, Bank> banksById = new ConcurrentHashMap<>();
+    private final Map<String, Customer> customersById = new ConcurrentHashMap<>();
+    private final Map<String, Customer> customersByUsername = new ConcurrentHashMap<>();
+    private final Map<String, Customer> customersByCardNumber = new ConcurrentHashMap<>();
+    private final Map<String, Account> accountsById = new ConcurrentHashMap<>();
+    private final Map<String, List<Account>> accountsByCustomerId = new ConcurrentHashMap<>();
+    private final Map<String, Queue<Account>> accountsByBankId = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> accountCountsByBankId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<NameKey, Customer> customersByName = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<BalanceKey, Account>> accountsByBalance = new ConcurrentHashMap<>();
+
+    /**
+     * 客户姓名索引的键：小写姓名，相同时按客户ID排序。
+     */
+    private static final class NameKey implements Comparable<NameKey> {
+        final String name;
+        final String id;
+
+        NameKey(String name, String id) {
+            this.name = name == null ? "" : name.toLowerCase(Locale.ROOT);
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(NameKey o) {
+            int c = name.compareTo(o.name);
+            return c != 0 ? c : compareIds(id, o.id);
+        }
+    }
+
+    /**
+     * 账户余额索引的键：余额，相同时按账户ID排序。
+     */
+    private static final class BalanceKey implements Comparable<BalanceKey> {
+        final long balanceCents;
+        final String id;
+
+        BalanceKey(long balanceCents, String id) {
+            this.balanceCents = balanceCents;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(BalanceKey o) {
+            int c = Long.compare(balanceCents, o.balanceCents);
+            return c != 0 ? c : compareIds(id, o.id);
+        }
+    }
+
+    /**
+     * 比较ID，null 表示区间下界，排在所有ID之前。
+     */
+    private static int compareIds(String a, String b) {
+        if (a == null) return b == null ? 0 : -1;
+        if (b == null) return 1;
+        return a.compareTo(b);
+    }
+
+    /**
+     * 清空索引并根据完整数据重建。
+     * @param banks 银行集合
+     * @param customers 客户集合
+     * @param accounts 账户集合
+     */
+    public void rebuild(Collection<Bank> banks, Collection<Customer> customers, Collection<Account> accounts) {
+        banksById.clear();
+        customersById.clear();
+        customersByUsername.clear();
+        customersByCardNumber.clear();
+        accountsById.clear();
+        accountsByCustomerId.clear();
+        accountsByBankId.clear();
+        accountCountsByBankId.clear();
+        customersByName.clear();
+        accountsByBalance.clear();
+        banks.forEach(this::addBank);
+        for (Customer customer : customers) {
+            if (customer.getUsername() != null) {
+                customersByUsername.putIfAbsent(customer.getUsername(), customer);
+            }
+            indexCustomer(customer);
+        }
+        accounts.forEach(this::addAccount);
+    }
+
+    /**
+     * 索引一个银行。
+     * @param bank 银行对象
+     */
+    public void addBank(Bank bank) {
+        banksById.put(bank.getId(), bank);
+    }
+
+    /**
+     * 索引一个客户。用户名和卡号重复时保留最先加入的客户。
+     * 用户名索引的写入是原子的，可用于并发注册时抢占用户名。
+     * @param customer 客户对象
+     * @return 用户名此前未被占用返回 true，否则返回 false 且不修改索引
+     */
+    public boolean addCustomer(Customer customer) {
+        if (customer.getUsername() != null && customersByUsername.putIfAbsent(customer.getUsername(), customer) != null) {
+            return false;
+        }
+        indexCustomer(customer);
+        return true;
+    }
+
+    private void indexCustomer(Customer customer) {
+        customersById.put(customer.getId(), customer);
+        customersByName.put(new NameKey(customer.getName(), customer.getId()), customer);
+        if (customer.getCardNumber() != null) {
+            customersByCardNumber.putIfAbsent(customer.getCardNumber(), customer);
+        }
+    }
+
+    /**
+     * 索引一个账户。
+     * @param account 账户对象
+     */
+    public void addAccount(Account account) {
+        accountsById.put(account.getId(), account);
+        if (account.getCustomerId() != null) {
+            accountsByCustomerId.computeIfAbsent(account.getCustomerId(), k -> new CopyOnWriteArrayList<>()).add(account);
+        }
+        if (account.getBankId() != null) {
+            accountsByBankId.computeIfAbsent(account.getBankId(), k -> new ConcurrentLinkedQueue<>()).add(account);
+            accountCountsByBankId.computeIfAbsent(account.getBankId(), k -> new AtomicInteger()).incrementAndGet();
+        }
+        balanceIndex(account).put(new BalanceKey(account.getBalanceCents(), account.getId()), account);
+    }
+
+    private ConcurrentSkipListMap<BalanceKey, Account> balanceIndex(Account account) {
+        String bankId = account.getBankId() == null ? "" : account.getBankId();
+        return accountsByBalance.computeIfAbsent(bankId, k -> new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * 客户改名后更新姓名索引，须持有客户锁。
+     * @param customer 客户对象（已是新姓名）
+     * @param oldName 原姓名
+     */
+    public void updateCustomerName(Customer customer, String oldName) {
+        NameKey oldKey = new NameKey(oldName, customer.getId());
+        NameKey newKey = new NameKey(customer.getName(), customer.getId());
+        customersByName.put(newKey, customer);
+        if (oldKey.compareTo(newKey) != 0) {
+            customersByName.remove(oldKey);
+        }
+    }
+
+    /**
+     * 余额变化后更新余额索引，须持有账户锁。先插入新位置再删除旧位置，
+     * 并发的分页查询可能短暂看到同一账户两次，但不会漏掉它。
+     * @param account 账户对象（已是新余额）
+     * @param oldBalanceCents 原余额（分）
+     */
+    public void updateBalance(Account account, long oldBalanceCents) {
+        long balanceCents = account.getBalanceCents();
+        if (balanceCents == oldBalanceCents) {
+            return;
+        }
+        ConcurrentSkipListMap<BalanceKey, Account> balances = balanceIndex(account);
+        balances.put(new BalanceKey(balanceCents, account.getId()), account);
+        balances.remove(new BalanceKey(oldBalanceCents, account.getId()));
+    }
+
+    /**
+     * 根据银行ID查找银行。
+     * @param bankId 银行ID
+     * @return Bank 对象，不存在返回 null
+     */
+    public Bank bankById(String bankId) { return bankId == null ? null : banksById.get(bankId); }
+
+    /**
+     * 根据客户ID查找客户。
+     * @param customerId 客户ID
+     * @return Customer 对象，不存在返回 null
+     */
+    public Customer customerById(String customerId) { return customerId == null ? null : customersById.get(customerId); }
+
+    /**
+     * 根据用户名查找客户。
+     * @param username 用户名
+     * @return Customer 对象，不存在返回 null
+     */
+    public Customer customerByUsername(String username) { return username == null ? null : customersByUsername.get(username); }
+
+    /**
+     * 根据银行卡号查找客户。
+     * @param cardNumber 银行卡号
+     * @return Customer 对象，不存在返回 null
+     */
+    public Customer customerByCardNumber(String cardNumber) { return cardNumber == null ? null : customersByCardNumber.get(cardNumber); }
+
+    /**
+     * 根据账户ID查找账户。
+     * @param accountId 账户ID
+     * @return Account 对象，不存在返回 null
+     */
+    public Account accountById(String accountId) { return accountId == null ? null : accountsById.get(accountId); }
+
+    /**
+     * 获取指定客户的所有账户。
+     * @param customerId 客户ID
+     * @return 只读账户列表
+     */
+    public List<Account> accountsByCustomerId(String customerId) {
+        List<Account> list = customerId == null ? null : accountsByCustomerId.get(customerId);
+        return list == null ? Collections.emptyList() : Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 获取指定银行下的所有账户。
+     * @param bankId 银行ID
+     * @return 只读账户集合
+     */
+    public Collection<Account> accountsByBankId(String bankId) {
+        Queue<Account> queue = bankId == null ? null : accountsByBankId.get(bankId);
+        return queue == null ? Collections.emptyList() : Collections.unmodifiableCollection(queue);
+    }
+
+    /**
+     * 获取指定银行的账户数。
+     * @param bankId 银行ID
+     * @return 账户数
+     */
+    public int accountCountByBankId(String bankId) {
+        AtomicInteger count = bankId == null ? null : accountCountsByBankId.get(bankId);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 按姓名顺序分页查询客户。
+     * @param namePrefix 姓名前缀（不区分大小写），null 或空表示不过滤
+     * @param descending 是否按姓名倒序
+     * @param offset 跳过的条数
+     * @param limit 最多返回的条数
+     * @return 客户列表
+     */
+    public List<Customer> customersByName(String namePrefix, boolean descending, int offset, int limit) {
+        NavigableMap<NameKey, Customer> range = customersByName;
+        if (namePrefix != null && !namePrefix.isEmpty()) {
+            NameKey lower = new NameKey(namePrefix, null);
+            // 前缀之后的最小字符串作为上界
+            NameKey upper = new NameKey(lower.name + Character.MAX_VALUE, null);
+            range = customersByName.subMap(lower, true, upper, false);
+        }
+        return page((descending ? range.descendingMap() : range).values().iterator(), offset, limit);
+    }
+
+    /**
+     * 按余额顺序分页查询账户。指定银行时直接取该银行索引的区间，
+     * 否则对各银行索引的区间按余额归并。
+     * @param bankId 银行ID，null 表示全部银行
+     * @param minCents 最小余额（分，含）
+     * @param maxCents 最大余额（分，含）
+     * @param descending 是否按余额倒序
+     * @param offset 跳过的条数
+     * @param limit 最多返回的条数
+     * @return 账户列表
+     */
+    public List<Account> accountsByBalance(String bankId, long minCents, long maxCents, boolean descending,
+                                           int offset, int limit) {
+        if (minCents > maxCents) {
+            return Collections.emptyList();
+        }
+        Collection<ConcurrentSkipListMap<BalanceKey, Account>> indexes;
+        if (bankId != null) {
+            ConcurrentSkipListMap<BalanceKey, Account> bankIndex = accountsByBalance.get(bankId);
+            indexes = bankIndex == null ? Collections.emptyList() : List.of(bankIndex);
+        } else {
+            indexes = accountsByBalance.values();
+        }
+        Comparator<BalanceKey> order = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        PriorityQueue<PeekingIterator> heads = new PriorityQueue<>((a, b) -> order.compare(a.key, b.key));
+        for (ConcurrentSkipListMap<BalanceKey, Account> index : indexes) {
+            NavigableMap<BalanceKey, Account> range = maxCents == Long.MAX_VALUE
+                    ? index.tailMap(new BalanceKey(minCents, null), true)
+                    : index.subMap(new BalanceKey(minCents, null), true, new BalanceKey(maxCents + 1, null), false);
+            PeekingIterator it = new PeekingIterator((descending ? range.descendingMap() : range).entrySet().iterator());
+            if (it.key != null) {
+                heads.add(it);
+            }
+        }
+        Iterator<Account> merged = new Iterator<>() {
+            @Override
+            public boolean hasNext() { return !heads.isEmpty(); }
+
+            @Override
+            public Account next() {
+                PeekingIterator head = heads.poll();
+                Account account = head.value;
+                if (head.advance()) {
+                    heads.add(head);
+                }
+                return account;
+            }
+        };
+        return page(merged, offset, limit);
+    }
+
+    /**
+     * 归并用的迭代器，缓存当前元素。
+     */
+    private static final class PeekingIterator {
+        private final Iterator<Map.Entry<BalanceKey, Account>> it;
+        BalanceKey key;
+        Account value;
+
+        PeekingIterator(Iterator<Map.Entry<BalanceKey, Account>> it) {
+            this.it = it;
+            advance();
+        }
+
+        boolean advance() {
+            if (it.hasNext()) {
+                Map.Entry<BalanceKey, Account> e = it.next();
+                key = e.getKey();
+                value = e.getValue();
+                return true;
+            }
+            key = null;
+            value = null;
+            return false;
+        }
+    }
+
+    private static <T> List<T> page(Iterator<T> it, int offset, int limit) {
+        for (int i = 0; i < offset && it.hasNext(); i++) {
+            it.next();
+        }
+        List<T> items = new ArrayList<>(Math.min(limit, 1024));
+        while (items.size() < limit && it.hasNext()) {
+            items.add(it.next());
+        }
+        return items;
+    }
+}
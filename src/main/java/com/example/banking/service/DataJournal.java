@@ -0,0 +1,530 @@
+package com.example.banking.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataJournal
+ *
+ * 追加写日志（write-ahead journal）持久化引擎。
+ * 每次数据变更只向日志文件追加一行紧凑的 JSON 记录，记录结构与 data.json 相同，
+ * 但只包含本次变更涉及的银行、客户或账户，重放时按ID覆盖。
+ * <p>
+ * 写入采用组提交（group commit）：请求线程只负责序列化记录并放入队列，
+ * 由唯一的写线程成批写入并对每批只调用一次 fsync，然后通知这一批的所有调用方。
+ * 同步模式下调用方等待自己所在的批次落盘；宽松模式下调用方不等待。
+ * <p>
+ * 日志条数达到阈值后由后台快照线程轮换日志文件，再通过 {@link SnapshotWriter} 把完整快照
+ * 按配置的 {@link SnapshotFormat} 流式写入临时文件，fsync 后原子重命名为 data.json（或 data.snap），
+ * 最后删除被轮换的旧日志和另一种格式的旧快照。
+ * 写线程从不等待快照，快照期间记录照常写入新日志；任何时刻崩溃，
+ * data.json 要么是旧快照要么是新快照，不会出现写了一半的文件。
+ */
+public class DataJournal implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(DataJournal.class);
+    private static final byte NEWLINE = '\n';
+    private static final int QUEUE_CAPACITY = 1 << 16;
+
+    /**
+     * 持久化模式。
+     */
+    public enum Durability {
+        /** 调用方等待所在批次 fsync 完成 */
+        SYNC,
+        /** 调用方不等待，由写线程在后台成批落盘 */
+        RELAXED
+    }
+
+    /**
+     * 完整快照的写出回调，在后台快照线程中、日志轮换之后调用。
+     * 写出的状态必须包含调用之前已生效的所有修改。
+     */
+    @FunctionalInterface
+    public interface SnapshotWriter {
+        /**
+         * 把完整数据写入快照。
+         * @param output 快照写出接口
+         * @throws IOException 写入失败
+         */
+        void write(SnapshotFormat.Output output) throws IOException;
+    }
+
+    private final Path snapshotFile;
+    private final SnapshotFormat snapshotFormat;
+    private final List<Path> otherSnapshotFiles = new ArrayList<>();
+    private final Path journalFile;
+    private final Path rotatedJournalFile;
+    private final ObjectMapper objectMapper;
+    private final int checkpointInterval;
+    private final int maxBatchSize;
+    private final Durability durability;
+    private final SnapshotWriter snapshotWriter;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final ExecutorService checkpointExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "data-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Thread writerThread;
+
+    // 日志文件由写线程写入、由快照线程轮换，两者通过 channelLock 互斥
+    private final Object channelLock = new Object();
+    private FileChannel channel;
+    // 只由写线程访问
+    private int recordsSinceCheckpoint;
+    private Future<?> pendingCheckpoint;
+
+    private volatile boolean closed;
+
+    // 监控用的累计值
+    private final LongAdder journalBytes = new LongAdder();
+    private final LongAdder snapshotBytes = new LongAdder();
+    private final LongAdder checkpoints = new LongAdder();
+    private final LongAdder checkpointNanos = new LongAdder();
+
+    /**
+     * 队列中的一项：一条日志记录或停止信号。
+     */
+    private static final class Entry {
+        enum Kind { RECORD, STOP }
+
+        final Kind kind;
+        final byte[] bytes;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Entry(Kind kind, byte[] bytes) {
+            this.kind = kind;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * 创建日志引擎，写线程需调用 {@link #start()} 启动。
+     * @param dataFile 数据文件（data.json），快照和日志文件均为其同目录的兄弟文件
+     * @param objectMapper JSON 序列化器
+     * @param checkpointInterval 触发后台快照的日志记录条数
+     * @param maxBatchSize 每批最多写入的记录条数
+     * @param durability 持久化模式
+     * @param snapshotFormat 快照格式
+     * @param snapshotWriter 写出完整快照的回调，在后台快照线程中调用
+     */
+    public DataJournal(Path dataFile, ObjectMapper objectMapper, int checkpointInterval, int maxBatchSize,
+                       Durability durability, SnapshotFormat snapshotFormat, SnapshotWriter snapshotWriter) {
+        this.snapshotFile = siblingOf(dataFile, snapshotFormat.extension());
+        this.snapshotFormat = snapshotFormat;
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            if (format != snapshotFormat) {
+                otherSnapshotFiles.add(siblingOf(dataFile, format.extension()));
+            }
+        }
+        this.journalFile = siblingOf(dataFile, ".journal");
+        this.rotatedJournalFile = siblingOf(dataFile, ".journal.1");
+        this.objectMapper = objectMapper;
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.durability = durability;
+        this.snapshotWriter = snapshotWriter;
+        this.writerThread = new Thread(this::writeLoop, "journal-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * 启动写线程。应在加载并重放完数据之后调用。
+     */
+    public void start() {
+        writerThread.start();
+    }
+
+    /**
+     * 以流式方式读取快照文件，逐条把实体交给接收者。
+     * 配置的格式和另一种格式的快照都存在时（切换格式后的检查点中途崩溃），读取较新的一个。
+     * @param sink 实体接收者
+     * @return 快照存在且非空时返回 true
+     * @throws IOException 读取、解析或校验失败
+     */
+    public boolean readSnapshot(DataReader.Sink sink) throws IOException {
+        Path newest = null;
+        List<Path> candidates = new ArrayList<>(otherSnapshotFiles);
+        candidates.add(snapshotFile);
+        for (Path file : candidates) {
+            if (Files.exists(file) && Files.size(file) > 0 && (newest == null
+                    || Files.getLastModifiedTime(file).compareTo(Files.getLastModifiedTime(newest)) >= 0)) {
+                newest = file;
+            }
+        }
+        if (newest == null) {
+            return false;
+        }
+        SnapshotFormat.readSnapshot(newest, objectMapper, sink);
+        return true;
+    }
+
+    /**
+     * 按写入顺序重放日志：先重放上次未完成快照的旧日志，再重放当前日志。
+     * 每条记录先完整解析再应用，末尾因崩溃而写了一半的记录会被整体忽略。
+     * @param sink 实体接收者
+     * @throws IOException 读取失败
+     */
+    public void replay(DataReader.Sink sink) throws IOException {
+        int replayed = replayFile(rotatedJournalFile, sink) + replayFile(journalFile, sink);
+        if (replayed > 0) {
+            logger.info("Replayed {} journal records", replayed);
+        }
+    }
+
+    private int replayFile(Path file, DataReader.Sink sink) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                JsonNode record;
+                try {
+                    record = objectMapper.readTree(line);
+                } catch (JsonProcessingException e) {
+                    logger.warn("Ignoring torn journal record at the end of {}", file);
+                    break;
+                }
+                try (JsonParser parser = objectMapper.treeAsTokens(record)) {
+                    DataReader.read(parser, sink);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 序列化一条变更记录并放入写队列。调用方应在持有相关实体锁时调用，
+     * 以保证同一实体的记录顺序与修改顺序一致；等待落盘一般在释放锁之后进行，
+     * 落盘之后还要在锁内完成的工作（如追加交易流水）除外。
+     * @param record 变更记录
+     * @return 记录所在批次落盘后完成的 Future；宽松模式下立即完成
+     * @throws IOException 序列化失败或日志已关闭
+     */
+    public CompletableFuture<Void> append(Map<String, Object> record) throws IOException {
+        CompletableFuture<Void> done = appendDurable(record);
+        return durability == Durability.SYNC ? done : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 与 {@link #append} 相同，但不论持久化模式如何，都返回记录实际落盘后才完成的 Future，
+     * 用于两阶段提交中必须确认上一步已落盘才能继续的场合。
+     * @param record 变更记录
+     * @return 记录所在批次落盘后完成的 Future
+     * @throws IOException 序列化失败或日志已关闭
+     */
+    public CompletableFuture<Void> appendDurable(Map<String, Object> record) throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        byte[] json = objectMapper.writeValueAsBytes(record);
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = NEWLINE;
+        Entry entry = new Entry(Entry.Kind.RECORD, line);
+        enqueue(entry);
+        return entry.done;
+    }
+
+    /**
+     * 同步写入完整快照并清空日志。快照包含调用之前已生效的所有修改；
+     * 与后台快照共用一个线程，因此两者不会交错执行。
+     * @throws IOException 写入失败
+     */
+    public void checkpoint() throws IOException {
+        Future<?> done;
+        try {
+            done = checkpointExecutor.submit(() -> {
+                runCheckpoint();
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Journal is closed", e);
+        }
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for checkpoint", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Checkpoint failed", e.getCause());
+        }
+    }
+
+    /**
+     * 放入写队列，队列满时阻塞调用方，对写入方形成背压。
+     */
+    private void enqueue(Entry entry) throws IOException {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queuing journal record", e);
+        }
+    }
+
+    /**
+     * 当前等待写入的记录数。
+     * @return 队列长度
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * 累计写入日志文件的字节数。
+     * @return 字节数
+     */
+    public long journalBytesWritten() {
+        return journalBytes.sum();
+    }
+
+    /**
+     * 累计写入快照文件的字节数。
+     * @return 字节数
+     */
+    public long snapshotBytesWritten() {
+        return snapshotBytes.sum();
+    }
+
+    /**
+     * 已完成的快照次数（含后台快照）。
+     * @return 次数
+     */
+    public long checkpointCount() {
+        return checkpoints.sum();
+    }
+
+    /**
+     * 快照累计耗时。
+     * @return 纳秒
+     */
+    public long checkpointNanos() {
+        return checkpointNanos.sum();
+    }
+
+    /**
+     * 写线程主循环：取出一批记录，一次写入，一次 fsync，再通知调用方。
+     */
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(maxBatchSize);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - 1);
+                running = processBatch(batch);
+            } catch (InterruptedException e) {
+                logger.warn("Journal writer interrupted");
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 处理一批队列项。停止信号把批次切开：先提交它之前的记录，再退出。
+     * @return 收到停止信号时返回 false
+     */
+    private boolean processBatch(List<Entry> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            Entry entry = batch.get(i);
+            if (entry.kind == Entry.Kind.STOP) {
+                if (i > 0) {
+                    commit(batch.subList(0, i));
+                }
+                entry.done.complete(null);
+                return false;
+            }
+        }
+        commit(batch);
+        return true;
+    }
+
+    private void commit(List<Entry> records) {
+        int size = 0;
+        for (Entry e : records) size += e.bytes.length;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (Entry e : records) buffer.put(e.bytes);
+        buffer.flip();
+        try {
+            synchronized (channelLock) {
+                if (channel == null) {
+                    channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            journalBytes.add(size);
+            for (Entry e : records) e.done.complete(null);
+        } catch (IOException e) {
+            logger.error("Error writing {} records to {}", records.size(), journalFile, e);
+            for (Entry entry : records) entry.done.completeExceptionally(e);
+            return;
+        }
+        recordsSinceCheckpoint += records.size();
+        if (recordsSinceCheckpoint >= checkpointInterval
+                && (pendingCheckpoint == null || pendingCheckpoint.isDone())) {
+            recordsSinceCheckpoint = 0;
+            pendingCheckpoint = checkpointExecutor.submit(() -> {
+                try {
+                    runCheckpoint();
+                } catch (IOException e) {
+                    logger.error("Background checkpoint failed", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 在快照线程中执行一次检查点：轮换日志，写出快照，成功后删除旧日志。
+     */
+    private void runCheckpoint() throws IOException {
+        rotate();
+        writeSnapshot();
+        Files.deleteIfExists(rotatedJournalFile);
+    }
+
+    /**
+     * 轮换日志：当前日志并入旧日志文件，之后的记录写入新日志。
+     * 旧日志中的记录对应的修改在入队之前都已生效，
+     * 因此轮换之后开始的快照一定包含旧日志中的所有变更。
+     */
+    private void rotate() throws IOException {
+        synchronized (channelLock) {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            if (Files.exists(journalFile)) {
+                if (Files.exists(rotatedJournalFile)) {
+                    // 上一次快照失败，旧日志仍需保留，把当前日志追加到其后
+                    Files.write(rotatedJournalFile, Files.readAllBytes(journalFile), StandardOpenOption.APPEND);
+                    Files.delete(journalFile);
+                } else {
+                    Files.move(journalFile, rotatedJournalFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * 把快照流式写入临时文件并 fsync，再原子替换 data.json 并 fsync 所在目录。
+     * 写入过程中崩溃只会留下不完整的临时文件，data.json 保持原样。
+     * 替换成功后删除另一种格式的旧快照，此后启动只读取新格式。
+     */
+    private void writeSnapshot() throws IOException {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        long start = System.nanoTime();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotFormat.Output output = snapshotFormat.open(out, objectMapper);
+            snapshotWriter.write(output);
+            output.finish();
+            out.force(true);
+        }
+        try {
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        for (Path other : otherSnapshotFiles) {
+            Files.deleteIfExists(other);
+        }
+        forceDirectory(snapshotFile.toAbsolutePath().getParent());
+        long elapsed = System.nanoTime() - start;
+        snapshotBytes.add(Files.size(snapshotFile));
+        checkpoints.increment();
+        checkpointNanos.add(elapsed);
+        logger.debug("Checkpoint written to {} in {} ms", snapshotFile, elapsed / 1_000_000);
+    }
+
+    /**
+     * 让目录项（重命名）落盘。部分平台不支持打开目录，此时忽略。
+     */
+    private static void forceDirectory(Path dir) {
+        if (dir == null) return;
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Cannot fsync directory {}", dir);
+        }
+    }
+
+    /**
+     * 与数据文件同名、扩展名不同的兄弟路径，如 data.json 对应 data.journal。
+     * @param file 数据文件
+     * @param suffix 新扩展名（含点号）
+     * @return 兄弟路径
+     */
+    static Path siblingOf(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return file.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + suffix);
+    }
+
+    /**
+     * 写完队列中剩余的记录，等待后台快照完成并关闭日志文件。
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (writerThread.isAlive()) {
+            Entry stop = new Entry(Entry.Kind.STOP, null);
+            enqueue(stop);
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        checkpointExecutor.shutdown();
+        try {
+            checkpointExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (channelLock) {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.banking.service;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.Bank;
+import com.example.banking.model.Customer;
+import com.example.banking.model.IdempotencyRecord;
+import com.example.banking.model.Money;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataReader
+ *
+ * 基于 Jackson {@link JsonParser} 的流式读取器，用于 data.json 快照、账户分片快照和日志记录。
+ * 逐条读取银行、客户、账户和幂等记录（以及跨分片事务的 prepared/committed 记录）并立即交给 {@link Sink}，不在内存中构造完整的 Map 树，
+ * 因此加载大文件时的峰值堆内存只比最终的模型对象多出一条记录。
+ * 未知字段会被跳过，缺失字段使用与模型默认值一致的值。
+ */
+public class DataReader {
+
+    /**
+     * 接收读取到的实体。
+     */
+    public interface Sink {
+        /**
+         * 读取到一个银行。
+         * @param bank 银行对象
+         */
+        void bank(Bank bank);
+
+        /**
+         * 读取到一个客户。
+         * @param customer 客户对象
+         */
+        void customer(Customer customer);
+
+        /**
+         * 读取到一个账户。
+         * @param account 账户对象
+         */
+        void account(Account account);
+
+        /**
+         * 读取到两阶段提交中已准备、尚未确认提交的账户状态（只出现在账户分片的日志中），默认忽略。
+         * @param tx 事务号
+         * @param account 修改后的账户状态
+         */
+        default void prepared(String tx, Account account) {}
+
+        /**
+         * 读取到一条已生效请求的幂等记录（只出现在账户分片中），默认忽略。
+         * @param record 幂等记录
+         */
+        default void request(IdempotencyRecord record) {}
+
+        /**
+         * 读取到两阶段提交中随 prepared 状态写入的幂等记录，事务提交后才生效，默认忽略。
+         * @param tx 事务号
+         * @param record 幂等记录
+         */
+        default void preparedRequest(String tx, IdempotencyRecord record) {}
+
+        /**
+         * 读取到一个已提交的跨分片事务号（只出现在主数据文件及其日志中），默认忽略。
+         * @param tx 事务号
+         */
+        default void committed(String tx) {}
+    }
+
+    private DataReader() {}
+
+    /**
+     * 读取一个完整的数据文档（快照或一条日志记录）。
+     * @param parser 位于文档开头的解析器
+     * @param sink 实体接收者
+     * @throws IOException 读取失败或格式错误
+     */
+    public static void read(JsonParser parser, Sink sink) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected data object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "banks":
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        sink.bank(readBank(parser));
+                    }
+                    break;
+                case "customers":
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        sink.customer(readCustomer(parser));
+                    }
+                    break;
+                case "accounts":
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        sink.account(readAccount(parser));
+                    }
+                    break;
+                case "requests":
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        sink.request(readRequest(parser));
+                    }
+                    break;
+                case "prepared":
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readPrepared(parser, sink);
+                    }
+                    break;
+                case "committed":
+                    for (String tx : readStrings(parser)) {
+                        sink.committed(tx);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 读取一个已准备的事务：{"tx": 事务号, "accounts": [账户...], "requests": [幂等记录...]}，字段顺序不限。
+     */
+    private static void readPrepared(JsonParser parser, Sink sink) throws IOException {
+        String tx = null;
+        List<Account> accounts = new ArrayList<>();
+        List<IdempotencyRecord> requests = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (field.equals("tx")) {
+                tx = parser.getValueAsString();
+            } else if (field.equals("accounts") && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    accounts.add(readAccount(parser));
+                }
+            } else if (field.equals("requests") && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    requests.add(readRequest(parser));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (tx != null) {
+            for (Account account : accounts) {
+                sink.prepared(tx, account);
+            }
+            for (IdempotencyRecord request : requests) {
+                sink.preparedRequest(tx, request);
+            }
+        }
+    }
+
+    private static IdempotencyRecord readRequest(JsonParser parser) throws IOException {
+        IdempotencyRecord record = new IdempotencyRecord();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "key": record.setKey(parser.getValueAsString()); break;
+                case "request": record.setRequest(parser.getValueAsString()); break;
+                case "createdAt": record.setCreatedAt(parser.getValueAsLong()); break;
+                default: parser.skipChildren();
+            }
+        }
+        return record;
+    }
+
+    private static Bank readBank(JsonParser parser) throws IOException {
+        Bank bank = new Bank();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id": bank.setId(parser.getValueAsString()); break;
+                case "name": bank.setName(parser.getValueAsString()); break;
+                default: parser.skipChildren();
+            }
+        }
+        return bank;
+    }
+
+    private static Customer readCustomer(JsonParser parser) throws IOException {
+        Customer customer = new Customer();
+        List<String> roles = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id": customer.setId(parser.getValueAsString()); break;
+                case "name": customer.setName(parser.getValueAsString()); break;
+                case "username": customer.setUsername(parser.getValueAsString()); break;
+                case "passwordHash": customer.setPasswordHash(parser.getValueAsString()); break;
+                case "cardNumber": customer.setCardNumber(parser.getValueAsString()); break;
+                case "bankIds": customer.setBankIds(readStrings(parser)); break;
+                case "roles": roles = readStrings(parser); break;
+                default: parser.skipChildren();
+            }
+        }
+        if (roles != null && !roles.isEmpty()) {
+            customer.setRoles(roles);
+        }
+        return customer;
+    }
+
+    private static Account readAccount(JsonParser parser) throws IOException {
+        Account account = new Account();
+        account.setInterestRate(0.01);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "id": account.setId(parser.getValueAsString()); break;
+                case "balance":
+                    if (token == JsonToken.VALUE_NUMBER_INT) {
+                        account.setBalanceCents(Money.toCents(parser.getNumberValue()));
+                    } else if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                        account.setBalanceCents(Money.toCents(parser.getDecimalValue()));
+                    }
+                    break;
+                case "interestRate":
+                    if (token.isNumeric()) {
+                        account.setInterestRate(parser.getDoubleValue());
+                    }
+                    break;
+                case "interestPostedDay":
+                    if (token.isNumeric()) {
+                        account.setInterestPostedDay(parser.getLongValue());
+                    }
+                    break;
+                case "bankId": account.setBankId(parser.getValueAsString()); break;
+                case "customerId": account.setCustomerId(parser.getValueAsString()); break;
+                default: parser.skipChildren();
+            }
+        }
+        return account;
+    }
+
+    private static List<String> readStrings(JsonParser parser) throws IOException {
+        List<String> values = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return values;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.getValueAsString());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.banking.service;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.Bank;
+import com.example.banking.model.Customer;
+import com.example.banking.model.IdempotencyRecord;
+import com.example.banking.model.Money;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * DataWriter
+ *
+ * 基于 Jackson {@link JsonGenerator} 的流式写出器，与 {@link DataReader} 对应，输出 data.json 格式。
+ * 可变字段按快照周期读取（见 {@link Account#balanceCentsAt(long)}），
+ * 因此在其他线程继续修改数据时也能写出某一时刻的一致视图。
+ */
+public class DataWriter {
+    private DataWriter() {}
+
+    /**
+     * JSON 格式的快照写出器：按实体类型依次写出 banks、customers、accounts、requests、committed 数组，
+     * 没有实体的数组省略。
+     */
+    static final class JsonOutput implements SnapshotFormat.Output {
+        private final JsonGenerator g;
+        private String section;
+
+        JsonOutput(FileChannel channel, ObjectMapper objectMapper) throws IOException {
+            this.g = objectMapper.getFactory()
+                    .createGenerator(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16),
+                            JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            g.writeStartObject();
+        }
+
+        private void section(String name) throws IOException {
+            if (!name.equals(section)) {
+                if (section != null) {
+                    g.writeEndArray();
+                }
+                g.writeArrayFieldStart(name);
+                section = name;
+            }
+        }
+
+        @Override
+        public void bank(Bank bank) throws IOException {
+            section("banks");
+            writeBank(g, bank);
+        }
+
+        @Override
+        public void customer(Customer customer, long epoch) throws IOException {
+            section("customers");
+            writeCustomer(g, customer, epoch);
+        }
+
+        @Override
+        public void account(Account account, long epoch) throws IOException {
+            section("accounts");
+            writeAccount(g, account, epoch);
+        }
+
+        @Override
+        public void request(IdempotencyRecord record) throws IOException {
+            section("requests");
+            writeRequest(g, record);
+        }
+
+        @Override
+        public void committed(String tx) throws IOException {
+            section("committed");
+            g.writeString(tx);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (section != null) {
+                g.writeEndArray();
+            }
+            g.writeEndObject();
+            g.close();
+        }
+    }
+
+    /**
+     * 写出一个银行。
+     * @param g JSON 生成器
+     * @param bank 银行对象
+     * @throws IOException 写入失败
+     */
+    public static void writeBank(JsonGenerator g, Bank bank) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("id", bank.getId());
+        g.writeStringField("name", bank.getName());
+        g.writeEndObject();
+    }
+
+    /**
+     * 写出一个客户在快照周期开始时的状态。
+     * @param g JSON 生成器
+     * @param customer 客户对象
+     * @param epoch 快照周期
+     * @throws IOException 写入失败
+     */
+    public static void writeCustomer(JsonGenerator g, Customer customer, long epoch) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("id", customer.getId());
+        g.writeStringField("name", customer.nameAt(epoch));
+        g.writeStringField("username", customer.getUsername());
+        g.writeStringField("passwordHash", customer.passwordHashAt(epoch));
+        g.writeStringField("cardNumber", customer.getCardNumber());
+        writeStrings(g, "bankIds", customer.getBankIds());
+        writeStrings(g, "roles", customer.getRoles());
+        g.writeEndObject();
+    }
+
+    /**
+     * 写出一个账户在快照周期开始时的状态。
+     * @param g JSON 生成器
+     * @param account 账户对象
+     * @param epoch 快照周期
+     * @throws IOException 写入失败
+     */
+    public static void writeAccount(JsonGenerator g, Account account, long epoch) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("id", account.getId());
+        g.writeFieldName("balance");
+        g.writeNumber(Money.toDecimal(account.balanceCentsAt(epoch)));
+        g.writeNumberField("interestRate", account.interestRateAt(epoch));
+        g.writeNumberField("interestPostedDay", account.interestPostedDayAt(epoch));
+        g.writeStringField("bankId", account.getBankId());
+        g.writeStringField("customerId", account.getCustomerId());
+        g.writeEndObject();
+    }
+
+    /**
+     * 写出一条幂等记录。
+     * @param g JSON 生成器
+     * @param record 幂等记录
+     * @throws IOException 写入失败
+     */
+    public static void writeRequest(JsonGenerator g, IdempotencyRecord record) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("key", record.getKey());
+        g.writeStringField("request", record.getRequest());
+        g.writeNumberField("createdAt", record.getCreatedAt());
+        g.writeEndObject();
+    }
+
+    private static void writeStrings(JsonGenerator g, String field, List<String> values) throws IOException {
+        g.writeArrayFieldStart(field);
+        if (values != null) {
+            for (String value : values) {
+                g.writeString(value);
+            }
+        }
+        g.writeEndArray();
+    }
+}
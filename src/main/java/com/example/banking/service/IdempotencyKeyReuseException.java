@@ -0,0 +1,18 @@
+package com.example.banking.service;
+
+/**
+ * IdempotencyKeyReuseException
+ *
+ * 同一幂等键被用于内容不同的请求（操作类型、账户或金额不同）时抛出。
+ * 请求不会被执行，调用方应提示客户端为新请求生成新的幂等键。
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    /**
+     * 构造异常。
+     * @param message 异常信息
+     */
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
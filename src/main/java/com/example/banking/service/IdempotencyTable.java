@@ -0,0 +1,285 @@
+package com.example.banking.service;
+
+import com.example.banking.model.BatchTransferResult;
+import com.example.banking.model.IdempotencyRecord;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * IdempotencyTable
+ *
+ * 一个账户分片的幂等键表：幂等键到首次处理结果的映射，按登记顺序淘汰，超过保留时间或条目数上限的键被移除。
+ * 第一次出现的键由调用方执行并登记结果；同一键的后续请求直接取得该结果，不加账户锁、不写日志，
+ * 首次请求尚在执行时等待其完成。
+ * <p>
+ * 已生效的操作在持有账户锁、写入账户变更记录时调用 {@link Entry#markDurable()}，其记录随同一条日志记录落盘，
+ * 分片快照在全部条带锁内推进周期之后写出，因此写快照时已落盘的记录都会被写入快照。
+ * 未生效的请求（余额不足等）只在内存中记住结果，不写任何记录，重启后同一键的重试重新执行。
+ * 因暂时性故障未生效的请求（跨分片事务回滚）不记住结果，重试立即重新执行。
+ * 移除或替换的键同时从登记顺序中移除，使登记顺序与映射中的键一一对应，长度不超过条目数上限；
+ * 这需要在队列中查找，只发生在回滚、异常和键过期时，不在正常请求的路径上。
+ */
+public class IdempotencyTable {
+    /** 客户端幂等键的最大长度 */
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<>();
+    private final int capacity;
+    private final long ttlMillis;
+    private final LongAdder replays = new LongAdder();
+
+    /**
+     * 一个幂等键的处理状态。
+     */
+    public static final class Entry {
+        private final IdempotencyRecord record;
+        private final CompletableFuture<BatchTransferResult.Status> result = new CompletableFuture<>();
+        private volatile boolean durable;
+
+        Entry(IdempotencyRecord record) {
+            this.record = record;
+        }
+
+        /**
+         * 写入日志的幂等记录。
+         * @return 幂等记录
+         */
+        public IdempotencyRecord record() {
+            return record;
+        }
+
+        /**
+         * 标记操作已生效、记录已随账户变更写入日志。须在持有账户锁时调用。
+         */
+        public void markDurable() {
+            durable = true;
+        }
+    }
+
+    /**
+     * 登记结果：新请求由调用方执行，重复请求取得首次结果。
+     */
+    public final class Claim {
+        private final Entry entry;
+        private final boolean owner;
+
+        Claim(Entry entry, boolean owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        /**
+         * 是否为第一次出现的键，是则由调用方执行请求并调用 {@link #complete}、{@link #release} 或 {@link #abandon}。
+         * @return 新请求返回 true
+         */
+        public boolean isOwner() {
+            return owner;
+        }
+
+        /**
+         * 幂等键的处理状态，传给执行请求的方法以便随账户变更写入记录。
+         * @return 处理状态
+         */
+        public Entry entry() {
+            return entry;
+        }
+
+        /**
+         * 首次请求的结果，首次请求尚在执行时等待其完成。
+         * @return 首次请求的处理状态
+         */
+        public BatchTransferResult.Status result() {
+            try {
+                return entry.result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        /**
+         * 登记首次请求的结果。
+         * @param status 处理状态
+         */
+        public void complete(BatchTransferResult.Status status) {
+            entry.result.complete(status);
+        }
+
+        /**
+         * 首次请求因暂时性故障未生效：移除该键而不保留结果，等待中的重复请求取得本次的结果，
+         * 之后的重试按新请求处理。
+         * @param status 本次的处理状态
+         */
+        public void release(BatchTransferResult.Status status) {
+            remove(entry);
+            entry.result.complete(status);
+        }
+
+        /**
+         * 首次请求异常结束：移除该键，等待中的重复请求收到同一异常，之后的重试按新请求处理。
+         * @param cause 异常
+         */
+        public void abandon(Throwable cause) {
+            remove(entry);
+            entry.result.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 创建幂等键表。
+     * @param capacity 最多保留的键数
+     * @param ttlMillis 键的保留时间（毫秒）
+     */
+    public IdempotencyTable(int capacity, long ttlMillis) {
+        this.capacity = Math.max(1, capacity);
+        this.ttlMillis = Math.max(1, ttlMillis);
+    }
+
+    /**
+     * 客户端幂等键是否可用：非空、不超过 {@link #MAX_KEY_LENGTH} 个字符且只含可见 ASCII 字符。
+     * @param key 客户端幂等键
+     * @return 可用返回 true
+     */
+    public static boolean isValidKey(String key) {
+        if (key == null || key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x21 || c > 0x7E) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 登记一个请求。
+     * @param key 幂等键（含客户ID前缀）
+     * @param request 请求摘要
+     * @return 登记结果
+     * @throws IdempotencyKeyReuseException 该键已用于内容不同的请求
+     */
+    public Claim claim(String key, String request) {
+        long now = System.currentTimeMillis();
+        evict(now);
+        Entry entry = new Entry(new IdempotencyRecord(key, request, now));
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                order.add(entry);
+                return new Claim(entry, true);
+            }
+            if (expired(existing, now)) {
+                if (entries.replace(key, existing, entry)) {
+                    order.remove(existing);
+                    order.add(entry);
+                    return new Claim(entry, true);
+                }
+                continue;
+            }
+            if (!existing.record.getRequest().equals(request)) {
+                throw new IdempotencyKeyReuseException("Idempotency key was used for a different request");
+            }
+            replays.increment();
+            return new Claim(existing, false);
+        }
+    }
+
+    /**
+     * 按登记顺序移除过期的键，以及超出条目数上限的已完成的键。尚在执行的键只在过期后移除。
+     */
+    private void evict(long now) {
+        Entry head;
+        while ((head = order.peek()) != null) {
+            boolean expired = expired(head, now);
+            if (!expired && (entries.size() <= capacity || !head.result.isDone())) {
+                return;
+            }
+            if (order.remove(head)) {
+                entries.remove(head.record.getKey(), head);
+            }
+        }
+    }
+
+    /**
+     * 从映射和登记顺序中移除一个键，该键已被替换时不影响新的条目。
+     */
+    private void remove(Entry entry) {
+        if (entries.remove(entry.record.getKey(), entry)) {
+            order.remove(entry);
+        }
+    }
+
+    private boolean expired(Entry entry, long now) {
+        return now - entry.record.getCreatedAt() >= ttlMillis;
+    }
+
+    /**
+     * 加载时放入已落盘的记录，同一键保留最后读到的记录，已过期的记录被丢弃。
+     * @param records 幂等记录
+     */
+    public void load(Collection<IdempotencyRecord> records) {
+        entries.clear();
+        order.clear();
+        long now = System.currentTimeMillis();
+        Map<String, IdempotencyRecord> latest = new HashMap<>();
+        for (IdempotencyRecord record : records) {
+            latest.put(record.getKey(), record);
+        }
+        List<IdempotencyRecord> sorted = new ArrayList<>(latest.values());
+        sorted.sort(Comparator.comparingLong(IdempotencyRecord::getCreatedAt));
+        for (IdempotencyRecord record : sorted) {
+            Entry entry = new Entry(record);
+            if (expired(entry, now)) {
+                continue;
+            }
+            entry.durable = true;
+            entry.result.complete(BatchTransferResult.Status.OK);
+            entries.put(record.getKey(), entry);
+            order.add(entry);
+        }
+        evict(now);
+    }
+
+    /**
+     * 把已落盘且未过期的记录写入快照。
+     * @param output 快照写出器
+     * @throws IOException 写入失败
+     */
+    public void write(SnapshotFormat.Output output) throws IOException {
+        long now = System.currentTimeMillis();
+        for (Entry entry : order) {
+            if (entry.durable && !expired(entry, now)) {
+                output.request(entry.record);
+            }
+        }
+    }
+
+    /**
+     * 当前保留的键数。
+     * @return 键数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 累计识别出的重复请求数。
+     * @return 重复请求数
+     */
+    public long replayCount() {
+        return replays.sum();
+    }
+}
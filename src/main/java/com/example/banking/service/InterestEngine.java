@@ -0,0 +1,201 @@
+package com.example.banking.service;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.InterestRunReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * InterestEngine
+ *
+ * 计息引擎。把账户数组按块拆分到独立的 {@link ForkJoinPool} 中并行处理，
+ * 每个账户由 {@link Poster} 在该账户的锁内计息入账，锁只覆盖单个账户，在线转账不会被整批阻塞。
+ * 利息按定点数计算：年利率换算为十亿分之一的整数，按实际天数/365 计息，银行家舍入到分。
+ * 同一时刻只允许一次运行；关闭时中断正在进行的运行，已处理的账户已记录计息日期，下次运行从未处理的账户继续。
+ */
+public class InterestEngine implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(InterestEngine.class);
+    /** 利率定点数的比例：1 表示年利率 0.000000001 */
+    static final long RATE_SCALE = 1_000_000_000L;
+    private static final long DAYS_PER_YEAR = 365;
+    private static final long DENOMINATOR = DAYS_PER_YEAR * RATE_SCALE;
+
+    /**
+     * 单个账户的计息回调。
+     */
+    @FunctionalInterface
+    public interface Poster {
+        /**
+         * 为账户计息到指定日期并入账，须在账户锁内完成。
+         * @param account 账户对象
+         * @param day 计息日期（自 1970-01-01 起的天数）
+         * @return 入账的利息（分），已计息或无需计息返回 0，失败返回负数
+         */
+        long post(Account account, long day);
+    }
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * 创建计息引擎。
+     * @param parallelism 并行线程数
+     * @param chunkSize 每个任务处理的最大账户数
+     */
+    public InterestEngine(int parallelism, int chunkSize) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism), p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("interest-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * 为全部账户计息到指定日期。
+     * @param accounts 账户数组
+     * @param date 计息日期
+     * @param poster 单个账户的计息回调
+     * @return 统计结果；已有运行在进行中时返回 null
+     */
+    public InterestRunReport run(Account[] accounts, LocalDate date, Poster poster) {
+        if (closed || !running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            long start = System.nanoTime();
+            Totals totals = new Totals();
+            pool.invoke(new Chunk(accounts, 0, accounts.length, date.toEpochDay(), poster, totals));
+            InterestRunReport report = new InterestRunReport(date, totals.accounts.sum(), totals.credited.sum(),
+                    totals.failed.sum(), totals.interestCents.sum(), System.nanoTime() - start, !closed);
+            logger.info("Interest run for {}: {} accounts in {} ms ({} accounts/s), {} credited, {} failed, {} cents total{}",
+                    date, report.getAccounts(), report.getElapsedMillis(), report.getAccountsPerSecond(),
+                    report.getCredited(), report.getFailed(), report.getInterestCents(),
+                    report.isCompleted() ? "" : " (interrupted)");
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 是否有计息任务正在运行。
+     * @return 运行中返回 true
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * 计算一段时间的利息：balanceCents × annualRate × days / 365，银行家舍入到分。
+     * 中间结果超出 long 时改用 BigInteger 计算。
+     * @param balanceCents 余额（分）
+     * @param annualRate 年利率
+     * @param days 计息天数
+     * @return 利息（分）
+     */
+    public static long accrue(long balanceCents, double annualRate, long days) {
+        long rate = Math.round(annualRate * RATE_SCALE);
+        if (balanceCents <= 0 || rate <= 0 || days <= 0) {
+            return 0;
+        }
+        long numerator;
+        try {
+            numerator = Math.multiplyExact(Math.multiplyExact(balanceCents, rate), days);
+        } catch (ArithmeticException e) {
+            BigInteger[] qr = BigInteger.valueOf(balanceCents).multiply(BigInteger.valueOf(rate))
+                    .multiply(BigInteger.valueOf(days)).divideAndRemainder(BigInteger.valueOf(DENOMINATOR));
+            return roundHalfEven(qr[0].longValueExact(), qr[1].longValue());
+        }
+        return roundHalfEven(numerator / DENOMINATOR, numerator % DENOMINATOR);
+    }
+
+    private static long roundHalfEven(long quotient, long remainder) {
+        long twice = remainder * 2;
+        if (twice > DENOMINATOR || (twice == DENOMINATOR && (quotient & 1) == 1)) {
+            return quotient + 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * 中断正在进行的运行并关闭线程池。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pool.shutdown();
+    }
+
+    /**
+     * 各任务共享的计数器。
+     */
+    private static final class Totals {
+        final LongAdder accounts = new LongAdder();
+        final LongAdder credited = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder interestCents = new LongAdder();
+    }
+
+    /**
+     * 处理 [from, to) 区间的账户，超过块大小时一分为二。
+     */
+    private final class Chunk extends RecursiveAction {
+        private final Account[] accounts;
+        private final int from;
+        private final int to;
+        private final long day;
+        private final Poster poster;
+        private final Totals totals;
+
+        Chunk(Account[] accounts, int from, int to, long day, Poster poster, Totals totals) {
+            this.accounts = accounts;
+            this.from = from;
+            this.to = to;
+            this.day = day;
+            this.poster = poster;
+            this.totals = totals;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunkSize) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Chunk(accounts, from, mid, day, poster, totals),
+                        new Chunk(accounts, mid, to, day, poster, totals));
+                return;
+            }
+            if (closed) {
+                return;
+            }
+            long credited = 0;
+            long failed = 0;
+            long interest = 0;
+            for (int i = from; i < to; i++) {
+                long posted = poster.post(accounts[i], day);
+                if (posted > 0) {
+                    credited++;
+                    interest += posted;
+                } else if (posted < 0) {
+                    failed++;
+                }
+            }
+            totals.accounts.add(to - from);
+            totals.credited.add(credited);
+            totals.failed.add(failed);
+            totals.interestCents.add(interest);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.banking.service;
+
+import com.example.banking.config.BankingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * InterestScheduler
+ *
+ * 按 banking.interest.cron 定时为全部账户计息到当天。
+ * 应用停机错过的日期不需要补跑：每个账户记录了已计息到的日期，下次运行按实际天数补计利息。
+ */
+@Component
+public class InterestScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(InterestScheduler.class);
+
+    private final BankingService bankingService;
+    private final BankingProperties properties;
+
+    /**
+     * 构造函数。
+     * @param bankingService 银行服务
+     * @param properties 系统配置
+     */
+    public InterestScheduler(BankingService bankingService, BankingProperties properties) {
+        this.bankingService = bankingService;
+        this.properties = properties;
+    }
+
+    /**
+     * 定时计息任务。
+     */
+    @Scheduled(cron = "${banking.interest.cron:0 10 0 * * *}")
+    public void postDailyInterest() {
+        if (!properties.getInterest().isEnabled()) {
+            return;
+        }
+        if (bankingService.postInterest(LocalDate.now()) == null) {
+            logger.warn("Scheduled interest run skipped: another run is in progress");
+        }
+    }
+}
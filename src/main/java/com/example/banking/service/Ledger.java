@@ -0,0 +1,247 @@
+package com.example.banking.service;
+
+import com.example.banking.model.LedgerEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Ledger
+ *
+ * 只追加的交易流水账本。每条流水是 64 字节的定长二进制记录，按全局位置顺序写入
+ * 内存映射的分段文件（每段 {@value #RECORDS_PER_SEGMENT} 条），位置 = 流水号 - 1。
+ * 记录格式（大端）：
+ * <pre>
+ *  0 long 流水号        8 long 时间戳（毫秒）   16 long 账户号      24 long 对方账户号（无为 -1）
+ * 32 long 变动金额（分） 40 long 变动后余额（分） 48 long 同一账户上一条记录的位置（无为 -1）
+ * 56 byte 类型         57-59 保留              60 int CRC32（覆盖 0-59 字节）
+ * </pre>
+ * 每个账户的记录通过“上一条位置”串成链表，内存中只保存每个账户最新一条记录的位置，
+ * 查询对账单时从最新记录沿链表向前读取，只访问该账户自己的记录，不扫描整个账本。
+ * 追加须在持有该账户锁时调用，保证同一账户的记录位置递增、链表不交错。
+ * 启动时顺序扫描所有分段重建账户索引，流水号为 0 或 CRC 不符的槽位（崩溃时未写完）被跳过。
+ * 账户号按十进制数字存储，ID 不是数字的账户不记流水。
+ */
+public class Ledger implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(Ledger.class);
+    static final int RECORD_SIZE = 64;
+    static final int RECORDS_PER_SEGMENT = 1 << 20;
+    private static final long SEGMENT_BYTES = (long) RECORDS_PER_SEGMENT * RECORD_SIZE;
+    private static final int CRC_OFFSET = 60;
+    private static final long NONE = -1;
+    private static final LedgerEntry.Type[] TYPES = LedgerEntry.Type.values();
+
+    private final Path dir;
+    private final AtomicLong next = new AtomicLong();
+    private final Map<Long, AtomicLong> heads = new ConcurrentHashMap<>();
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(RECORD_SIZE));
+    // 新建分段时持有，期间有文件 I/O，用 ReentrantLock 避免虚拟线程占住载体线程
+    private final ReentrantLock growLock = new ReentrantLock();
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    /**
+     * 打开账本目录，映射已有分段并重建账户索引。
+     * @param dir 分段文件所在目录，不存在时创建
+     * @throws IOException 读取或映射失败
+     */
+    public Ledger(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        long start = System.nanoTime();
+        int count = 0;
+        while (Files.exists(segmentFile(count))) {
+            count++;
+        }
+        long records = 0;
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        for (int s = 0; s < count; s++) {
+            MappedByteBuffer segment = segment(s);
+            for (int i = 0; i < RECORDS_PER_SEGMENT; i++) {
+                segment.get(i * RECORD_SIZE, buf.array());
+                long position = (long) s * RECORDS_PER_SEGMENT + i;
+                if (!isValid(buf, position)) {
+                    continue;
+                }
+                heads.computeIfAbsent(buf.getLong(16), k -> new AtomicLong()).set(position);
+                next.set(position + 1);
+                records++;
+            }
+        }
+        logger.info("Ledger opened with {} records for {} accounts in {} ms", records, heads.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 追加一条流水，须持有该账户的锁。
+     * @param type 流水类型
+     * @param accountId 账户ID
+     * @param counterpartyId 对方账户ID，可为 null
+     * @param amountCents 变动金额（分），入账为正、出账为负
+     * @param balanceAfterCents 变动后余额（分）
+     * @throws IOException 创建新分段失败
+     */
+    public void append(LedgerEntry.Type type, String accountId, String counterpartyId,
+                       long amountCents, long balanceAfterCents) throws IOException {
+        long account = parseId(accountId);
+        if (account == NONE) {
+            return;
+        }
+        AtomicLong head = heads.computeIfAbsent(account, k -> new AtomicLong(NONE));
+        long position = next.getAndIncrement();
+        ByteBuffer buf = scratch.get();
+        buf.clear();
+        buf.putLong(position + 1)
+                .putLong(System.currentTimeMillis())
+                .putLong(account)
+                .putLong(counterpartyId != null ? parseId(counterpartyId) : NONE)
+                .putLong(amountCents)
+                .putLong(balanceAfterCents)
+                .putLong(head.get())
+                .put((byte) type.ordinal());
+        buf.putInt(CRC_OFFSET, crc(buf.array()));
+        segment((int) (position / RECORDS_PER_SEGMENT))
+                .put((int) (position % RECORDS_PER_SEGMENT) * RECORD_SIZE, buf.array());
+        // 记录写完后再发布为账户的最新位置
+        head.set(position);
+    }
+
+    /**
+     * 按时间顺序读取账户的一段流水，从最新记录（或 beforeSeq 对应的记录）沿链表向前读取 limit 条。
+     * @param accountId 账户ID
+     * @param beforeSeq 只返回该流水号之前的记录，须是该账户上一页最早一条的流水号；0 表示从最新记录开始
+     * @param limit 最多返回的条数
+     * @return 流水记录，按流水号递增
+     */
+    public List<LedgerEntry> statement(String accountId, long beforeSeq, int limit) {
+        long account = parseId(accountId);
+        AtomicLong head = account == NONE ? null : heads.get(account);
+        if (head == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        long position = head.get();
+        if (beforeSeq > 0) {
+            // 游标是本账户的记录，从它的上一条开始，不必跳过更新的记录
+            if (beforeSeq - 1 > position || !read(beforeSeq - 1, buf) || buf.getLong(16) != account) {
+                return Collections.emptyList();
+            }
+            position = buf.getLong(48);
+        }
+        List<LedgerEntry> entries = new ArrayList<>(Math.min(limit, 256));
+        while (position != NONE && entries.size() < limit && read(position, buf)) {
+            entries.add(new LedgerEntry(buf.getLong(0), buf.getLong(8), accountId, idString(buf.getLong(24)),
+                    TYPES[buf.get(56)], buf.getLong(32), buf.getLong(40)));
+            position = buf.getLong(48);
+        }
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    /**
+     * 读取指定位置的记录，记录无效（未写完）时返回 false。
+     */
+    private boolean read(long position, ByteBuffer buf) {
+        MappedByteBuffer[] current = segments;
+        int index = (int) (position / RECORDS_PER_SEGMENT);
+        if (position < 0 || index >= current.length) {
+            return false;
+        }
+        current[index].get((int) (position % RECORDS_PER_SEGMENT) * RECORD_SIZE, buf.array());
+        return isValid(buf, position);
+    }
+
+    /**
+     * 账本中的记录数（含崩溃留下的空槽位）。
+     * @return 下一条记录的位置
+     */
+    public long size() {
+        return next.get();
+    }
+
+    /**
+     * 把已写入的记录刷到磁盘。
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * 刷盘。映射在缓冲区被回收时释放。
+     */
+    @Override
+    public void close() {
+        force();
+    }
+
+    private MappedByteBuffer segment(int index) throws IOException {
+        MappedByteBuffer[] current = segments;
+        if (index < current.length) {
+            return current[index];
+        }
+        growLock.lock();
+        try {
+            current = segments;
+            if (index >= current.length) {
+                MappedByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+                for (int s = current.length; s <= index; s++) {
+                    try (FileChannel channel = FileChannel.open(segmentFile(s), StandardOpenOption.CREATE,
+                            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                        grown[s] = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+                    }
+                }
+                segments = grown;
+                current = grown;
+            }
+            return current[index];
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    private Path segmentFile(int index) {
+        return dir.resolve(String.format("ledger-%06d.seg", index));
+    }
+
+    private static boolean isValid(ByteBuffer record, long position) {
+        return record.getLong(0) == position + 1 && record.getInt(CRC_OFFSET) == crc(record.array())
+                && record.get(56) >= 0 && record.get(56) < TYPES.length;
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, CRC_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    private static long parseId(String id) {
+        try {
+            long value = Long.parseLong(id);
+            return value >= 0 ? value : NONE;
+        } catch (NumberFormatException e) {
+            return NONE;
+        }
+    }
+
+    private static String idString(long id) {
+        return id == NONE ? null : String.valueOf(id);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.banking.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RateLimiter
+ *
+ * 按键（客户或来源地址）限流的令牌桶：每个键每秒补充 rate 个令牌，最多积累 burst 个，每个请求消耗一个。
+ * 每个桶只保存一个 long，即令牌补满的时刻（纳秒），请求按 CAS 推进该时刻，不加锁。
+ * <p>
+ * 已补满的桶与不存在的桶等价，可以随时删除。桶数达到上限时删除所有已补满的桶；
+ * 仍没有空位时，新出现的键共用一个溢出桶，内存不会超过上限。
+ * 删除与并发请求交错时，该键最多多得到一个令牌。
+ */
+public class RateLimiter {
+    /** 桶满时两次清理之间的最短间隔 */
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final String name;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int capacity;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflow;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile long lastSweep;
+
+    // 监控用的累计值
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 创建限流器。
+     * @param name 限流范围，用作指标标签
+     * @param ratePerSecond 每秒补充的令牌数
+     * @param burst 桶容量，即连续请求的上限
+     * @param maxKeys 最多跟踪的键数
+     */
+    public RateLimiter(String name, double ratePerSecond, int burst, int maxKeys) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + ratePerSecond);
+        }
+        this.name = name;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.capacity = Math.max(1, maxKeys);
+        long now = System.nanoTime();
+        this.overflow = new AtomicLong(now);
+        this.lastSweep = now - SWEEP_INTERVAL_NANOS;
+    }
+
+    /**
+     * 限流范围。
+     * @return 名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 为键消耗一个令牌。
+     * @param key 客户ID或来源地址
+     * @return 放行返回 0，否则为下一个令牌可用前需要等待的纳秒数
+     */
+    public long acquire(String key) {
+        return acquire(key, System.nanoTime());
+    }
+
+    /**
+     * 为键消耗一个令牌。
+     * @param key 客户ID或来源地址
+     * @param now 当前时刻（{@link System#nanoTime()}）
+     * @return 放行返回 0，否则为下一个令牌可用前需要等待的纳秒数
+     */
+    long acquire(String key, long now) {
+        AtomicLong bucket = bucketOf(key, now);
+        while (true) {
+            long full = bucket.get();
+            long next = (full - now > 0 ? full : now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 退回之前为键消耗的一个令牌，例如认证成功的请求不计入失败次数。
+     * 桶已被清理或键落入溢出桶时不做任何事。
+     * @param key 客户ID或来源地址
+     */
+    public void refund(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.addAndGet(-intervalNanos);
+        }
+    }
+
+    private AtomicLong bucketOf(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= capacity) {
+            sweep(now);
+            if (buckets.size() >= capacity) {
+                return overflow;
+            }
+        }
+        AtomicLong created = new AtomicLong(now);
+        bucket = buckets.putIfAbsent(key, created);
+        return bucket != null ? bucket : created;
+    }
+
+    /**
+     * 删除已补满的桶。同一时间只有一个线程清理，且两次清理至少间隔 {@link #SWEEP_INTERVAL_NANOS}。
+     */
+    private void sweep(long now) {
+        if (now - lastSweep < SWEEP_INTERVAL_NANOS || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<Map.Entry<String, AtomicLong>> it = buckets.entrySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().getValue().get() - now <= 0) {
+                    it.remove();
+                }
+            }
+            lastSweep = now;
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * 当前跟踪的键数。
+     * @return 键数
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * 累计放行的请求数。
+     * @return 请求数
+     */
+    public long allowedCount() {
+        return allowed.sum();
+    }
+
+    /**
+     * 累计拒绝的请求数。
+     * @return 请求数
+     */
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.banking.service;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.Bank;
+import com.example.banking.model.Customer;
+import com.example.banking.model.IdempotencyRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SnapshotConverter
+ *
+ * 在 JSON 快照和二进制快照之间转换，主数据文件、分片快照和旧版完整 data.json 均可转换。
+ * 输入格式按文件头识别，输出格式按输出文件扩展名决定（.json 为 JSON，其余为二进制）。
+ * 转换逐条流式进行，不会把整个文件读入内存。只转换快照本身，日志不受影响，应在服务停止后使用：
+ * <pre>
+ * java -Dloader.main=com.example.banking.service.SnapshotConverter \
+ *      -cp target/banking-1.0-SNAPSHOT.jar org.springframework.boot.loader.launch.PropertiesLauncher \
+ *      data.json data.snap
+ * </pre>
+ */
+public final class SnapshotConverter {
+    private SnapshotConverter() {}
+
+    /**
+     * 命令行入口。
+     * @param args 输入文件和输出文件
+     * @throws IOException 读取或写入失败
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SnapshotConverter <input> <output>");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        SnapshotFormat format = formatOf(output);
+        long start = System.nanoTime();
+        convert(input, output, format, new ObjectMapper());
+        System.out.printf("Converted %s (%s, %d bytes) to %s (%s, %d bytes) in %d ms%n",
+                input, SnapshotFormat.detect(input), Files.size(input),
+                output, format, Files.size(output), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 按扩展名确定输出格式。
+     * @param file 输出文件
+     * @return .json 结尾时为 JSON，否则为 BINARY
+     */
+    public static SnapshotFormat formatOf(Path file) {
+        return file.getFileName().toString().endsWith(SnapshotFormat.JSON.extension())
+                ? SnapshotFormat.JSON : SnapshotFormat.BINARY;
+    }
+
+    /**
+     * 把快照转换为指定格式。先写入临时文件，完成并刷盘后再替换输出文件。
+     * @param input 输入快照，任一格式
+     * @param output 输出文件
+     * @param format 输出格式
+     * @param objectMapper JSON 序列化器
+     * @throws IOException 读取、校验或写入失败
+     */
+    public static void convert(Path input, Path output, SnapshotFormat format, ObjectMapper objectMapper) throws IOException {
+        Path tmp = output.resolveSibling(output.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotFormat.Output out = format.open(channel, objectMapper);
+            try {
+                SnapshotFormat.readSnapshot(input, objectMapper, new Copy(out));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.finish();
+            channel.force(true);
+        }
+        Files.move(tmp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 把读取到的实体原样写出。快照格式要求按类型分组，读取顺序已经满足。
+     */
+    private static final class Copy implements DataReader.Sink {
+        private final SnapshotFormat.Output out;
+
+        Copy(SnapshotFormat.Output out) {
+            this.out = out;
+        }
+
+        @Override
+        public void bank(Bank bank) {
+            try {
+                out.bank(bank);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void customer(Customer customer) {
+            try {
+                out.customer(customer, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void account(Account account) {
+            try {
+                out.account(account, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void request(IdempotencyRecord record) {
+            try {
+                out.request(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void committed(String tx) {
+            try {
+                out.committed(tx);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.banking.service;
+
+import com.example.banking.model.Account;
+import com.example.banking.model.Bank;
+import com.example.banking.model.Customer;
+import com.example.banking.model.IdempotencyRecord;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SnapshotFormat
+ *
+ * 完整快照的文件格式。日志记录始终是 JSON 行，只有快照可以选择格式；
+ * 同一数据文件的两种快照使用不同扩展名（data.json / data.snap），切换格式后下一次检查点写出新格式并删除旧文件。
+ * 读取时按文件头识别格式，与扩展名无关。
+ */
+public enum SnapshotFormat {
+    /** 与 data.json 相同的文本 JSON，可直接阅读和编辑 */
+    JSON(".json") {
+        @Override
+        public Output open(FileChannel channel, ObjectMapper objectMapper) throws IOException {
+            return new DataWriter.JsonOutput(channel, objectMapper);
+        }
+
+        @Override
+        void read(Path file, ObjectMapper objectMapper, DataReader.Sink sink) throws IOException {
+            try (JsonParser parser = objectMapper.getFactory().createParser(file.toFile())) {
+                DataReader.read(parser, sink);
+            }
+        }
+    },
+    /** 带字符串表、定长数值字段和 CRC32C 校验的二进制格式，见 {@link BinarySnapshot} */
+    BINARY(".snap") {
+        @Override
+        public Output open(FileChannel channel, ObjectMapper objectMapper) throws IOException {
+            return new BinarySnapshot.Writer(channel);
+        }
+
+        @Override
+        void read(Path file, ObjectMapper objectMapper, DataReader.Sink sink) throws IOException {
+            BinarySnapshot.read(file, sink);
+        }
+    };
+
+    private final String extension;
+
+    SnapshotFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * 快照文件的扩展名（含点号）。
+     * @return 扩展名
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * 快照的流式写出接口。实体须按类型分组写出：先银行，再客户、账户，然后是幂等记录，最后是已提交的事务号。
+     */
+    public interface Output {
+        /**
+         * 写出一个银行。
+         * @param bank 银行对象
+         * @throws IOException 写入失败
+         */
+        void bank(Bank bank) throws IOException;
+
+        /**
+         * 写出一个客户在快照周期开始时的状态。
+         * @param customer 客户对象
+         * @param epoch 快照周期
+         * @throws IOException 写入失败
+         */
+        void customer(Customer customer, long epoch) throws IOException;
+
+        /**
+         * 写出一个账户在快照周期开始时的状态。
+         * @param account 账户对象
+         * @param epoch 快照周期
+         * @throws IOException 写入失败
+         */
+        void account(Account account, long epoch) throws IOException;
+
+        /**
+         * 写出一条已生效请求的幂等记录。
+         * @param record 幂等记录
+         * @throws IOException 写入失败
+         */
+        void request(IdempotencyRecord record) throws IOException;
+
+        /**
+         * 写出一个已提交的跨分片事务号。
+         * @param tx 事务号
+         * @throws IOException 写入失败
+         */
+        void committed(String tx) throws IOException;
+
+        /**
+         * 写完剩余内容（结束标记、校验和等）并刷出缓冲，不关闭通道。
+         * @throws IOException 写入失败
+         */
+        void finish() throws IOException;
+    }
+
+    /**
+     * 在文件通道上开始写出一个快照。
+     * @param channel 文件通道，从当前位置开始写
+     * @param objectMapper JSON 序列化器
+     * @return 写出接口，写完后须调用 {@link Output#finish()}
+     * @throws IOException 写入失败
+     */
+    public abstract Output open(FileChannel channel, ObjectMapper objectMapper) throws IOException;
+
+    abstract void read(Path file, ObjectMapper objectMapper, DataReader.Sink sink) throws IOException;
+
+    /**
+     * 按文件头识别格式并流式读取快照。
+     * @param file 快照文件
+     * @param objectMapper JSON 序列化器
+     * @param sink 实体接收者
+     * @throws IOException 读取、解析或校验失败
+     */
+    public static void readSnapshot(Path file, ObjectMapper objectMapper, DataReader.Sink sink) throws IOException {
+        detect(file).read(file, objectMapper, sink);
+    }
+
+    /**
+     * 按文件头识别快照格式。
+     * @param file 快照文件
+     * @return 以二进制魔数开头时为 BINARY，否则为 JSON
+     * @throws IOException 读取失败
+     */
+    public static SnapshotFormat detect(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(BinarySnapshot.MAGIC.length);
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // 读满文件头或到达文件末尾
+            }
+            return BinarySnapshot.hasMagic(head.array(), head.position()) ? BINARY : JSON;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.banking.service;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * StripedLocks
+ *
+ * 按键（账户ID、客户ID）分条带的互斥锁。不同条带上的账户可以并行修改，
+ * 需要同时锁定两个账户时按条带序号从小到大加锁，避免死锁。
+ * 只有修改余额等读-改-写操作需要加锁，读取不加锁。
+ * 加锁先尝试无等待获取，失败时才计时阻塞，累计等待时间和等待次数供监控使用。
+ */
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waiting = new LongAdder();
+
+    /**
+     * 创建条带锁，条带数向上取整为2的幂。
+     * @param stripeCount 期望的条带数
+     */
+    public StripedLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * 计算键所在的条带序号。
+     * @param key 键
+     * @return 条带序号
+     */
+    public int stripeOf(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * 锁定一个键。
+     * @param key 键
+     */
+    public void lock(String key) {
+        acquire(stripes[stripeOf(key)]);
+    }
+
+    /**
+     * 释放一个键的锁。
+     * @param key 键
+     */
+    public void unlock(String key) {
+        stripes[stripeOf(key)].unlock();
+    }
+
+    /**
+     * 按条带序号顺序锁定两个键，两个键落在同一条带时只加一次锁。
+     * @param first 第一个键
+     * @param second 第二个键
+     */
+    public void lock(String first, String second) {
+        int a = stripeOf(first);
+        int b = stripeOf(second);
+        if (a == b) {
+            acquire(stripes[a]);
+        } else {
+            acquire(stripes[Math.min(a, b)]);
+            acquire(stripes[Math.max(a, b)]);
+        }
+    }
+
+    /**
+     * 释放通过 {@link #lock(String, String)} 获得的锁。
+     * @param first 第一个键
+     * @param second 第二个键
+     */
+    public void unlock(String first, String second) {
+        int a = stripeOf(first);
+        int b = stripeOf(second);
+        if (a == b) {
+            stripes[a].unlock();
+        } else {
+            stripes[Math.max(a, b)].unlock();
+            stripes[Math.min(a, b)].unlock();
+        }
+    }
+
+    /**
+     * 计算一组键所在的条带序号，去重后按从小到大排列，用于批量加锁。
+     * @param keys 键集合
+     * @return 有序且不重复的条带序号
+     */
+    public int[] stripesOf(Collection<String> keys) {
+        return keys.stream().mapToInt(this::stripeOf).distinct().sorted().toArray();
+    }
+
+    /**
+     * 按顺序锁定 {@link #stripesOf(Collection)} 返回的条带，每个条带只加一次锁。
+     * @param stripeIds 有序且不重复的条带序号
+     */
+    public void lock(int[] stripeIds) {
+        for (int stripe : stripeIds) {
+            acquire(stripes[stripe]);
+        }
+    }
+
+    /**
+     * 释放通过 {@link #lock(int[])} 获得的锁。
+     * @param stripeIds 有序且不重复的条带序号
+     */
+    public void unlock(int[] stripeIds) {
+        for (int i = stripeIds.length - 1; i >= 0; i--) {
+            stripes[stripeIds[i]].unlock();
+        }
+    }
+
+    /**
+     * 按条带序号顺序锁定全部条带，此时没有任何读-改-写操作在进行。
+     * 只用于快照等极少发生、持有时间极短的全局操作。
+     */
+    public void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            acquire(stripe);
+        }
+    }
+
+    /**
+     * 释放通过 {@link #lockAll()} 获得的锁。
+     */
+    public void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    private void acquire(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+        waiting.increment();
+        long start = System.nanoTime();
+        lock.lock();
+        waitNanos.add(System.nanoTime() - start);
+        contended.increment();
+        waiting.decrement();
+    }
+
+    /**
+     * 累计的锁等待时间。
+     * @return 纳秒
+     */
+    public long waitNanos() {
+        return waitNanos.sum();
+    }
+
+    /**
+     * 需要等待才获得锁的累计次数。
+     * @return 次数
+     */
+    public long contendedCount() {
+        return contended.sum();
+    }
+
+    /**
+     * 当前正在等待锁的线程数（近似值）。
+     * @return 线程数
+     */
+    public long waitingThreads() {
+        return waiting.sum();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.banking.service;
+
+import com.example.banking.config.BankingProperties;
+import com.example.banking.model.Account;
+import com.example.banking.model.Bank;
+import com.example.banking.model.BatchTransferResult;
+import com.example.banking.model.Customer;
+import com.example.banking.model.TransferLeg;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BankingServiceStressTest
+ *
+ * 多线程并发转账的压力测试：两家银行各有若干账户，多个线程同时在随机账户之间转账，
+ * 既有同一分片内的转账，也有走两阶段提交的跨分片转账。结束后检查总金额不变、没有负余额，
+ * 再关闭服务并从同一数据文件重新加载，检查每个账户的余额与关闭前一致。
+ */
+class BankingServiceStressTest {
+    private static final int CUSTOMERS = 8;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 500;
+    private static final long INITIAL_CENTS = 10_000;
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(SnapshotFormat.class)
+    void concurrentTransfersConserveMoneyAndReloadConsistently(SnapshotFormat format) throws Exception {
+        BankingService service = start(format);
+        Bank home = service.getBanks().get(0);
+        Bank other = service.createBank("otherBank");
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = service.createCustomer(home, "stress" + i, "stress" + i, "password");
+            accounts.addAll(service.getAccountsByCustomerId(customer.getId()));
+            accounts.add(service.createAccount(customer, other.getId()));
+        }
+        for (Account account : accounts) {
+            assertTrue(service.recharge(account.getId(), INITIAL_CENTS));
+        }
+        long before = totalCents(service);
+
+        AtomicInteger sameBank = new AtomicInteger();
+        AtomicInteger crossBank = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(pool.submit(() -> {
+                    go.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        Account from = accounts.get(random.nextInt(accounts.size()));
+                        Account to = accounts.get(random.nextInt(accounts.size()));
+                        if (from == to) {
+                            continue;
+                        }
+                        BatchTransferResult.Status status = service.transfer(
+                                new TransferLeg(from.getId(), to.getId(), 1 + random.nextInt(2_000)), null);
+                        if (status == BatchTransferResult.Status.OK) {
+                            (from.getBankId().equals(to.getBankId()) ? sameBank : crossBank).incrementAndGet();
+                        } else {
+                            assertEquals(BatchTransferResult.Status.INSUFFICIENT_FUNDS, status);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertTrue(sameBank.get() > 0, "no same-bank transfer succeeded");
+        assertTrue(crossBank.get() > 0, "no cross-bank transfer succeeded");
+        assertEquals(before, totalCents(service));
+        Map<String, Long> balances = balances(service);
+        balances.values().forEach(cents -> assertTrue(cents >= 0, "negative balance " + cents));
+        service.shutdown();
+
+        BankingService reloaded = start(format);
+        try {
+            assertEquals(balances, balances(reloaded));
+            assertEquals(before, totalCents(reloaded));
+        } finally {
+            reloaded.shutdown();
+        }
+    }
+
+    private BankingService start(SnapshotFormat format) {
+        BankingProperties properties = new BankingProperties();
+        properties.setDataFile(dir.resolve("data.json").toString());
+        properties.getPersistence().setSnapshotFormat(format);
+        BankingService service = new BankingService(properties, new SimpleMeterRegistry());
+        service.init();
+        return service;
+    }
+
+    private static long totalCents(BankingService service) {
+        return service.getAccounts().stream().mapToLong(Account::getBalanceCents).sum();
+    }
+
+    private static Map<String, Long> balances(BankingService service) {
+        Map<String, Long> balances = new HashMap<>();
+        for (Account account : service.getAccounts()) {
+            balances.put(account.getId(), account.getBalanceCents());
+        }
+        return balances;
+    }
+}